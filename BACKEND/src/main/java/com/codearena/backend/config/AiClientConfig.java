@@ -0,0 +1,130 @@
+package com.codearena.backend.config;
+
+import com.codearena.backend.utils.AiClientMetricsAdvisor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Shared ChatClients, one per use case, each with its own default system prompt and options
+ * and its own ai.client.* latency and token metrics. They are thread-safe and built once,
+ * callers only add the user message (and a system prompt where a call differs from the default).
+ *
+ * Blocking model calls go through a keep-alive connection pool sized for the AI gateway, so
+ * concurrent calls reuse warm TLS connections instead of queuing on the HTTP client's defaults.
+ * Spring AI is the only RestClient user in this application.
+ */
+@Configuration
+public class AiClientConfig {
+
+    public static final String SELECTOR_SYSTEM_PROMPT =
+            "You select practice questions. Respond with ONLY valid JSON.";
+    public static final String REVIEWER_SYSTEM_PROMPT =
+            "You are a strict JSON API. Return ONLY valid JSON. No markdown. No explanations.";
+    public static final String HINT_SYSTEM_PROMPT =
+            "You are a programming tutor. Guide the user towards a solution with hints, never give the full solution.";
+    public static final String CHAT_SYSTEM_PROMPT =
+            "You are the CodeArena programming assistant. Answer programming questions clearly and concisely.";
+
+    // ================= CHAT CLIENTS =================
+    // ChatClient.Builder is a prototype bean, every method below gets a fresh one
+
+    @Bean
+    public ChatClient selectorChatClient(ChatClient.Builder builder, MeterRegistry meterRegistry) {
+        return build(builder, "selector", SELECTOR_SYSTEM_PROMPT, 0.2, 512, meterRegistry);
+    }
+
+    @Bean
+    public ChatClient reviewerChatClient(ChatClient.Builder builder, MeterRegistry meterRegistry) {
+        return build(builder, "reviewer", REVIEWER_SYSTEM_PROMPT, 0.1, 1024, meterRegistry);
+    }
+
+    @Bean
+    public ChatClient hintChatClient(ChatClient.Builder builder, MeterRegistry meterRegistry) {
+        return build(builder, "hint", HINT_SYSTEM_PROMPT, 0.4, 256, meterRegistry);
+    }
+
+    @Bean
+    public ChatClient chatChatClient(ChatClient.Builder builder, MeterRegistry meterRegistry) {
+        return build(builder, "chat", CHAT_SYSTEM_PROMPT, 0.7, 1024, meterRegistry);
+    }
+
+    private ChatClient build(ChatClient.Builder builder, String name, String systemPrompt,
+                             double temperature, int maxTokens, MeterRegistry meterRegistry) {
+        return builder
+                .defaultSystem(systemPrompt)
+                .defaultOptions(ChatOptions.builder()
+                        .temperature(temperature)
+                        .maxTokens(maxTokens)
+                        .build())
+                .defaultAdvisors(new AiClientMetricsAdvisor(name, meterRegistry))
+                .build();
+    }
+
+    // ================= HTTP TRANSPORT =================
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager aiConnectionManager(AppProperties appProperties,
+                                                                  MeterRegistry meterRegistry) {
+        AppProperties.Ai ai = appProperties.getAi();
+        AppProperties.Ai.Http http = ai.getHttp();
+
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(http.getConnectTimeoutMs()))
+                        .setSocketTimeout(Timeout.ofSeconds(ai.getTimeoutSeconds()))
+                        .setTimeToLive(TimeValue.ofMinutes(10))
+                        .build())
+                .build();
+
+        Gauge.builder("ai.http.pool.leased", manager, m -> m.getTotalStats().getLeased())
+                .description("Provider connections in use").register(meterRegistry);
+        Gauge.builder("ai.http.pool.pending", manager, m -> m.getTotalStats().getPending())
+                .description("Model calls waiting for a connection").register(meterRegistry);
+        Gauge.builder("ai.http.pool.available", manager, m -> m.getTotalStats().getAvailable())
+                .description("Idle keep-alive provider connections").register(meterRegistry);
+
+        return manager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient aiHttpClient(@Qualifier("aiConnectionManager") PoolingHttpClientConnectionManager aiConnectionManager,
+                                            AppProperties appProperties) {
+        AppProperties.Ai ai = appProperties.getAi();
+        AppProperties.Ai.Http http = ai.getHttp();
+
+        return HttpClients.custom()
+                .setConnectionManager(aiConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(http.getPoolTimeoutMs()))
+                        .setResponseTimeout(Timeout.ofSeconds(ai.getTimeoutSeconds()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofSeconds(http.getKeepAliveSeconds()))
+                .evictIdleConnections(TimeValue.ofSeconds(http.getKeepAliveSeconds()))
+                .evictExpiredConnections()
+                // The gateway retries, with backoff and inside the caller's deadline
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    @Bean
+    public RestClientCustomizer aiRestClientCustomizer(@Qualifier("aiHttpClient") CloseableHttpClient aiHttpClient) {
+        return builder -> builder.requestFactory(new HttpComponentsClientHttpRequestFactory(aiHttpClient));
+    }
+}
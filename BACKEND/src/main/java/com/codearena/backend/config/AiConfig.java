@@ -0,0 +1,80 @@
+package com.codearena.backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Background pools for work nobody is waiting on yet: LLM re-ranking hints,
+ * practice question prefetch and end-of-session recommendations. None of it is needed to answer
+ * the request, so when a pool is full the work is dropped.
+ * Plus the pool the AI gateway runs model calls on.
+ */
+@Configuration
+public class AiConfig {
+
+    @Bean(name = "aiExecutor")
+    public ThreadPoolTaskExecutor aiExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("ai-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * End-of-session recommendations. Aborts when full, the next end call tries again.
+     */
+    @Bean(name = "recommendationExecutor")
+    public ThreadPoolTaskExecutor recommendationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("practice-recs-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the AiGateway's blocking model calls so their deadline can be enforced.
+     * The gateway's permits already cap concurrency, the queue only holds calls whose
+     * caller gave up at the deadline while the previous call on a thread is still unwinding.
+     */
+    @Bean(name = "aiCallExecutor")
+    public ThreadPoolTaskExecutor aiCallExecutor(AppProperties appProperties) {
+        int threads = appProperties.getAi().getGateway().getMaxConcurrency();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("ai-call-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Practice next-question prefetch. Aborts when full so the caller can skip the prefetch.
+     */
+    @Bean(name = "practicePrefetchExecutor")
+    public ThreadPoolTaskExecutor practicePrefetchExecutor(AppProperties appProperties) {
+        int threads = appProperties.getPractice().getPrefetchThreads();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 25);
+        executor.setThreadNamePrefix("practice-prefetch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
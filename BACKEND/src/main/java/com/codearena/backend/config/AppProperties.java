@@ -7,6 +7,8 @@ import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.constraints.*;
 
+import java.util.List;
+
 /**
  * Centralized configuration properties for the entire application
  * Replaces all hard-coded values with configurable properties
@@ -25,6 +27,7 @@ public class AppProperties {
     private final Practice practice = new Practice();
     private final Submission submission = new Submission();
     private final CodeExecution codeExecution = new CodeExecution();
+    private final Judge judge = new Judge();
     private final Question question = new Question();
     private final Chat chat = new Chat();
     private final Email email = new Email();
@@ -85,6 +88,35 @@ public class AppProperties {
 
         @NotBlank
         private String defaultDifficulty = "MEDIUM";
+
+        // Select the next question for both possible answers while the user works on the current one
+        private boolean prefetchEnabled = true;
+
+        // How long getNextQuestion waits for a prefetch still in progress before selecting itself
+        @Min(0)
+        @Max(30000)
+        private int prefetchWaitMs = 2000;
+
+        @Min(1)
+        @Max(64)
+        private int prefetchThreads = 4;
+
+        // Active sessions live in Redis and are written behind to MySQL at this interval
+        @Min(100)
+        private long stateFlushIntervalMs = 5000;
+
+        @Min(1)
+        @Max(1000)
+        private int stateFlushBatchSize = 100;
+
+        // Hot state outlives the session's expiry by this much, then only MySQL is left
+        @Min(1)
+        private int stateTtlGraceMinutes = 60;
+
+        // Sessions expired or deleted per cleanup statement, each chunk commits on its own
+        @Min(1)
+        @Max(10000)
+        private int cleanupBatchSize = 500;
     }
 
     @Data
@@ -104,9 +136,22 @@ public class AppProperties {
 
     @Data
     public static class CodeExecution {
+        // piston | judge0 | local
+        @NotBlank
+        private String engine = "piston";
+
         @NotBlank
         private String pistonUrl = "https://emkc.org/api/v2/piston/execute";
 
+        @NotBlank
+        private String judge0Url = "http://localhost:2358";
+
+        // Used when the primary engine's circuit is open or a call to it fails. Blank = none
+        private String secondaryEngine = "";
+
+        // Concurrent identical runs share one sandbox call
+        private boolean singleFlight = true;
+
         @Min(1)
         @Max(60)
         private int timeoutSeconds = 10;
@@ -116,6 +161,9 @@ public class AppProperties {
         private int maxMemoryMb = 256;
 
         private final LanguageVersions languageVersions = new LanguageVersions();
+        private final Local local = new Local();
+        private final Http http = new Http();
+        private final Resilience resilience = new Resilience();
 
         @Data
         public static class LanguageVersions {
@@ -125,6 +173,186 @@ public class AppProperties {
             private String c = "10.2.0";
             private String javascript = "18.15.0";
         }
+
+        /**
+         * Untrusted code only ever runs inside nsjail, as an unprivileged uid with no network.
+         * The engine refuses to start when nsjail-path is blank or not executable.
+         */
+        @Data
+        public static class Local {
+            // Blank = system temp dir
+            private String workDir = "";
+
+            // Blank = not configured, the local engine cannot be selected
+            private String nsjailPath = "";
+
+            @Min(1)
+            private int sandboxUid = 65534; // nobody
+
+            @Min(1)
+            private int sandboxGid = 65534; // nogroup
+
+            // RLIMIT_NPROC inside the jail, JVM threads count too
+            @Min(1)
+            @Max(1024)
+            private int maxProcesses = 64;
+
+            // Host paths mounted read-only into the jail, missing ones are skipped
+            private List<String> readOnlyMounts = List.of("/bin", "/lib", "/lib64", "/usr", "/etc/alternatives");
+
+            @Min(1)
+            @Max(120)
+            private int compileTimeoutSeconds = 15;
+
+            @Min(1)
+            @Max(65536)
+            private int maxOutputKb = 1024;
+        }
+
+        /**
+         * Connection pool shared by the HTTP engines (Piston, Judge0).
+         * Read timeout is timeout-seconds, the run limit plus slack.
+         */
+        @Data
+        public static class Http {
+            @Min(1)
+            @Max(1000)
+            private int maxConnections = 50;
+
+            @Min(1)
+            @Max(1000)
+            private int maxConnectionsPerRoute = 20;
+
+            @Min(100)
+            @Max(60000)
+            private int connectTimeoutMs = 2000;
+
+            // How long a call waits for a free pooled connection
+            @Min(100)
+            @Max(60000)
+            private int poolTimeoutMs = 1000;
+
+            @Min(1)
+            @Max(600)
+            private int keepAliveSeconds = 30;
+        }
+
+        /**
+         * Per-engine circuit breaker and hedged requests.
+         * A hedge is a second copy of a slow call, sent once the call has taken longer
+         * than the engine's recent p95. Whichever answers first is used.
+         */
+        @Data
+        public static class Resilience {
+            @Min(5)
+            @Max(1000)
+            private int windowSize = 20;
+
+            @Min(1)
+            @Max(1000)
+            private int minimumCalls = 10;
+
+            @Min(1)
+            @Max(100)
+            private int failureRatePercent = 50;
+
+            @Min(1)
+            @Max(3600)
+            private int openSeconds = 30;
+
+            @Min(1)
+            @Max(100)
+            private int halfOpenCalls = 3;
+
+            private boolean hedging = true;
+
+            // Hedge delay is the recent p95 clamped to [min, max]
+            @Min(50)
+            @Max(60000)
+            private int hedgeMinDelayMs = 500;
+
+            @Min(50)
+            @Max(60000)
+            private int hedgeMaxDelayMs = 5000;
+
+            @Min(10)
+            @Max(10000)
+            private int latencySamples = 200;
+
+            @Min(1)
+            @Max(256)
+            private int callThreads = 32;
+        }
+    }
+
+    @Data
+    public static class Judge {
+        @Min(1)
+        @Max(64)
+        private int workerThreads = 4;
+
+        @Min(1)
+        @Max(10000)
+        private int queueCapacity = 100;
+
+        @Min(1)
+        @Max(600)
+        private int resultTimeoutSeconds = 60;
+
+        // Run the test cases of one submission concurrently instead of one by one
+        private boolean parallelTestCases = true;
+
+        @Min(1)
+        @Max(32)
+        private int maxConcurrentTestCases = 4;
+
+        @Min(1)
+        @Max(256)
+        private int testCaseThreads = 16;
+
+        // Compile once and run every test case in one sandbox call (resources/judge harnesses)
+        private boolean batchTestCases = false;
+
+        // Upper bound on the sandbox run_timeout for a whole batch
+        @Min(1000)
+        @Max(600000)
+        private long batchRunTimeoutMs = 3000;
+
+        private final VerdictCache verdictCache = new VerdictCache();
+        private final Scheduling scheduling = new Scheduling();
+
+        /**
+         * Weighted fair queuing between the JudgePriority classes.
+         * With 8/3/1, a full backlog hands out 8 room jobs for every 3 practice and 1 run job,
+         * so rooms go first without starving the others. queue-capacity applies per class.
+         */
+        @Data
+        public static class Scheduling {
+            @Min(1)
+            @Max(100)
+            private int roomWeight = 8;
+
+            @Min(1)
+            @Max(100)
+            private int practiceWeight = 3;
+
+            @Min(1)
+            @Max(100)
+            private int runWeight = 1;
+        }
+
+        @Data
+        public static class VerdictCache {
+            private boolean enabled = true;
+
+            @Min(0)
+            @Max(100000)
+            private int localMaxEntries = 1000;
+
+            @Min(1)
+            @Max(10080)
+            private int ttlMinutes = 60;
+        }
     }
 
     @Data
@@ -226,6 +454,156 @@ public class AppProperties {
         private int maxRetries = 3;
 
         private boolean fallbackEnabled = true;
+
+        // Tags the gateway's limits and metrics, the chat model itself comes from spring.ai.*
+        @NotBlank
+        private String provider = "openai";
+
+        private final Gateway gateway = new Gateway();
+
+        private final Http http = new Http();
+
+        private final Selector selector = new Selector();
+
+        private final Cache cache = new Cache();
+
+        /**
+         * Next-question selection for practice sessions.
+         * Abilities and question difficulties are Elo-style Rasch (1PL IRT) estimates on a logit
+         * scale. The update step shrinks from initial-step towards min-step as more answers
+         * are seen (step = initial / (1 + decay * answers)).
+         */
+        @Data
+        public static class Selector {
+            @DecimalMin("0.01")
+            @DecimalMax("2.0")
+            private double initialStep = 0.6;
+
+            @DecimalMin("0.001")
+            @DecimalMax("1.0")
+            private double minStep = 0.1;
+
+            @DecimalMin("0.0")
+            @DecimalMax("10.0")
+            private double stepDecay = 0.1;
+
+            // Pick randomly among the N most informative questions so peers do not all get the same one
+            @Min(1)
+            @Max(20)
+            private int exposureTopN = 3;
+
+            // Ask the LLM in the background to re-rank the top candidates for the following request
+            private boolean llmRerank = false;
+
+            // Questions sent to the LLM, picked from the best rerank-pool by information
+            @Min(2)
+            @Max(20)
+            private int rerankCandidates = 5;
+
+            @Min(2)
+            @Max(50)
+            private int rerankPool = 15;
+
+            // How much covering a tag the user missed this session counts against information fit
+            @DecimalMin("0.0")
+            @DecimalMax("5.0")
+            private double tagGapWeight = 1.0;
+
+            // Recent submissions the local code profile is built from, and how long it is reused
+            @Min(1)
+            @Max(200)
+            private int codeProfileSamples = 20;
+
+            @Min(0)
+            @Max(1440)
+            private int codeProfileTtlMinutes = 30;
+
+            // Estimates are updated in Redis, nodes only cache them this long
+            @Min(0)
+            @Max(3600)
+            private int estimateCacheSeconds = 30;
+
+            @Min(100)
+            @Max(1000000)
+            private int estimateCacheEntries = 10000;
+        }
+
+        /**
+         * Limits of the AI gateway. timeout-seconds is the per-call deadline and max-retries the
+         * number of retries after the first attempt, both from the enclosing app.ai.*.
+         */
+        @Data
+        public static class Gateway {
+            // Calls running against the provider at once
+            @Min(1)
+            @Max(200)
+            private int maxConcurrency = 8;
+
+            // Blocking calls allowed to wait for a slot, the rest are shed
+            @Min(0)
+            @Max(1000)
+            private int maxQueued = 32;
+
+            @Min(10)
+            @Max(10000)
+            private long backoffBaseMs = 200;
+
+            @Min(100)
+            @Max(60000)
+            private long backoffMaxMs = 2000;
+        }
+
+        /**
+         * Keep-alive connection pool for blocking calls to the model provider.
+         * Every call goes to the same host, so max-connections is also the per-route limit and
+         * should stay at or above gateway.max-concurrency. Read timeout is timeout-seconds.
+         */
+        @Data
+        public static class Http {
+            @Min(1)
+            @Max(500)
+            private int maxConnections = 16;
+
+            @Min(100)
+            @Max(60000)
+            private int connectTimeoutMs = 2000;
+
+            // How long a call waits for a free pooled connection
+            @Min(100)
+            @Max(60000)
+            private int poolTimeoutMs = 1000;
+
+            @Min(1)
+            @Max(600)
+            private int keepAliveSeconds = 60;
+        }
+
+        /**
+         * Response cache for repeatable AI answers, local LRU in front of Redis.
+         * A TTL of 0 turns caching off for that kind of response.
+         */
+        @Data
+        public static class Cache {
+            private boolean enabled = true;
+
+            @Min(0)
+            @Max(100000)
+            private int localMaxEntries = 2000;
+
+            // Hints only depend on the problem text
+            @Min(0)
+            @Max(43200)
+            private int hintTtlMinutes = 1440;
+
+            @Min(0)
+            @Max(43200)
+            private int reviewTtlMinutes = 720;
+
+            // Prompt includes the session stats, this only absorbs repeated end calls
+            @Min(0)
+            @Max(1440)
+            private int recommendationTtlMinutes = 60;
+        }
     }
 
     @Data
@@ -0,0 +1,73 @@
+package com.codearena.backend.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Keep-alive connection pool for the HTTP execution engines.
+ * One pool is shared so judge workers and test case fan-out reuse warm connections
+ * instead of opening a new TLS session per test case.
+ */
+@Configuration
+public class ExecutionClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager executionConnectionManager(AppProperties appProperties) {
+        AppProperties.CodeExecution config = appProperties.getCodeExecution();
+        AppProperties.CodeExecution.Http http = config.getHttp();
+
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(http.getConnectTimeoutMs()))
+                        .setSocketTimeout(Timeout.ofSeconds(config.getTimeoutSeconds()))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient executionHttpClient(@Qualifier("executionConnectionManager") PoolingHttpClientConnectionManager executionConnectionManager,
+                                                   AppProperties appProperties) {
+        AppProperties.CodeExecution config = appProperties.getCodeExecution();
+        AppProperties.CodeExecution.Http http = config.getHttp();
+
+        return HttpClients.custom()
+                .setConnectionManager(executionConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(http.getPoolTimeoutMs()))
+                        .setResponseTimeout(Timeout.ofSeconds(config.getTimeoutSeconds()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofSeconds(http.getKeepAliveSeconds()))
+                .evictIdleConnections(TimeValue.ofSeconds(http.getKeepAliveSeconds()))
+                .evictExpiredConnections()
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * Threads that make the engine calls for the resilience router, so the caller can
+     * stop waiting on a slow call and hedge it without blocking on the socket itself.
+     */
+    @Bean(name = "executionCallExecutor")
+    public ThreadPoolTaskExecutor executionCallExecutor(AppProperties appProperties) {
+        int threads = appProperties.getCodeExecution().getResilience().getCallThreads();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("exec-call-");
+        executor.initialize();
+        return executor;
+    }
+}
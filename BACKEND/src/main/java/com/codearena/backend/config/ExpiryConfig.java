@@ -0,0 +1,27 @@
+package com.codearena.backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool that runs session and room expiry off the timer tick.
+ * Aborts when full, a timer that was not taken stays in Redis and the next load fires it again.
+ */
+@Configuration
+public class ExpiryConfig {
+
+    @Bean(name = "expiryExecutor")
+    public ThreadPoolTaskExecutor expiryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("expiry-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,51 @@
+package com.codearena.backend.config;
+
+import com.codearena.backend.utils.constant.JudgePriority;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Worker pool used by the judge queue.
+ * The queue is bounded so a burst of submissions is rejected instead of piling up in memory.
+ * Jobs themselves wait in JudgeQueueServiceImpl's per-class queues, the executor only
+ * holds one dispatch ticket per waiting job.
+ */
+@Configuration
+public class JudgeConfig {
+
+    @Bean(name = "judgeExecutor")
+    public ThreadPoolTaskExecutor judgeExecutor(AppProperties appProperties) {
+        AppProperties.Judge judge = appProperties.getJudge();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(judge.getWorkerThreads());
+        executor.setMaxPoolSize(judge.getWorkerThreads());
+        executor.setQueueCapacity(judge.getQueueCapacity() * JudgePriority.values().length);
+        executor.setThreadNamePrefix("judge-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(judge.getResultTimeoutSeconds());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Shared pool for test case fan-out.
+     * Each submission is capped at max-concurrent-test-cases, so this pool only needs to fit
+     * roughly worker-threads x max-concurrent-test-cases calls.
+     */
+    @Bean(name = "testCaseExecutor")
+    public ThreadPoolTaskExecutor testCaseExecutor(AppProperties appProperties) {
+        AppProperties.Judge judge = appProperties.getJudge();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(judge.getTestCaseThreads());
+        executor.setMaxPoolSize(judge.getTestCaseThreads());
+        executor.setThreadNamePrefix("judge-case-");
+        executor.initialize();
+        return executor;
+    }
+}
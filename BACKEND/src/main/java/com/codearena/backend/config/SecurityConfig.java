@@ -1,6 +1,7 @@
 package com.codearena.backend.config;
 
 import com.codearena.backend.serviceImpl.UserDetailService;
+import com.codearena.backend.utils.constant.AppConstant;
 import com.codearena.backend.utils.security.JWTAuthenticationEntryPoint;
 import com.codearena.backend.utils.security.JWTAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,6 +55,7 @@ public class SecurityConfig {
                             ).permitAll()
                             .requestMatchers("/ws-connect/**").permitAll()
                             .requestMatchers("/api/practice/**").authenticated()
+                            .requestMatchers("/actuator/aicache/**").hasAuthority(AppConstant.INTERVIEWER)
                             .anyRequest()
                             .authenticated();
                 })
@@ -48,7 +48,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // It defines that any destination prefixed with "/topic" is a
         // "broadcast" channel. Clients subscribe to these to *receive* messages.
         // Example: /topic/room/12345
-        registry.enableSimpleBroker("/topic");
+        // "/queue" carries per-user messages (notifications, submission progress).
+        // Clients subscribe to /user/queue/..., Spring resolves it to their own session.
+        registry.enableSimpleBroker("/topic", "/queue");
 
         // 2. For clients SENDING
         // This defines the "inbox" for our server.
@@ -56,6 +58,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Spring will route these messages to our @MessageMapping controllers.
         // Example: /app/chat.sendMessage
         registry.setApplicationDestinationPrefixes("/app");
+
+        // 3. For per-user messages sent with convertAndSendToUser
+        registry.setUserDestinationPrefix("/user");
     }
 
     @Override
@@ -0,0 +1,46 @@
+package com.codearena.backend.controller;
+
+import com.codearena.backend.service.ai.AiResponseCacheService;
+import com.codearena.backend.utils.constant.AiCachePolicy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Admin view of the AI response cache: GET /actuator/aicache for hit rates,
+ * DELETE /actuator/aicache[/{policy}] to evict everything or one policy.
+ */
+@Component
+@Endpoint(id = "aicache")
+@RequiredArgsConstructor
+public class AiCacheEndpoint {
+
+    private final AiResponseCacheService aiResponseCacheService;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> stats() {
+        return aiResponseCacheService.stats();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> evictAll() {
+        return Map.of("policy", "all", "evicted", aiResponseCacheService.evict(null));
+    }
+
+    @DeleteOperation
+    public Map<String, Object> evict(@Selector String policy) {
+        AiCachePolicy cachePolicy;
+        try {
+            cachePolicy = AiCachePolicy.valueOf(policy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException("Unknown AI cache policy: " + policy, "Unknown policy");
+        }
+        return Map.of("policy", cachePolicy.name(), "evicted", aiResponseCacheService.evict(cachePolicy));
+    }
+}
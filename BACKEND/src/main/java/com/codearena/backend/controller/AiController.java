@@ -1,12 +1,21 @@
 package com.codearena.backend.controller;
 
+import com.codearena.backend.dto.AIReviewChunkDTO;
+import com.codearena.backend.dto.AIReviewRequest;
 import com.codearena.backend.dto.StandardResponse;
 import com.codearena.backend.exception.AiServiceException;
+import com.codearena.backend.service.AIService;
+import com.codearena.backend.service.ai.AiGateway;
+import com.codearena.backend.service.ai.AiResponseCacheService;
+import com.codearena.backend.utils.constant.AiCachePolicy;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.model.ChatModel;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
@@ -15,11 +24,23 @@ import java.util.Map;
 @Slf4j
 public class AiController {
 
-    private final ChatClient chatClient;
-
-    // Manual constructor to build ChatClient from ChatModel (Groq)
-    public AiController(ChatModel chatModel) {
-        this.chatClient = ChatClient.builder(chatModel).build();
+    private final ChatClient chatChatClient;
+    private final ChatClient hintChatClient;
+    private final AiResponseCacheService aiResponseCacheService;
+    private final AIService aiService;
+    private final AiGateway aiGateway;
+
+    // Shared clients from AiClientConfig, each with its own system prompt and metrics
+    public AiController(@Qualifier("chatChatClient") ChatClient chatChatClient,
+                        @Qualifier("hintChatClient") ChatClient hintChatClient,
+                        AiResponseCacheService aiResponseCacheService,
+                        AIService aiService,
+                        AiGateway aiGateway) {
+        this.chatChatClient = chatChatClient;
+        this.hintChatClient = hintChatClient;
+        this.aiResponseCacheService = aiResponseCacheService;
+        this.aiService = aiService;
+        this.aiGateway = aiGateway;
     }
 
     @PostMapping("/chat")
@@ -34,15 +55,18 @@ public class AiController {
 
             log.info("AI chat request received: {}", message.substring(0, Math.min(50, message.length())));
 
-            String response = chatClient.prompt()
+            String response = aiGateway.call("chat", () -> chatChatClient.prompt()
                     .user(message)
                     .call()
-                    .content();
+                    .content());
 
             return ResponseEntity.ok(
                     StandardResponse.success("AI response generated", Map.of("response", response))
             );
 
+        } catch (AiServiceException e) {
+            // Gateway rejections (busy, timed out) already say what happened
+            throw e;
         } catch (Exception e) {
             log.error("AI Service Error: {}", e.getMessage());
             // This will trigger the GlobalExceptionHandler
@@ -61,45 +85,129 @@ public class AiController {
                         .body(StandardResponse.error("Question title and description are required"));
             }
 
-            String prompt = String.format(
-                    "Give a helpful hint for solving this coding problem. Don't give the full solution, just a hint to guide the user:\n\nTitle: %s\n\nDescription: %s\n\nProvide a concise hint (2-3 sentences max).",
-                    questionTitle, questionDescription
-            );
+            String prompt = hintPrompt(questionTitle, questionDescription);
+
+            // Same problem text, same hint, whoever asks
+            String cacheKey = aiResponseCacheService.key(AiCachePolicy.HINT, questionTitle, questionDescription);
+            String cached = aiResponseCacheService.get(AiCachePolicy.HINT, cacheKey).orElse(null);
+            if (cached != null) {
+                return ResponseEntity.ok(StandardResponse.success("Hint generated", Map.of("hint", cached)));
+            }
 
             log.info("Generating hint for question: {}", questionTitle);
 
-            String hint = chatClient.prompt()
+            String hint = aiGateway.call("hint", () -> hintChatClient.prompt()
                     .user(prompt)
                     .call()
-                    .content();
+                    .content());
+
+            aiResponseCacheService.put(AiCachePolicy.HINT, cacheKey, hint);
 
             return ResponseEntity.ok(
                     StandardResponse.success("Hint generated", Map.of("hint", hint))
             );
 
+        } catch (AiServiceException e) {
+            // Gateway rejections (busy, timed out) already say what happened
+            throw e;
         } catch (Exception e) {
             log.error("AI Service Error (Hint): {}", e.getMessage());
             // This will trigger the GlobalExceptionHandler
             throw new AiServiceException("Failed to generate hint. Please try again later.");
         }
     }
-}
-
-
 
+    // ================= STREAMING (SSE) =================
+    // Tokens are sent as "token" events while the model generates, then one "done" event.
+    // Failures are reported as an "error" event, the HTTP status is already 200 by then.
 
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> chatStream(@RequestBody Map<String, String> request) {
+        String message = request.get("message");
 
+        if (message == null || message.trim().isEmpty()) {
+            return Flux.just(errorEvent("Message is required"));
+        }
 
+        log.info("AI chat stream request received: {}", message.substring(0, Math.min(50, message.length())));
 
+        return tokenEvents(aiGateway.stream("chat", () -> chatChatClient.prompt()
+                        .user(message)
+                        .stream()
+                        .content()),
+                "AI is currently busy or quota exceeded. Please try again later.");
+    }
 
+    @PostMapping(value = "/hint/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> getHintStream(@RequestBody Map<String, String> request) {
+        String questionTitle = request.get("questionTitle");
+        String questionDescription = request.get("questionDescription");
 
+        if (questionTitle == null || questionDescription == null) {
+            return Flux.just(errorEvent("Question title and description are required"));
+        }
 
+        String cacheKey = aiResponseCacheService.key(AiCachePolicy.HINT, questionTitle, questionDescription);
+        String cached = aiResponseCacheService.get(AiCachePolicy.HINT, cacheKey).orElse(null);
+        if (cached != null) {
+            return Flux.just(ServerSentEvent.builder(cached).event("token").build(), doneEvent());
+        }
 
+        log.info("Streaming hint for question: {}", questionTitle);
 
+        // Collected while streaming so a complete hint can be cached for the next user
+        StringBuilder hint = new StringBuilder();
+        Flux<String> tokens = aiGateway.stream("hint", () -> hintChatClient.prompt()
+                        .user(hintPrompt(questionTitle, questionDescription))
+                        .stream()
+                        .content())
+                .doOnNext(hint::append)
+                .doOnComplete(() -> aiResponseCacheService.put(AiCachePolicy.HINT, cacheKey, hint.toString()));
 
+        return tokenEvents(tokens, "Failed to generate hint. Please try again later.");
+    }
 
+    /**
+     * Code review streamed field by field: "summary", "optimizationTips", "readabilityScore",
+     * then "done" carrying the complete review as JSON. A stream that fails part way ends with
+     * one "error" event instead.
+     */
+    @PostMapping(value = "/review/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> reviewStream(@RequestBody AIReviewRequest request) {
+        Flux<AIReviewChunkDTO> chunks;
+        try {
+            chunks = aiService.streamAIReview(request);
+        } catch (IllegalArgumentException e) {
+            return Flux.just(errorEvent(e.getMessage()));
+        }
 
+        return chunks.map(chunk -> ServerSentEvent.builder(chunk.getValue() != null ? chunk.getValue() : "")
+                .event(chunk.getField())
+                .build());
+    }
 
+    private Flux<ServerSentEvent<String>> tokenEvents(Flux<String> tokens, String errorMessage) {
+        return tokens
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .concatWithValues(doneEvent())
+                .onErrorResume(e -> {
+                    log.error("AI Service Error (stream): {}", e.getMessage());
+                    return Flux.just(errorEvent(errorMessage));
+                });
+    }
 
+    private ServerSentEvent<String> doneEvent() {
+        return ServerSentEvent.builder("").event("done").build();
+    }
 
+    private ServerSentEvent<String> errorEvent(String message) {
+        return ServerSentEvent.builder(message).event("error").build();
+    }
 
+    private String hintPrompt(String questionTitle, String questionDescription) {
+        return String.format(
+                "Give a helpful hint for solving this coding problem:\n\nTitle: %s\n\nDescription: %s\n\nProvide a concise hint (2-3 sentences max).",
+                questionTitle, questionDescription
+        );
+    }
+}
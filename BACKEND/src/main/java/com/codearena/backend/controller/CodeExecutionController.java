@@ -1,6 +1,7 @@
 package com.codearena.backend.controller;
 import com.codearena.backend.dto.CodeExecutionDTO;
 import com.codearena.backend.dto.CodeExecutionResultDTO; // <-- ADDED IMPORT
+import com.codearena.backend.dto.JudgeJobDTO;
 import com.codearena.backend.service.CodeExecutionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -29,14 +30,19 @@ public class CodeExecutionController {
         return ResponseEntity.ok(result);
     }
     @PostMapping("/submit/{roomCode}")
-    public ResponseEntity<CodeExecutionResultDTO> submitCode(
+    public ResponseEntity<JudgeJobDTO> submitCode(
             @RequestBody CodeExecutionDTO request,
             @PathVariable int roomCode) {
 
-        CodeExecutionResultDTO result =
+        JudgeJobDTO job =
                 codeExecutionService.submitCode(request,roomCode);
 
-        return ResponseEntity.ok(result);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/submit/jobs/{jobId}")
+    public ResponseEntity<JudgeJobDTO> getSubmissionJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(codeExecutionService.getSubmissionJob(jobId));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.codearena.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One piece of a streamed code review: a completed field of AIReviewResponse
+ * (summary, optimizationTips, readabilityScore), then "done" with the whole review as JSON
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AIReviewChunkDTO {
+    private String field;
+    private String value;
+}
@@ -0,0 +1,26 @@
+package com.codearena.backend.dto;
+
+import com.codearena.backend.utils.constant.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Judged outcome of one (question, test set, language, source) combination.
+ * Holds what is needed to fill a new Submission row without running the code again.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedVerdictDTO {
+    private SubmissionStatus status;
+    private int score;
+    private String compilerMessage;
+    private double executionTime;
+    private double memoryUsed;
+    private int passedTestCases;
+    private int totalTestCases;
+    private CodeExecutionResultDTO result;
+}
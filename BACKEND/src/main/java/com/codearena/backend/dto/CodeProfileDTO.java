@@ -0,0 +1,35 @@
+package com.codearena.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Feature vector of a user's recent code, from a local static pass over the source
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CodeProfileDTO {
+    private int samples;
+
+    // Deepest loop nesting seen, and the average of each sample's deepest nesting
+    private int maxLoopDepth;
+    private double averageLoopDepth;
+
+    // Share of samples with a function that calls itself
+    private double recursionRate;
+
+    // hash / stack_queue / heap / sort / memo -> share of samples using it
+    private Map<String, Double> collectionUsage;
+
+    // language -> samples
+    private Map<String, Integer> languages;
+
+    // verdict -> samples, pending ones are left out
+    private Map<String, Integer> verdicts;
+}
@@ -0,0 +1,25 @@
+package com.codearena.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One program run, independent of which sandbox executes it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionRequestDTO {
+    private String language;
+    private String version;
+    private String fileName;
+    private String source;
+    private String stdin;
+    // Wall-clock limit for the run stage, null = engine default
+    private Long runTimeoutMs;
+    // 0 = engine default
+    private long memoryLimitMb;
+}
@@ -0,0 +1,33 @@
+package com.codearena.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Raw output of a sandbox run, before any verdict is applied
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionResultDTO {
+    // Null when the language has no compile stage
+    private Integer compileCode;
+    private String compileOutput;
+
+    private String stdout;
+    private String stderr;
+    private int exitCode;
+    private String signal;
+    // The run was killed for exceeding its time limit
+    private boolean timedOut;
+
+    private double time; // in seconds
+    private double memory; // in MB
+
+    public boolean isCompileError() {
+        return compileCode != null && compileCode != 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.codearena.backend.dto;
+
+import com.codearena.backend.utils.constant.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeJobDTO {
+    // Job id is the id of the PENDING Submission row
+    private String jobId;
+    private Integer roomCode;
+    private String questionId;
+    private SubmissionStatus status;
+    private LocalDateTime submittedAt;
+    // Null while the job is still PENDING
+    private CodeExecutionResultDTO result;
+}
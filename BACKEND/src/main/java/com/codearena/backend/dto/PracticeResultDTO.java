@@ -28,6 +28,8 @@ public class PracticeResultDTO {
     private Map<String, Double> topicWisePerformance;
     private String aiFeedback;
     private RecommendationsDTO recommendations;
+    // True while recommendations are still being generated, they follow as PRACTICE_RECOMMENDATIONS_READY
+    private boolean recommendationsPending;
     private String userName;
     private String sessionCode;
     private String questionType;
@@ -0,0 +1,21 @@
+package com.codearena.backend.dto;
+
+import com.codearena.backend.utils.constant.Difficulty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Next question selected ahead of time for one answer branch (correct / incorrect)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrefetchedQuestionDTO {
+    // Session difficulty after the answer, as adjustDifficulty would set it
+    private Difficulty difficulty;
+    private String questionId;
+    private PracticeQuestionResponseDTO question;
+}
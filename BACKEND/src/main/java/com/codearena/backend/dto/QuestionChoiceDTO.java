@@ -0,0 +1,20 @@
+package com.codearena.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Structured answer of the LLM question pick, validated against the candidates before use
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionChoiceDTO {
+    // EASY / MEDIUM / HARD, must match the chosen question's difficulty
+    private String difficulty;
+    private String questionId;
+    private String rationale;
+}
@@ -36,7 +36,7 @@ public class CodingQuestion extends Auditable<String> implements Serializable {
 
     private int points;
 
-    private double timeLimit; // in milliseconds or seconds
+    private double timeLimit; // in seconds
 
     private double memoryLimit; // in MB (optional)
 
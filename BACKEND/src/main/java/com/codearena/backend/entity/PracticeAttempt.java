@@ -0,0 +1,57 @@
+package com.codearena.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One answer or skip in a practice session, append-only.
+ * The table is created and backfilled by V3__practice_attempt.sql.
+ */
+@Entity
+@Table(name = "practice_attempt", indexes = {
+        @Index(name = "idx_practice_attempt_session_question", columnList = "session_id, question_id"),
+        @Index(name = "idx_practice_attempt_session_seq", columnList = "session_id, seq")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PracticeAttempt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false)
+    private String sessionId;
+
+    // 1-based order within the session
+    private int seq;
+
+    @Column(name = "question_id", nullable = false)
+    private String questionId;
+
+    @Column(length = 16)
+    private String questionType; // "CODING" or "MCQ"
+
+    private boolean correct;
+    private boolean skipped;
+
+    private long timeTakenSeconds;
+    private Double confidence;
+
+    // Coding attempts
+    @Column(length = 32)
+    private String language;
+    private Integer testCasesPassed;
+    private Integer totalTestCases;
+    private String submissionId; // Submission holding the source code
+
+    // MCQ attempts
+    private String selectedOptionId;
+
+    private LocalDateTime attemptedAt;
+}
@@ -0,0 +1,57 @@
+package com.codearena.backend.entity;
+
+import com.codearena.backend.utils.constant.Difficulty;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evaluation metrics of one answered practice question, insert-only.
+ * Replaces the practice_session_metrics key/value collection, see V4__practice_question_metric.sql.
+ */
+@Entity
+@Table(name = "practice_question_metric", indexes = {
+        @Index(name = "idx_practice_question_metric_session", columnList = "session_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PracticeQuestionMetric {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false)
+    private String sessionId;
+
+    // Answered-question count when it was recorded, the N in the mcq_qN_ / coding_qN_ keys
+    private int questionNumber;
+
+    @Column(length = 16)
+    private String questionType; // "CODING" or "MCQ"
+
+    // MCQ
+    private Boolean correct;
+    private Long timeTakenSeconds;
+    private Double timeConfidence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Difficulty difficulty;
+
+    @Column(length = 512)
+    private String topics; // comma separated
+
+    // Coding
+    private Integer totalTests;
+    private Integer passedTests;
+    private Double averageExecutionTime;
+    private Double maxMemoryUsed;
+    private Boolean compilationError;
+
+    private LocalDateTime recordedAt;
+}
@@ -9,11 +9,12 @@ import lombok.NoArgsConstructor;
 import org.hibernate.annotations.Where;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
 @Entity
-@Table(name = "practice_sessions")
+@Table(name = "practice_sessions", indexes = {
+        // Cleanup: active sessions past their expiry, completed sessions past retention
+        @Index(name = "idx_practice_sessions_completed_expires", columnList = "is_completed, expires_at")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Where(clause = "is_deleted = 0")
@@ -45,12 +46,6 @@ public class PracticeSession extends Auditable<String> {
     private int totalQuestionsAnswered;
     private int correctAnswers;
 
-    @Column(columnDefinition = "TEXT")
-    private String answeredQuestionIds; // JSON array of question IDs already asked
-
-    @Column(columnDefinition = "TEXT")
-    private String performanceHistory; // JSON array of performance metrics
-
     private double averageTimePerQuestion;
     private double accuracyPercentage;
 
@@ -59,10 +54,6 @@ public class PracticeSession extends Auditable<String> {
 
     private String currentQuestionId;
 
-    @ElementCollection
-    @CollectionTable(name = "practice_session_metrics",
-            joinColumns = @JoinColumn(name = "session_id"))
-    @MapKeyColumn(name = "metric_key")
-    @Column(name = "metric_value", columnDefinition = "TEXT")
-    private Map<String, String> performanceMetrics = new HashMap<>();
+    @Column(columnDefinition = "TEXT")
+    private String recommendations; // JSON RecommendationsDTO, generated once after the session ends
 }
\ No newline at end of file
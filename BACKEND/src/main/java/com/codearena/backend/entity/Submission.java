@@ -7,7 +7,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.Where;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -39,7 +41,10 @@ public class Submission extends Auditable<String> implements Serializable {
 
     private LocalDateTime submittedAt = LocalDateTime.now();
 
+    // Plain VARCHAR instead of a MySQL ENUM so new statuses do not need a column rebuild
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 32)
     private SubmissionStatus status; // e.g. PENDING, ACCEPTED, WRONG_ANSWER, RUNTIME_ERROR, PARTIALLY_CORRECT
 
     private int score; // e.g. 100, 80, 0 etc.
@@ -0,0 +1,11 @@
+package com.codearena.backend.exception;
+
+public class CodeExecutionException extends RuntimeException {
+    public CodeExecutionException(String message) {
+        super(message);
+    }
+
+    public CodeExecutionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
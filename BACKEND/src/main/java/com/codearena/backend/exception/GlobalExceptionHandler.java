@@ -84,6 +84,14 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(JudgeQueueFullException.class)
+    public ResponseEntity<StandardResponse> handleJudgeQueueFull(JudgeQueueFullException ex) {
+        return new ResponseEntity<>(
+                StandardResponse.error(ex.getMessage()),
+                HttpStatus.TOO_MANY_REQUESTS
+        );
+    }
+
     //  Helper method to create a uniform error response
     private ResponseEntity<Map<String, Object>> buildResponse(HttpStatus status, String message) {
         Map<String, Object> body = new HashMap<>();
@@ -0,0 +1,7 @@
+package com.codearena.backend.exception;
+
+public class JudgeQueueFullException extends RuntimeException {
+    public JudgeQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.codearena.backend.repository;
+
+import com.codearena.backend.entity.PracticeAttempt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PracticeAttemptRepository extends JpaRepository<PracticeAttempt, Long> {
+
+    boolean existsBySessionIdAndQuestionId(String sessionId, String questionId);
+
+    /**
+     * Questions already asked in the session, answered or skipped (index only)
+     */
+    @Query("SELECT DISTINCT a.questionId FROM PracticeAttempt a WHERE a.sessionId = :sessionId")
+    List<String> findQuestionIdsBySessionId(@Param("sessionId") String sessionId);
+
+    @Query("SELECT COALESCE(MAX(a.seq), 0) FROM PracticeAttempt a WHERE a.sessionId = :sessionId")
+    int findLastSeq(@Param("sessionId") String sessionId);
+
+    List<PracticeAttempt> findBySessionIdOrderBySeqAscIdAsc(String sessionId);
+
+    // Callable outside a transaction, the cleanup scheduler invokes its own methods directly
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PracticeAttempt a WHERE a.sessionId IN :sessionIds")
+    int deleteBySessionIds(@Param("sessionIds") Collection<String> sessionIds);
+}
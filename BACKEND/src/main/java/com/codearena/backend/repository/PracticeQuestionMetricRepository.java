@@ -0,0 +1,55 @@
+package com.codearena.backend.repository;
+
+import com.codearena.backend.entity.PracticeQuestionMetric;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PracticeQuestionMetricRepository extends JpaRepository<PracticeQuestionMetric, Long> {
+
+    List<PracticeQuestionMetric> findBySessionIdOrderByIdAsc(String sessionId);
+
+    /**
+     * Per question type totals of a session, averages skip questions without the metric
+     */
+    @Query("""
+        SELECT m.questionType AS questionType,
+               COUNT(m) AS questions,
+               SUM(CASE WHEN m.correct = true THEN 1 ELSE 0 END) AS correct,
+               AVG(m.timeTakenSeconds) AS averageTimeTaken,
+               AVG(m.timeConfidence) AS averageTimeConfidence,
+               SUM(m.passedTests) AS passedTests,
+               SUM(m.totalTests) AS totalTests,
+               AVG(m.averageExecutionTime) AS averageExecutionTime,
+               MAX(m.maxMemoryUsed) AS maxMemoryUsed
+        FROM PracticeQuestionMetric m
+        WHERE m.sessionId = :sessionId
+        GROUP BY m.questionType
+    """)
+    List<MetricSummary> summarize(@Param("sessionId") String sessionId);
+
+    // Callable outside a transaction, the cleanup scheduler invokes its own methods directly
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PracticeQuestionMetric m WHERE m.sessionId IN :sessionIds")
+    int deleteBySessionIds(@Param("sessionIds") Collection<String> sessionIds);
+
+    interface MetricSummary {
+        String getQuestionType();
+        long getQuestions();
+        Long getCorrect();
+        Double getAverageTimeTaken();
+        Double getAverageTimeConfidence();
+        Long getPassedTests();
+        Long getTotalTests();
+        Double getAverageExecutionTime();
+        Double getMaxMemoryUsed();
+    }
+}
@@ -1,12 +1,16 @@
 package com.codearena.backend.repository;
 
 import com.codearena.backend.entity.PracticeSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,24 +27,64 @@ public interface PracticeSessionRepository extends JpaRepository<PracticeSession
 
 //    long countByUserIdAndIsCompletedTrue(String userId);
 
-    // ✅ NEW: Find expired sessions for cleanup
+    // ✅ Cleanup works on id chunks, nothing but the ids is loaded
+
+    @Query("""
+        SELECT ps.id FROM PracticeSession ps
+        WHERE ps.expiresAt < :cutoffTime
+        AND ps.isCompleted = false
+        AND ps.isExpired = false
+    """)
+    List<String> findExpiredSessionIds(@Param("cutoffTime") LocalDateTime cutoffTime, Pageable pageable);
+
+    @Query("""
+        SELECT ps.id FROM PracticeSession ps
+        WHERE ps.expiresAt < :cutoffTime
+        AND ps.isCompleted = true
+    """)
+    List<String> findOldCompletedSessionIds(@Param("cutoffTime") LocalDateTime cutoffTime, Pageable pageable);
+
+    /**
+     * Id and deadline of every active session, for seeding the expiry timers
+     */
     @Query("""
-        SELECT ps FROM PracticeSession ps 
-        WHERE ps.expiresAt < :cutoffTime 
-        AND ps.isCompleted = false 
+        SELECT ps.id, ps.expiresAt FROM PracticeSession ps
+        WHERE ps.isCompleted = false
         AND ps.isExpired = false
-        AND ps.isDeleted = false
+        AND ps.expiresAt IS NOT NULL
     """)
-    List<PracticeSession> findExpiredSessions(@Param("cutoffTime") LocalDateTime cutoffTime);
+    List<Object[]> findActiveExpiries();
 
-    // ✅ NEW: Find old completed sessions for deletion
+    /**
+     * Mark sessions as expired and completed, skips any that ended meanwhile
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE PracticeSession ps
+        SET ps.isExpired = true, ps.isCompleted = true
+        WHERE ps.id IN :sessionIds
+        AND ps.isCompleted = false
+    """)
+    int markExpired(@Param("sessionIds") Collection<String> sessionIds);
+
+    @Modifying
+    @Query("DELETE FROM PracticeSession ps WHERE ps.id IN :sessionIds")
+    int deleteByIds(@Param("sessionIds") Collection<String> sessionIds);
+
+    /**
+     * Store generated recommendations, only the first writer wins
+     */
+    @Modifying
+    @Transactional
     @Query("""
-        SELECT ps FROM PracticeSession ps 
-        WHERE ps.expiresAt < :cutoffTime 
-        AND ps.isCompleted = true 
-        AND ps.isDeleted = false
+        UPDATE PracticeSession ps
+        SET ps.recommendations = :recommendations
+        WHERE ps.id = :sessionId
+        AND ps.recommendations IS NULL
     """)
-    List<PracticeSession> findOldCompletedSessions(@Param("cutoffTime") LocalDateTime cutoffTime);
+    int saveRecommendationsIfAbsent(@Param("sessionId") String sessionId,
+                                    @Param("recommendations") String recommendations);
 
     // Add these methods to PracticeSessionRepository.java
 
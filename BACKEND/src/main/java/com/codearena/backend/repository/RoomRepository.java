@@ -1,6 +1,7 @@
 package com.codearena.backend.repository;
 
 import com.codearena.backend.entity.Room;
+import com.codearena.backend.utils.constant.Status;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
@@ -8,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -34,4 +37,17 @@ public interface RoomRepository extends JpaRepository<Room, String> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT r FROM Room r WHERE r.roomCode = :roomCode")
     Optional<Room> findByRoomCodeWithLock(@Param("roomCode") int roomCode);
-}
\ No newline at end of file
+
+    /**
+     * Same lock by id, taken by the expiry timer so it cannot race a final submission
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdWithLock(@Param("id") String id);
+
+    /**
+     * Id and deadline of started rooms that have not ended, for seeding the expiry timers
+     */
+    @Query("SELECT r.id, r.expiryTime FROM Room r WHERE r.expiryTime IS NOT NULL AND r.status NOT IN :ended")
+    List<Object[]> findOpenExpiries(@Param("ended") Collection<Status> ended);
+}
@@ -3,6 +3,7 @@ package com.codearena.backend.repository;
 import com.codearena.backend.entity.Submission;
 import com.codearena.backend.entity.User;
 import com.codearena.backend.utils.constant.SubmissionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -40,4 +41,14 @@ GROUP BY s.user
 """)
     List<Object[]> calculateRoomScore(String roomId);
 
+    // Newest code of a user first: sourceCode, language, status
+    @Query("""
+SELECT s.sourceCode, s.language, s.status
+FROM Submission s
+WHERE s.user.id = :userId
+AND s.sourceCode IS NOT NULL
+ORDER BY s.submittedAt DESC
+""")
+    List<Object[]> findRecentCode(String userId, Pageable pageable);
+
 }
\ No newline at end of file
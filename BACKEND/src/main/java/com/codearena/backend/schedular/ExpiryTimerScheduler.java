@@ -0,0 +1,56 @@
+package com.codearena.backend.schedular;
+
+import com.codearena.backend.service.ExpiryTimerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * ✅ Drives the expiry timer wheel
+ *
+ * The wheel ticks every second and catches up on its own when a tick runs late. The load pulls
+ * timers scheduled by other nodes (or left behind by a node that went down) into this node's wheel
+ * before they come due.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExpiryTimerScheduler {
+
+    private final ExpiryTimerService expiryTimerService;
+
+    /**
+     * Timers of sessions and rooms created before they were tracked, or lost with Redis
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            int seeded = expiryTimerService.seedFromDatabase();
+            int loaded = expiryTimerService.loadUpcoming();
+            log.info("🚀 Expiry timers ready: {} seeded from MySQL, {} due soon", seeded, loaded);
+        } catch (Exception e) {
+            log.error("❌ Expiry timers could not be loaded on startup, next load retries: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        try {
+            expiryTimerService.fireDue();
+        } catch (Exception e) {
+            log.error("❌ Expiry timer tick failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.room.expiry-check-interval:60000}")
+    public void scheduledLoad() {
+        try {
+            expiryTimerService.loadUpcoming();
+        } catch (Exception e) {
+            log.error("❌ Loading expiry timers failed, retrying next run: {}", e.getMessage());
+        }
+    }
+}
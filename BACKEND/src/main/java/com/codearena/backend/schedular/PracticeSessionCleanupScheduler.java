@@ -1,27 +1,60 @@
 package com.codearena.backend.schedular;
 
-import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.repository.PracticeAttemptRepository;
+import com.codearena.backend.repository.PracticeQuestionMetricRepository;
 import com.codearena.backend.repository.PracticeSessionRepository;
-import lombok.RequiredArgsConstructor;
+import com.codearena.backend.service.PracticeSessionStateService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * ✅ Scheduled cleanup of expired practice sessions
+ *
+ * Works in chunks of app.practice.cleanup-batch-size ids: one indexed id query, then set-based
+ * UPDATE/DELETE statements for that chunk, each chunk in its own transaction. Memory stays flat
+ * however many sessions there are, and a failure only rolls back the current chunk.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class PracticeSessionCleanupScheduler {
 
+    private static final int COMPLETED_RETENTION_DAYS = 30;
+
     private final PracticeSessionRepository practiceSessionRepository;
+    private final PracticeAttemptRepository practiceAttemptRepository;
+    private final PracticeQuestionMetricRepository practiceQuestionMetricRepository;
+    private final PracticeSessionStateService practiceSessionStateService;
+    private final TransactionTemplate chunkTransaction;
+    private final AppProperties appProperties;
+    private final MeterRegistry meterRegistry;
+
+    public PracticeSessionCleanupScheduler(PracticeSessionRepository practiceSessionRepository,
+                                           PracticeAttemptRepository practiceAttemptRepository,
+                                           PracticeQuestionMetricRepository practiceQuestionMetricRepository,
+                                           PracticeSessionStateService practiceSessionStateService,
+                                           PlatformTransactionManager transactionManager,
+                                           AppProperties appProperties,
+                                           MeterRegistry meterRegistry) {
+        this.practiceSessionRepository = practiceSessionRepository;
+        this.practiceAttemptRepository = practiceAttemptRepository;
+        this.practiceQuestionMetricRepository = practiceQuestionMetricRepository;
+        this.practiceSessionStateService = practiceSessionStateService;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.appProperties = appProperties;
+        this.meterRegistry = meterRegistry;
+    }
 
     /**
      * Run cleanup on application startup
@@ -44,56 +77,69 @@ public class PracticeSessionCleanupScheduler {
     /**
      * Mark expired sessions as completed and expired
      */
-    @Transactional
     public void cleanupExpiredSessions() {
         LocalDateTime now = LocalDateTime.now();
+        int batchSize = appProperties.getPractice().getCleanupBatchSize();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        int expired = 0;
+        try {
+            // A chunk that changed nothing would come back forever
+            int changed;
+            do {
+                List<String> ids = practiceSessionRepository.findExpiredSessionIds(now, PageRequest.of(0, batchSize));
+                changed = ids.isEmpty() ? 0 : practiceSessionRepository.markExpired(ids);
+                if (changed > 0) {
+                    practiceSessionStateService.forget(ids);
+                    expired += changed;
+                }
+            } while (changed == batchSize);
+        } finally {
+            record(sample, "expire", expired);
+        }
 
-        // Find sessions that expired but weren't marked
-        List<PracticeSession> expiredSessions = practiceSessionRepository
-                .findAll()
-                .stream()
-                .filter(session -> !session.isCompleted() &&
-                        !session.isExpired() &&
-                        session.getExpiresAt().isBefore(now))
-                .toList();
-
-        if (expiredSessions.isEmpty()) {
+        if (expired == 0) {
             log.info("✅ No expired sessions to cleanup");
-            return;
+        } else {
+            log.info("🧹 Marked {} expired practice sessions as completed", expired);
         }
 
-        // Mark as expired and completed
-        expiredSessions.forEach(session -> {
-            session.setExpired(true);
-            session.setCompleted(true);
-            log.debug("Marked session {} as expired", session.getId());
-        });
-
-        practiceSessionRepository.saveAll(expiredSessions);
-
-        log.info("🧹 Marked {} expired practice sessions as completed", expiredSessions.size());
-
         // Additional cleanup: Delete very old completed sessions (> 30 days)
         cleanupOldCompletedSessions();
     }
 
     /**
-     * Delete completed sessions older than 30 days
+     * Delete completed sessions older than 30 days, with their attempts and metrics
      */
-    @Transactional
     public void cleanupOldCompletedSessions() {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30);
-
-        List<PracticeSession> oldSessions = practiceSessionRepository
-                .findAll()
-                .stream()
-                .filter(session -> session.isCompleted() &&
-                        session.getExpiresAt().isBefore(cutoffDate))
-                .toList();
-
-        if (!oldSessions.isEmpty()) {
-            practiceSessionRepository.deleteAll(oldSessions);
-            log.info("🗑️ Deleted {} old completed practice sessions (>30 days)", oldSessions.size());
+        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(COMPLETED_RETENTION_DAYS);
+        int batchSize = appProperties.getPractice().getCleanupBatchSize();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        int deleted = 0;
+        try {
+            int removed;
+            do {
+                List<String> ids = practiceSessionRepository.findOldCompletedSessionIds(cutoffDate, PageRequest.of(0, batchSize));
+                Integer result = ids.isEmpty() ? Integer.valueOf(0) : chunkTransaction.execute(status -> {
+                    practiceAttemptRepository.deleteBySessionIds(ids);
+                    practiceQuestionMetricRepository.deleteBySessionIds(ids);
+                    return practiceSessionRepository.deleteByIds(ids);
+                });
+                removed = result != null ? result : 0;
+                deleted += removed;
+            } while (removed == batchSize);
+        } finally {
+            record(sample, "delete", deleted);
+        }
+
+        if (deleted > 0) {
+            log.info("🗑️ Deleted {} old completed practice sessions (>{} days)", deleted, COMPLETED_RETENTION_DAYS);
         }
     }
-}
\ No newline at end of file
+
+    private void record(Timer.Sample sample, String phase, int rows) {
+        sample.stop(meterRegistry.timer("practice.cleanup.duration", "phase", phase));
+        meterRegistry.counter("practice.cleanup.rows", "phase", phase).increment(rows);
+    }
+}
@@ -0,0 +1,59 @@
+package com.codearena.backend.schedular;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.service.PracticeSessionStateService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * ✅ Write-behind of hot practice session state from Redis to MySQL
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PracticeSessionFlushScheduler {
+
+    // Bounds one run, whatever is left goes with the next one
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    private final PracticeSessionStateService practiceSessionStateService;
+    private final AppProperties appProperties;
+
+    @Scheduled(fixedDelayString = "${app.practice.state-flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Runs before the beans go away, a clean shutdown leaves nothing unflushed
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void flushOnShutdown() {
+        log.info("💾 Flushing practice session state before shutdown...");
+        flush();
+    }
+
+    private void flush() {
+        int batchSize = appProperties.getPractice().getStateFlushBatchSize();
+        int total = 0;
+        try {
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+                int taken = practiceSessionStateService.flushDirty();
+                total += taken;
+                if (taken < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Practice session flush failed, retrying next run: {}", e.getMessage());
+        }
+
+        if (total > 0) {
+            log.debug("Flushed {} practice sessions to MySQL", total);
+        }
+    }
+}
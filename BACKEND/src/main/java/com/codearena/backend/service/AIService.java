@@ -1,8 +1,16 @@
 package com.codearena.backend.service;
 
+import com.codearena.backend.dto.AIReviewChunkDTO;
 import com.codearena.backend.dto.AIReviewRequest;
 import com.codearena.backend.dto.AIReviewResponse;
+import reactor.core.publisher.Flux;
 
 public interface AIService {
     AIReviewResponse getAIReview(AIReviewRequest request);
+
+    /**
+     * Same review, each field emitted as soon as the model has finished it, then a "done" chunk.
+     * A failure after the first field ends the stream with an "error" chunk.
+     */
+    Flux<AIReviewChunkDTO> streamAIReview(AIReviewRequest request);
 }
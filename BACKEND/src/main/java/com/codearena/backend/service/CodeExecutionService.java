@@ -2,6 +2,7 @@ package com.codearena.backend.service;
 
 import com.codearena.backend.dto.CodeExecutionDTO;
 import com.codearena.backend.dto.CodeExecutionResultDTO;
+import com.codearena.backend.dto.JudgeJobDTO;
 
 public interface CodeExecutionService {
 //    CodeExecutionResultDTO executeCode(CodeExecutionDTO request);
@@ -11,6 +12,16 @@ public interface CodeExecutionService {
     CodeExecutionResultDTO runCode(CodeExecutionDTO request);
 
 
-    CodeExecutionResultDTO submitCode(CodeExecutionDTO request,int roomCode);
+    /**
+     * Queue a room submission and return its job id right away.
+     * The verdict is published to /topic/room/{roomCode}/submission and stored on the Submission.
+     */
+    JudgeJobDTO submitCode(CodeExecutionDTO request,int roomCode);
+
+    /**
+     * Judge a practice submission through the same queue and wait for the verdict.
+     */
     CodeExecutionResultDTO submitCode(CodeExecutionDTO request);
+
+    JudgeJobDTO getSubmissionJob(String jobId);
 }
@@ -0,0 +1,30 @@
+package com.codearena.backend.service;
+
+import com.codearena.backend.dto.ExecutionRequestDTO;
+import com.codearena.backend.dto.ExecutionResultDTO;
+
+/**
+ * Sandbox that compiles and runs one program.
+ * Implementations: Piston (HTTP), Judge0 (HTTP) and a local process sandbox.
+ * The active one is picked with app.code-execution.engine.
+ */
+public interface ExecutionEngine {
+
+    /**
+     * Name used in app.code-execution.engine
+     */
+    String name();
+
+    /**
+     * Called at startup for the engines that are selected. Throws IllegalStateException when
+     * the engine cannot run untrusted code safely as configured.
+     */
+    default void checkUsable() {
+    }
+
+    /**
+     * Run the program. Throws CodeExecutionException when the sandbox itself fails,
+     * user program errors are reported in the result.
+     */
+    ExecutionResultDTO execute(ExecutionRequestDTO request);
+}
@@ -0,0 +1,43 @@
+package com.codearena.backend.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exact expiry of practice sessions and rooms.
+ *
+ * Every deadline sits in one Redis sorted set shared by all nodes, and in a timer wheel on the
+ * node that scheduled it and on every node once it comes within the next load window. Whichever
+ * node fires first claims the entry, so a timer fires once even when its node went down.
+ */
+public interface ExpiryTimerService {
+
+    /**
+     * Schedule or move the expiry of a practice session, takes effect after the caller commits
+     */
+    void scheduleSessionExpiry(String sessionId, LocalDateTime expiresAt);
+
+    /**
+     * Drop the expiry of a session that ended some other way
+     */
+    void cancelSessionExpiry(String sessionId);
+
+    /**
+     * Schedule or move the expiry of a started room, takes effect after the caller commits
+     */
+    void scheduleRoomExpiry(String roomId, LocalDateTime expiryTime);
+
+    /**
+     * Advance the local wheel to now and hand the due timers to the expiry pool, returns how many
+     */
+    int fireDue();
+
+    /**
+     * Put shared timers due before the next load into the local wheel, overdue ones included
+     */
+    int loadUpcoming();
+
+    /**
+     * Add the deadlines of active sessions and started rooms stored in MySQL, keeping existing entries
+     */
+    int seedFromDatabase();
+}
@@ -0,0 +1,34 @@
+package com.codearena.backend.service;
+
+import com.codearena.backend.utils.constant.JudgePriority;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bounded queue that runs judge jobs off the request thread.
+ * Each JudgePriority class has its own queue, workers pick between them by weighted fair queuing.
+ */
+public interface JudgeQueueService {
+
+    /**
+     * Queue a judge job in the given class.
+     * Throws JudgeQueueFullException when that class is at capacity.
+     */
+    <T> CompletableFuture<T> enqueue(JudgePriority priority, Supplier<T> job);
+
+    /**
+     * Number of jobs waiting for a worker
+     */
+    int getQueueDepth();
+
+    /**
+     * Number of jobs of one class waiting for a worker
+     */
+    int getQueueDepth(JudgePriority priority);
+
+    /**
+     * Number of jobs currently being judged
+     */
+    int getActiveCount();
+}
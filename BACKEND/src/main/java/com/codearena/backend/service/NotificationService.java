@@ -1,6 +1,7 @@
 package com.codearena.backend.service;
 
 import com.codearena.backend.dto.PracticeResultDTO;
+import com.codearena.backend.dto.RecommendationsDTO;
 import com.codearena.backend.entity.User;
 
 /**
@@ -18,6 +19,11 @@ public interface NotificationService {
      */
     void sendPracticeSessionCompleted(User user, String sessionId, PracticeResultDTO result);
 
+    /**
+     * Send recommendations generated after the session ended
+     */
+    void sendPracticeRecommendationsReady(User user, String sessionId, RecommendationsDTO recommendations);
+
     /**
      * Send notification when session is extended
      */
@@ -27,4 +33,9 @@ public interface NotificationService {
      * Send notification when session is abandoned
      */
     void sendSessionAbandoned(User user, String sessionId);
-}
\ No newline at end of file
+
+    /**
+     * Send notification when session ran out of time
+     */
+    void sendSessionExpired(User user, String sessionId);
+}
@@ -0,0 +1,31 @@
+package com.codearena.backend.service;
+
+import com.codearena.backend.dto.PracticeSubmissionDTO;
+import com.codearena.backend.entity.PracticeAttempt;
+import com.codearena.backend.entity.PracticeSession;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Append-only log of the answers and skips of a practice session (practice_attempt).
+ * A question counts as used once it has any attempt.
+ */
+public interface PracticeAttemptService {
+
+    /**
+     * Append an answer. submissionId points at the Submission holding coding source, may be null.
+     */
+    void recordAnswer(PracticeSession session, PracticeSubmissionDTO submission, boolean correct, String submissionId);
+
+    void recordSkip(PracticeSession session, String questionId);
+
+    boolean isUsed(String sessionId, String questionId);
+
+    Set<String> getUsedQuestionIds(String sessionId);
+
+    /**
+     * Attempts in the order they were made
+     */
+    List<PracticeAttempt> getHistory(String sessionId);
+}
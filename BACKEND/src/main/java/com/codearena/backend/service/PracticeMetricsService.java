@@ -0,0 +1,23 @@
+package com.codearena.backend.service;
+
+import com.codearena.backend.dto.CodingEvaluationResult;
+import com.codearena.backend.dto.McqSubmissionResultDTO;
+import com.codearena.backend.entity.PracticeSession;
+
+import java.util.Map;
+
+/**
+ * Typed per-question evaluation metrics of practice sessions (practice_question_metric)
+ */
+public interface PracticeMetricsService {
+
+    void recordMcq(PracticeSession session, McqSubmissionResultDTO evaluation);
+
+    void recordCoding(PracticeSession session, CodingEvaluationResult evaluation);
+
+    /**
+     * The flat map the API has always returned (mcq_q3_time_taken, coding_q1_passed_tests, ...),
+     * plus per type totals under mcq_summary_* / coding_summary_*
+     */
+    Map<String, String> getPerformanceMetrics(String sessionId);
+}
@@ -0,0 +1,40 @@
+package com.codearena.backend.service;
+
+import com.codearena.backend.dto.PrefetchedQuestionDTO;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Speculative next-question selection for practice sessions.
+ * While a question is on screen both possible follow-ups (answered correctly / incorrectly)
+ * are selected in the background, so getNextQuestion only has to pick the matching one.
+ */
+public interface PracticePrefetchService {
+
+    /**
+     * Start both branches for the question just served. branch receives true for the
+     * "answered correctly" branch. Replaces (and cancels) any older prefetch of the session.
+     */
+    void prefetch(String sessionId, String servedQuestionId, Function<Boolean, PrefetchedQuestionDTO> branch);
+
+    /**
+     * Whether a prefetch for this served question is already running or done
+     */
+    boolean isPrefetched(String sessionId, String servedQuestionId);
+
+    /**
+     * The served question was answered, drop the branch that did not happen
+     */
+    void resolve(String sessionId, String questionId, boolean correct);
+
+    /**
+     * Prefetched follow-up of the answered question, empty when there is none to use
+     */
+    Optional<PrefetchedQuestionDTO> take(String sessionId, String answeredQuestionId);
+
+    /**
+     * Drop and cancel whatever is prefetched for the session (skip, end, abandon)
+     */
+    void cancel(String sessionId);
+}
@@ -0,0 +1,24 @@
+package com.codearena.backend.service;
+
+import com.codearena.backend.dto.RecommendationsDTO;
+import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.entity.User;
+
+import java.util.Optional;
+
+/**
+ * End-of-session recommendations, generated off the request path and stored on the session
+ */
+public interface PracticeRecommendationService {
+
+    /**
+     * Recommendations already generated for the session
+     */
+    Optional<RecommendationsDTO> getStored(PracticeSession session);
+
+    /**
+     * Generate in the background once the current transaction has committed, store them and push
+     * PRACTICE_RECOMMENDATIONS_READY to the user. A generation already running for the session is reused.
+     */
+    void generateAfterCommit(String sessionId, User user);
+}
@@ -0,0 +1,56 @@
+package com.codearena.backend.service;
+
+import com.codearena.backend.entity.PracticeSession;
+
+/**
+ * Hot state of active practice sessions, one Redis hash per session, written behind to MySQL.
+ *
+ * Sessions handed out are copies, never managed entities, so callers mutate them freely and
+ * report changes through this service. Redis writes happen after the caller's transaction
+ * commits. Counters can always be rebuilt from the attempt log, so losing Redis only loses the
+ * position of sessions that were not flushed yet.
+ */
+public interface PracticeSessionStateService {
+
+    /**
+     * Active sessions from their hot state, loading it from MySQL and the attempt log on a miss.
+     * Ended sessions are returned as stored. The user of a hot session only carries its id and
+     * username, enough to check ownership and send notifications.
+     */
+    PracticeSession load(String sessionId);
+
+    /**
+     * Start tracking a session that was just created
+     */
+    void track(PracticeSession session);
+
+    /**
+     * Current question, its index and the current difficulty
+     */
+    void savePosition(PracticeSession session);
+
+    /**
+     * Atomic counter increments for one submission, the caller has already updated the copy
+     */
+    void recordAnswer(PracticeSession session, boolean firstAttempt, boolean correct, long timeTakenSeconds);
+
+    /**
+     * Persist the session now, for changes other nodes must see at once (extended expiry)
+     */
+    void saveNow(PracticeSession session);
+
+    /**
+     * Persist the final state with the completed/expired flags and stop tracking the session
+     */
+    void end(PracticeSession session);
+
+    /**
+     * Stop tracking sessions that were ended directly in MySQL
+     */
+    void forget(Iterable<String> sessionIds);
+
+    /**
+     * Persist one batch of sessions changed since their last flush, returns how many were taken
+     */
+    int flushDirty();
+}
@@ -0,0 +1,28 @@
+package com.codearena.backend.service;
+
+import com.codearena.backend.dto.CachedVerdictDTO;
+
+import java.util.Optional;
+
+/**
+ * Content-addressed cache of judge verdicts.
+ * Two tiers: a local LRU in front of Redis.
+ */
+public interface VerdictCacheService {
+
+    /**
+     * Cache key for a submission. Includes the current test set version of the question,
+     * so resolve it before judging starts and reuse it for put().
+     */
+    String key(String questionId, String language, String version, String sourceCode);
+
+    Optional<CachedVerdictDTO> get(String key);
+
+    void put(String key, CachedVerdictDTO verdict);
+
+    /**
+     * Bump the test set version of a question so every cached verdict for it is skipped.
+     * Call it whenever its test cases or limits change. Inside a transaction this runs after commit.
+     */
+    void invalidateQuestion(String questionId);
+}
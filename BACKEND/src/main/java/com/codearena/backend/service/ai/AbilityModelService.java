@@ -0,0 +1,59 @@
+package com.codearena.backend.service.ai;
+
+import com.codearena.backend.utils.constant.Difficulty;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Per-user ability and per-question difficulty estimates (Elo-style Rasch model).
+ * Reads are answered from a short-lived local cache in front of Redis, so it can sit on the
+ * next-question path.
+ */
+public interface AbilityModelService {
+
+    /**
+     * Ability of the user for one question type (CODING / MCQ), 0 for a new user
+     */
+    double ability(String userId, String questionType);
+
+    /**
+     * Ability the user would have after answering the question, without recording anything.
+     * The label is the prior while nobody has answered the question yet.
+     */
+    double projectedAbility(String userId, String questionType, String questionId, Difficulty label, boolean correct);
+
+    /**
+     * Update both estimates after the user's first attempt at a question, the label seeds its
+     * difficulty the first time
+     */
+    void recordAnswer(String userId, String questionType, String questionId, Difficulty label, boolean correct);
+
+    /**
+     * Candidates ordered by Fisher information at the user's ability, most informative first.
+     * The difficulty label is the prior for questions nobody has answered yet.
+     */
+    <T> List<T> rankByInformation(String userId,
+                                  String questionType,
+                                  List<T> candidates,
+                                  Function<T, String> idOf,
+                                  Function<T, Difficulty> labelOf);
+
+    /**
+     * Same ranking for a given ability instead of the user's current one
+     */
+    <T> List<T> rankByInformation(double ability,
+                                  List<T> candidates,
+                                  Function<T, String> idOf,
+                                  Function<T, Difficulty> labelOf);
+
+    /**
+     * Difficulty label that matches the user's current ability
+     */
+    Difficulty difficultyBand(String userId, String questionType);
+
+    /**
+     * Difficulty label that matches the given ability
+     */
+    Difficulty difficultyBand(double ability);
+}
@@ -18,6 +18,11 @@ public interface AdaptiveQuestionSelector {
                                     Set<String> usedQuestionIds, List<Map<String, Object>> codeHistory);
     String selectNextMcqQuestion(PracticeSession session, List<McqQuestionResponseDTO> candidateQuestions,
                                  Set<String> usedQuestionIds, List<Map<String, Object>> mcqHistory);
+    String selectNextCodingQuestion(PracticeSession session, List<CodingQuestionDTO> candidateQuestions,
+                                    Set<String> usedQuestionIds, double projectedAbility);
+    String selectNextMcqQuestion(PracticeSession session, List<McqQuestionResponseDTO> candidateQuestions,
+                                 Set<String> usedQuestionIds, double projectedAbility);
     Difficulty adjustDifficulty(PracticeSession session);
+    Difficulty adjustDifficulty(PracticeSession session, double projectedAbility);
     RecommendationsDTO generateRecommendations(PracticeSession session);
 }
\ No newline at end of file
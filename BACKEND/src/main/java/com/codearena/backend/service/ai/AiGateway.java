@@ -0,0 +1,26 @@
+package com.codearena.backend.service.ai;
+
+import reactor.core.publisher.Flux;
+
+import java.util.function.Supplier;
+
+/**
+ * Single way out to the LLM provider.
+ * Caps concurrent calls, enforces the per-call deadline (app.ai.timeout-seconds), retries failed
+ * calls with jittered backoff (app.ai.max-retries) within that same deadline and sheds load with
+ * AiServiceException instead of queueing without bound. A call that ran out of time is not retried.
+ */
+public interface AiGateway {
+
+    /**
+     * Run a blocking model call. Waits for a free slot if the wait queue has room.
+     * The purpose only tags metrics (chat, hint, review, rerank, ...).
+     */
+    <T> T call(String purpose, Supplier<T> call);
+
+    /**
+     * Run a streaming model call. Streams never wait for a slot, they are shed right away when
+     * the provider is at its limit. The deadline applies to the gap between two elements.
+     */
+    <T> Flux<T> stream(String purpose, Supplier<Flux<T>> call);
+}
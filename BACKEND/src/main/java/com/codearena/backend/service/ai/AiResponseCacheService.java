@@ -0,0 +1,33 @@
+package com.codearena.backend.service.ai;
+
+import com.codearena.backend.utils.constant.AiCachePolicy;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache of raw model responses keyed by a hash of the canonicalized prompt inputs.
+ * Two tiers: a local LRU in front of Redis, both with the policy's TTL.
+ */
+public interface AiResponseCacheService {
+
+    /**
+     * Cache key for the given prompt inputs. Whitespace-only differences map to the same key.
+     */
+    String key(AiCachePolicy policy, String... parts);
+
+    Optional<String> get(AiCachePolicy policy, String key);
+
+    void put(AiCachePolicy policy, String key, String response);
+
+    /**
+     * Drop every cached response of one policy, or of all policies when null.
+     * Returns the number of Redis entries removed.
+     */
+    long evict(AiCachePolicy policy);
+
+    /**
+     * Hits, misses and hit rate per policy since startup
+     */
+    Map<String, Map<String, Object>> stats();
+}
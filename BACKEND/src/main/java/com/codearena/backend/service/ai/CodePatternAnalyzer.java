@@ -0,0 +1,28 @@
+package com.codearena.backend.service.ai;
+
+import com.codearena.backend.dto.CodeProfileDTO;
+
+import java.util.List;
+
+/**
+ * Local static analysis of submitted code: loop nesting, recursion, collection usage,
+ * languages and verdicts, summarized into a CodeProfileDTO without calling a model.
+ */
+public interface CodePatternAnalyzer {
+
+    /**
+     * Profile of the user's most recent submissions, cached per user for a few minutes
+     */
+    CodeProfileDTO profile(String userId);
+
+    /**
+     * Profile of the given samples, not cached
+     */
+    CodeProfileDTO analyze(List<Sample> samples);
+
+    /**
+     * One piece of submitted code. The verdict is a SubmissionStatus name, null when unknown.
+     */
+    record Sample(String sourceCode, String language, String verdict) {
+    }
+}
@@ -1,34 +1,62 @@
 package com.codearena.backend.serviceImpl;
 
 import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.AIReviewChunkDTO;
 import com.codearena.backend.dto.AIReviewRequest;
 import com.codearena.backend.dto.AIReviewResponse;
 import com.codearena.backend.service.AIService;
+import com.codearena.backend.service.ai.AiGateway;
+import com.codearena.backend.service.ai.AiResponseCacheService;
+import com.codearena.backend.utils.IncrementalJsonFieldParser;
+import com.codearena.backend.utils.constant.AiCachePolicy;
 import com.codearena.backend.utils.constant.ErrorMessages;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PreDestroy;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AIServiceImpl implements AIService {
 
-    private final ChatModel chatModel;
+    // Readability score of the fallback review, never produced by the model
+    private static final String NO_SCORE = "N/A";
+
+    private static final Set<String> REVIEW_FIELDS = Set.of("summary", "optimizationTips", "readabilityScore");
+    private static final String DONE_FIELD = "done";
+    private static final String ERROR_FIELD = "error";
+    private static final String UNAVAILABLE = "The AI service is currently unavailable. Please try again later.";
+
+    private final ChatClient reviewerChatClient;
     private final ObjectMapper objectMapper;
     private final AppProperties appProperties;
-
-    // Thread pool for potential future async tasks or timeouts
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final AiResponseCacheService aiResponseCacheService;
+    private final AiGateway aiGateway;
+
+    public AIServiceImpl(@Qualifier("reviewerChatClient") ChatClient reviewerChatClient,
+                         ObjectMapper objectMapper,
+                         AppProperties appProperties,
+                         AiResponseCacheService aiResponseCacheService,
+                         AiGateway aiGateway) {
+        this.reviewerChatClient = reviewerChatClient;
+        this.objectMapper = objectMapper;
+        this.appProperties = appProperties;
+        this.aiResponseCacheService = aiResponseCacheService;
+        this.aiGateway = aiGateway;
+    }
 
     @Override
     public AIReviewResponse getAIReview(AIReviewRequest request) {
@@ -36,7 +64,87 @@ public class AIServiceImpl implements AIService {
         validateRequest(request);
 
         // 2. Prepare Prompt
-        String prompt = String.format("""
+        String prompt = buildReviewPrompt(request);
+
+        // 3. Identical code for the same problem gets the stored review
+        String cacheKey = reviewCacheKey(request);
+        AIReviewResponse cached = aiResponseCacheService.get(AiCachePolicy.REVIEW, cacheKey)
+                .map(this::parseCachedReview)
+                .orElse(null);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            // 4. Call AI, the reviewer client carries the JSON-only system prompt
+            String rawResponse = aiGateway.call("review", () -> reviewerChatClient.prompt()
+                    .user(prompt)
+                    .call()
+                    .content());
+
+            // 5. Parse, cache only real reviews, and Return
+            AIReviewResponse review = parseAIResponse(rawResponse);
+            cacheReview(cacheKey, review);
+            return review;
+
+        } catch (Exception e) {
+            log.error("AI Service communication error: {}", e.getMessage(), e);
+            return createDefaultResponse("The AI service is currently unavailable. Please try again later.");
+        }
+    }
+
+    @Override
+    public Flux<AIReviewChunkDTO> streamAIReview(AIReviewRequest request) {
+        validateRequest(request);
+
+        String prompt = buildReviewPrompt(request);
+        String cacheKey = reviewCacheKey(request);
+
+        AIReviewResponse cached = aiResponseCacheService.get(AiCachePolicy.REVIEW, cacheKey)
+                .map(this::parseCachedReview)
+                .orElse(null);
+        if (cached != null) {
+            return Flux.fromIterable(chunksOf(cached));
+        }
+
+        // One parser per subscription, fields go out as soon as the model has closed them
+        return Flux.defer(() -> {
+            IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(objectMapper);
+            AtomicBoolean anySent = new AtomicBoolean();
+
+            Flux<AIReviewChunkDTO> fields = aiGateway.stream("review", () -> reviewerChatClient.prompt()
+                            .user(prompt)
+                            .stream()
+                            .content())
+                    .concatMapIterable(chunk -> {
+                        try {
+                            return parser.feed(chunk).stream()
+                                    .filter(field -> REVIEW_FIELDS.contains(field.getKey()))
+                                    .map(field -> new AIReviewChunkDTO(field.getKey(), field.getValue()))
+                                    .toList();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .doOnNext(chunk -> anySent.set(true));
+
+            return fields.concatWith(Mono.fromCallable(() -> {
+                AIReviewResponse review = reviewOf(parser.getFields());
+                cacheReview(cacheKey, review);
+                return new AIReviewChunkDTO(DONE_FIELD, objectMapper.writeValueAsString(review));
+            })).onErrorResume(e -> {
+                log.error("AI review stream failed: {}", e.getMessage());
+                // The client already shows the fields it got, the fallback would overwrite them
+                if (anySent.get()) {
+                    return Flux.just(new AIReviewChunkDTO(ERROR_FIELD, UNAVAILABLE));
+                }
+                return Flux.fromIterable(chunksOf(createDefaultResponse(UNAVAILABLE)));
+            });
+        });
+    }
+
+    private String buildReviewPrompt(AIReviewRequest request) {
+        return String.format("""
             You are a professional code reviewer.
 
             Analyze the following and return ONLY valid JSON in this exact format:
@@ -65,24 +173,47 @@ public class AIServiceImpl implements AIService {
                 request.getLanguage(),
                 request.getSourceCode()
         );
+    }
 
-        try {
-            // 3. Create Client and Call AI
-            ChatClient chatClient = ChatClient.builder(chatModel).build();
+    private String reviewCacheKey(AIReviewRequest request) {
+        return aiResponseCacheService.key(AiCachePolicy.REVIEW,
+                request.getProblemStatement(), request.getLanguage(), request.getSourceCode());
+    }
 
-            String rawResponse = chatClient.prompt()
-                    .system("You are a strict JSON API. Return ONLY valid JSON. No markdown. No explanations.")
-                    .user(prompt)
-                    .call()
-                    .content();
+    private void cacheReview(String cacheKey, AIReviewResponse review) {
+        if (NO_SCORE.equals(review.getReadabilityScore())) {
+            return;
+        }
+        try {
+            aiResponseCacheService.put(AiCachePolicy.REVIEW, cacheKey, objectMapper.writeValueAsString(review));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not cache review: {}", e.getMessage());
+        }
+    }
 
-            // 4. Parse and Return
-            return parseAIResponse(rawResponse);
+    /**
+     * Review assembled from streamed fields, same fallback as parseAIResponse when the summary is missing
+     */
+    private AIReviewResponse reviewOf(Map<String, String> fields) {
+        String summary = fields.get("summary");
+        if (summary == null || summary.isBlank()) {
+            log.warn("Streamed AI review missing summary, using fallback");
+            return createDefaultResponse("AI provided incomplete response.");
+        }
+        return new AIReviewResponse(summary, fields.get("optimizationTips"), fields.get("readabilityScore"));
+    }
 
-        } catch (Exception e) {
-            log.error("AI Service communication error: {}", e.getMessage(), e);
-            return createDefaultResponse("The AI service is currently unavailable. Please try again later.");
+    private List<AIReviewChunkDTO> chunksOf(AIReviewResponse review) {
+        List<AIReviewChunkDTO> chunks = new ArrayList<>();
+        chunks.add(new AIReviewChunkDTO("summary", review.getSummary()));
+        chunks.add(new AIReviewChunkDTO("optimizationTips", review.getOptimizationTips()));
+        chunks.add(new AIReviewChunkDTO("readabilityScore", review.getReadabilityScore()));
+        try {
+            chunks.add(new AIReviewChunkDTO(DONE_FIELD, objectMapper.writeValueAsString(review)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
         }
+        return chunks;
     }
 
     /**
@@ -142,10 +273,22 @@ public class AIServiceImpl implements AIService {
         return new AIReviewResponse(
                 "Unable to generate detailed review. " + errorDetail,
                 "General Tips: Ensure your code handles edge cases, use meaningful variable names, and check time complexity.",
-                "N/A"
+                NO_SCORE
         );
     }
 
+    /**
+     * Cached reviews were written by this service, an unreadable one is treated as a miss
+     */
+    private AIReviewResponse parseCachedReview(String json) {
+        try {
+            return objectMapper.readValue(json, AIReviewResponse.class);
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable cached review: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Validate AI review request
      */
@@ -168,19 +311,6 @@ public class AIServiceImpl implements AIService {
             );
         }
     }
-
-    @PreDestroy
-    public void shutdown() {
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-    }
 }
 
 
@@ -0,0 +1,316 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.service.ai.AbilityModelService;
+import com.codearena.backend.utils.constant.Difficulty;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Elo-style Rasch model.
+ *
+ * P(correct) = 1 / (1 + e^-(ability - difficulty)). After an answer both move by
+ * step * (outcome - P), in opposite directions. The information a question gives about the
+ * user is P(1 - P), highest when its difficulty sits at the user's ability.
+ *
+ * Redis hashes are the source of truth. An answer updates both estimates in one Lua script, so
+ * concurrent answers on different nodes never overwrite each other. Reads go through a bounded
+ * local LRU whose entries live estimate-cache-seconds, so a node sees other nodes' updates within
+ * that window. A Redis failure falls back to the cached value, then to the priors.
+ */
+@Service
+@Slf4j
+public class AbilityModelServiceImpl implements AbilityModelService {
+
+    private static final String ABILITY_KEY = "practice:irt:ability:";
+    private static final String DIFFICULTY_KEY = "practice:irt:difficulty";
+
+    // Bands on the logit scale, EASY/MEDIUM/HARD priors sit at -1/0/1
+    private static final double EASY_BELOW = -0.5;
+    private static final double HARD_ABOVE = 0.5;
+
+    // KEYS: ability hash, difficulty hash.
+    // ARGV: userId, questionId, question prior, initial step, min step, step decay, outcome (1/0).
+    // Returns the new ability and difficulty, encoded like the hash values.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> UPDATE_SCRIPT = new DefaultRedisScript<>("""
+            local function decode(stored, prior)
+              if not stored then return prior, 0 end
+              local value, answers = string.match(stored, '^([^:]+):(%d+)$')
+              return tonumber(value), tonumber(answers)
+            end
+            local function step(answers)
+              return math.max(tonumber(ARGV[5]), tonumber(ARGV[4]) / (1 + tonumber(ARGV[6]) * answers))
+            end
+            local ability, abilityAnswers = decode(redis.call('HGET', KEYS[1], ARGV[1]), 0)
+            local difficulty, difficultyAnswers = decode(redis.call('HGET', KEYS[2], ARGV[2]), tonumber(ARGV[3]))
+            local surprise = tonumber(ARGV[7]) - 1 / (1 + math.exp(-(ability - difficulty)))
+            local newAbility = string.format('%.17g:%d', ability + step(abilityAnswers) * surprise, abilityAnswers + 1)
+            local newDifficulty = string.format('%.17g:%d', difficulty - step(difficultyAnswers) * surprise, difficultyAnswers + 1)
+            redis.call('HSET', KEYS[1], ARGV[1], newAbility)
+            redis.call('HSET', KEYS[2], ARGV[2], newDifficulty)
+            return {newAbility, newDifficulty}
+            """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AppProperties.Ai.Selector config;
+
+    // userId|type -> ability, questionId -> difficulty
+    private final Map<String, CachedEstimate> abilities;
+    private final Map<String, CachedEstimate> difficulties;
+
+    public AbilityModelServiceImpl(StringRedisTemplate stringRedisTemplate, AppProperties appProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.config = appProperties.getAi().getSelector();
+        this.abilities = lru(config.getEstimateCacheEntries());
+        this.difficulties = lru(config.getEstimateCacheEntries());
+    }
+
+    @Override
+    public double ability(String userId, String questionType) {
+        return abilityEstimate(userId, questionType).value();
+    }
+
+    @Override
+    public double projectedAbility(String userId, String questionType, String questionId, Difficulty label,
+                                   boolean correct) {
+        Estimate user = abilityEstimate(userId, questionType);
+        Estimate question = difficultyEstimate(questionId, label);
+        double surprise = (correct ? 1.0 : 0.0) - probability(user.value(), question.value());
+        return user.value() + step(user.answers()) * surprise;
+    }
+
+    @Override
+    public void recordAnswer(String userId, String questionType, String questionId, Difficulty label,
+                             boolean correct) {
+        String type = questionType.toUpperCase();
+        double outcome = correct ? 1.0 : 0.0;
+
+        // Only seeds a question Redis has no estimate for yet
+        Estimate question = difficultyEstimate(questionId, label);
+
+        Estimate updatedUser;
+        Estimate updatedQuestion;
+        try {
+            List<?> updated = stringRedisTemplate.execute(UPDATE_SCRIPT,
+                    List.of(ABILITY_KEY + type, DIFFICULTY_KEY),
+                    userId, questionId, String.valueOf(question.value()),
+                    String.valueOf(config.getInitialStep()), String.valueOf(config.getMinStep()),
+                    String.valueOf(config.getStepDecay()), String.valueOf((int) outcome));
+            updatedUser = Estimate.decode(updated.get(0).toString());
+            updatedQuestion = Estimate.decode(updated.get(1).toString());
+        } catch (Exception e) {
+            // Keeps this node adapting, the update is lost once the cache entry expires
+            log.warn("Could not update ability estimates for user {} in Redis: {}", userId, e.getMessage());
+            Estimate user = abilityEstimate(userId, type);
+            double surprise = outcome - probability(user.value(), question.value());
+            updatedUser = new Estimate(user.value() + step(user.answers()) * surprise, user.answers() + 1);
+            updatedQuestion = new Estimate(question.value() - step(question.answers()) * surprise, question.answers() + 1);
+        }
+
+        cache(abilities, abilityField(userId, type), updatedUser);
+        cache(difficulties, questionId, updatedQuestion);
+
+        log.debug("Ability -> {} for user {} ({}), question {} difficulty -> {}",
+                updatedUser.value(), userId, type, questionId, updatedQuestion.value());
+    }
+
+    @Override
+    public <T> List<T> rankByInformation(String userId,
+                                         String questionType,
+                                         List<T> candidates,
+                                         Function<T, String> idOf,
+                                         Function<T, Difficulty> labelOf) {
+
+        return rankByInformation(ability(userId, questionType), candidates, idOf, labelOf);
+    }
+
+    @Override
+    public <T> List<T> rankByInformation(double ability,
+                                         List<T> candidates,
+                                         Function<T, String> idOf,
+                                         Function<T, Difficulty> labelOf) {
+
+        preloadDifficulties(candidates, idOf, labelOf);
+
+        Map<T, Double> information = new HashMap<>();
+        for (T candidate : candidates) {
+            // Preloaded above, falls back to the prior rather than one Redis call per candidate
+            CachedEstimate cached = difficulties.get(idOf.apply(candidate));
+            double difficulty = cached != null ? cached.estimate().value() : prior(labelOf.apply(candidate));
+            double p = probability(ability, difficulty);
+            information.put(candidate, p * (1 - p));
+        }
+
+        List<T> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator.comparingDouble((T candidate) -> information.get(candidate)).reversed());
+        return ranked;
+    }
+
+    @Override
+    public Difficulty difficultyBand(String userId, String questionType) {
+        return difficultyBand(ability(userId, questionType));
+    }
+
+    @Override
+    public Difficulty difficultyBand(double ability) {
+        if (ability < EASY_BELOW) {
+            return Difficulty.EASY;
+        }
+        if (ability > HARD_ABOVE) {
+            return Difficulty.HARD;
+        }
+        return Difficulty.MEDIUM;
+    }
+
+    // ================= ESTIMATES =================
+
+    private Estimate abilityEstimate(String userId, String questionType) {
+        String type = questionType.toUpperCase();
+        String field = abilityField(userId, type);
+        CachedEstimate cached = abilities.get(field);
+        if (isFresh(cached)) {
+            return cached.estimate();
+        }
+
+        try {
+            Object stored = stringRedisTemplate.opsForHash().get(ABILITY_KEY + type, userId);
+            Estimate loaded = stored != null ? Estimate.decode(stored.toString()) : new Estimate(0.0, 0);
+            cache(abilities, field, loaded);
+            return loaded;
+        } catch (Exception e) {
+            log.debug("Ability lookup failed for user {}: {}", userId, e.getMessage());
+            return cached != null ? cached.estimate() : new Estimate(0.0, 0);
+        }
+    }
+
+    /**
+     * A question nobody has answered starts at its label's prior. A prior without a label is
+     * never cached, it would shadow the labelled one until the entry expires.
+     */
+    private Estimate difficultyEstimate(String questionId, Difficulty label) {
+        CachedEstimate cached = difficulties.get(questionId);
+        if (isFresh(cached)) {
+            return cached.estimate();
+        }
+
+        Estimate prior = new Estimate(prior(label), 0);
+        try {
+            Object stored = stringRedisTemplate.opsForHash().get(DIFFICULTY_KEY, questionId);
+            if (stored != null) {
+                Estimate loaded = Estimate.decode(stored.toString());
+                cache(difficulties, questionId, loaded);
+                return loaded;
+            }
+            if (label != null) {
+                cache(difficulties, questionId, prior);
+            } else {
+                difficulties.remove(questionId);
+            }
+            return prior;
+        } catch (Exception e) {
+            log.debug("Difficulty lookup failed for question {}: {}", questionId, e.getMessage());
+            return cached != null ? cached.estimate() : prior;
+        }
+    }
+
+    /**
+     * One HMGET for every candidate not cached or cached too long ago
+     */
+    private <T> void preloadDifficulties(List<T> candidates, Function<T, String> idOf, Function<T, Difficulty> labelOf) {
+        List<T> missing = candidates.stream()
+                .filter(candidate -> !isFresh(difficulties.get(idOf.apply(candidate))))
+                .toList();
+
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Object> stored = stringRedisTemplate.opsForHash().multiGet(DIFFICULTY_KEY,
+                    missing.stream().map(candidate -> (Object) idOf.apply(candidate)).toList());
+            for (int i = 0; i < missing.size(); i++) {
+                String id = idOf.apply(missing.get(i));
+                Difficulty label = labelOf.apply(missing.get(i));
+                Object value = stored.get(i);
+                if (value != null) {
+                    cache(difficulties, id, Estimate.decode(value.toString()));
+                } else if (label != null) {
+                    // Unanswered, the label prior applies
+                    cache(difficulties, id, new Estimate(prior(label), 0));
+                } else {
+                    difficulties.remove(id);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Difficulty lookup failed, using priors: {}", e.getMessage());
+        }
+    }
+
+    private double step(int answers) {
+        return Math.max(config.getMinStep(), config.getInitialStep() / (1 + config.getStepDecay() * answers));
+    }
+
+    private static double probability(double ability, double difficulty) {
+        return 1.0 / (1.0 + Math.exp(-(ability - difficulty)));
+    }
+
+    private static double prior(Difficulty label) {
+        if (label == null) {
+            return 0.0;
+        }
+        return switch (label) {
+            case EASY -> -1.0;
+            case HARD -> 1.0;
+            default -> 0.0;
+        };
+    }
+
+    private static String abilityField(String userId, String type) {
+        return userId + "|" + type;
+    }
+
+    // ================= LOCAL CACHE =================
+
+    private static Map<String, CachedEstimate> lru(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedEstimate> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private void cache(Map<String, CachedEstimate> cache, String key, Estimate estimate) {
+        cache.put(key, new CachedEstimate(estimate,
+                System.currentTimeMillis() + config.getEstimateCacheSeconds() * 1000L));
+    }
+
+    private static boolean isFresh(CachedEstimate cached) {
+        return cached != null && cached.expiresAt() > System.currentTimeMillis();
+    }
+
+    private record CachedEstimate(Estimate estimate, long expiresAt) {
+    }
+
+    private record Estimate(double value, int answers) {
+
+        static Estimate decode(String stored) {
+            int separator = stored.indexOf(':');
+            return new Estimate(Double.parseDouble(stored.substring(0, separator)),
+                    Integer.parseInt(stored.substring(separator + 1)));
+        }
+    }
+}
@@ -1,349 +1,480 @@
 package com.codearena.backend.serviceImpl;
 
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.CodeProfileDTO;
 import com.codearena.backend.dto.CodingQuestionDTO;
 import com.codearena.backend.dto.McqQuestionResponseDTO;
+import com.codearena.backend.dto.QuestionChoiceDTO;
 import com.codearena.backend.dto.RecommendationsDTO;
+import com.codearena.backend.entity.PracticeAttempt;
 import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.service.PracticeAttemptService;
+import com.codearena.backend.service.ai.AbilityModelService;
 import com.codearena.backend.service.ai.AdaptiveQuestionSelector;
+import com.codearena.backend.service.ai.AiGateway;
+import com.codearena.backend.service.ai.AiResponseCacheService;
+import com.codearena.backend.service.ai.CodePatternAnalyzer;
+import com.codearena.backend.utils.constant.AiCachePolicy;
 import com.codearena.backend.utils.constant.Difficulty;
+import com.codearena.backend.utils.constant.SubmissionStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.client.ResponseEntity;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Next-question selection runs on the in-process ability model (AbilityModelService):
+ * the most informative unused question for the user's current ability, no LLM round-trip.
+ *
+ * With app.ai.selector.llm-rerank the LLM still gets a say, off the request path: after each
+ * pick it re-ranks the next few candidates in the background and its choice is used for the
+ * session's following request, if that question is still a top candidate by then.
+ * That is a single structured call returning {difficulty, questionId, rationale}; an answer
+ * outside the candidates, or whose difficulty does not match the question, is dropped.
+ */
 @Service
 @Slf4j
 public class AdaptiveQuestionSelectorImpl implements AdaptiveQuestionSelector {
 
-    private final ChatModel chatModel;
-    private final ObjectMapper objectMapper;
+    private static final int MAX_RERANK_HINTS = 10_000;
+
+    private static final QuestionView<CodingQuestionDTO> CODING_VIEW = new QuestionView<>(
+            CodingQuestionDTO::getId, CodingQuestionDTO::getDifficulty,
+            CodingQuestionDTO::getTags, CodingQuestionDTO::getTitle);
+
+    private static final QuestionView<McqQuestionResponseDTO> MCQ_VIEW = new QuestionView<>(
+            McqQuestionResponseDTO::getId, McqQuestionResponseDTO::getDifficulty,
+            McqQuestionResponseDTO::getTags, McqQuestionResponseDTO::getTitle);
 
-    public AdaptiveQuestionSelectorImpl(@Qualifier("openAiChatModel") ChatModel chatModel, 
-                                        ObjectMapper objectMapper) {
-        this.chatModel = chatModel;
+    private final ChatClient selectorChatClient;
+    private final ObjectMapper objectMapper;
+    private final AbilityModelService abilityModelService;
+    private final ThreadPoolTaskExecutor aiExecutor;
+    private final AiResponseCacheService aiResponseCacheService;
+    private final AiGateway aiGateway;
+    private final CodePatternAnalyzer codePatternAnalyzer;
+    private final PracticeAttemptService practiceAttemptService;
+    private final AppProperties.Ai.Selector config;
+    private final MeterRegistry meterRegistry;
+
+    // sessionId -> question id the LLM preferred for that session's next pick
+    private final Map<String, String> rerankHints = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_RERANK_HINTS;
+                }
+            });
+
+    public AdaptiveQuestionSelectorImpl(@Qualifier("selectorChatClient") ChatClient selectorChatClient,
+                                        ObjectMapper objectMapper,
+                                        AbilityModelService abilityModelService,
+                                        @Qualifier("aiExecutor") ThreadPoolTaskExecutor aiExecutor,
+                                        AiResponseCacheService aiResponseCacheService,
+                                        AiGateway aiGateway,
+                                        CodePatternAnalyzer codePatternAnalyzer,
+                                        PracticeAttemptService practiceAttemptService,
+                                        AppProperties appProperties,
+                                        MeterRegistry meterRegistry) {
+        this.selectorChatClient = selectorChatClient;
         this.objectMapper = objectMapper;
+        this.abilityModelService = abilityModelService;
+        this.aiExecutor = aiExecutor;
+        this.aiResponseCacheService = aiResponseCacheService;
+        this.aiGateway = aiGateway;
+        this.codePatternAnalyzer = codePatternAnalyzer;
+        this.practiceAttemptService = practiceAttemptService;
+        this.config = appProperties.getAi().getSelector();
+        this.meterRegistry = meterRegistry;
     }
 
     /**
-     * AI-powered question selection based on user performance
+     * Pick the next coding question for the user's current ability
      */
     public String selectNextCodingQuestion(PracticeSession session,
                                            List<CodingQuestionDTO> candidateQuestions,
                                            Set<String> usedQuestionIds) {
+        return selectNextCodingQuestion(session, candidateQuestions, usedQuestionIds, null);
+    }
 
-        // Prepare performance context for AI
-        String performanceContext = buildPerformanceContext(session);
-
-        // Filter out used questions
-        List<CodingQuestionDTO> availableQuestions = candidateQuestions.stream()
-                .filter(q -> !usedQuestionIds.contains(q.getId()))
-                .toList();
+    /**
+     * Pick the next MCQ question for the user's current ability
+     */
+    public String selectNextMcqQuestion(PracticeSession session,
+                                        List<McqQuestionResponseDTO> candidateQuestions,
+                                        Set<String> usedQuestionIds) {
+        return selectNextMcqQuestion(session, candidateQuestions, usedQuestionIds, null);
+    }
 
-        if (availableQuestions.isEmpty()) {
-            log.warn("No new questions available for session: {}", session.getId());
-            return null;
-        }
+    /**
+     * Pick for an ability the user does not have yet (prefetch of an answer branch).
+     * No re-rank hint is consumed or scheduled, those belong to the live pick.
+     */
+    public String selectNextCodingQuestion(PracticeSession session,
+                                           List<CodingQuestionDTO> candidateQuestions,
+                                           Set<String> usedQuestionIds,
+                                           double projectedAbility) {
+        return select(session, candidateQuestions, usedQuestionIds, CODING_VIEW, null, projectedAbility);
+    }
 
-        // Try AI selection first, fallback to random if AI fails (quota, timeout, etc.)
-        try {
-            log.info("🤖 Attempting AI-powered coding question selection...");
-            
-            String prompt = """
-                Student: %s
-                Questions (%d): %s
-                Select best question ID based on performance. Return ONLY the ID.
-                """.formatted(
-                    performanceContext,
-                    availableQuestions.size(),
-                    buildQuestionsSummary(availableQuestions)
-            );
+    /**
+     * MCQ counterpart of the projected-ability pick
+     */
+    public String selectNextMcqQuestion(PracticeSession session,
+                                        List<McqQuestionResponseDTO> candidateQuestions,
+                                        Set<String> usedQuestionIds,
+                                        double projectedAbility) {
+        return select(session, candidateQuestions, usedQuestionIds, MCQ_VIEW, null, projectedAbility);
+    }
 
-            ChatClient chatClient = ChatClient.create(chatModel);
-            String selectedQuestionId = chatClient.prompt()
-                    .system("Return ONLY the question ID.")
-                    .user(prompt)
-                    .call()
-                    .content()
-                    .trim();
+    /**
+     * Same pick, the code history only feeds the background re-rank prompt. Without a history
+     * the prompt gets the profile of the user's recent submissions instead.
+     */
+    public String selectNextCodingQuestion(PracticeSession session,
+                                           List<CodingQuestionDTO> candidateQuestions,
+                                           Set<String> usedQuestionIds,
+                                           List<Map<String, Object>> codeHistory) {
 
-            log.info("✅ AI selected coding question ID: {}", selectedQuestionId);
-            return selectedQuestionId;
-            
-        } catch (Exception e) {
-            log.warn("⚠️ AI selection failed ({}), falling back to random selection", e.getMessage());
-            
-            // Fallback: Random selection
-            CodingQuestionDTO randomQuestion = availableQuestions.get(
-                    new Random().nextInt(availableQuestions.size())
-            );
-            
-            log.info("🎲 Randomly selected coding question ID: {}", randomQuestion.getId());
-            return randomQuestion.getId();
-        }
+        return select(session, candidateQuestions, usedQuestionIds, CODING_VIEW,
+                table -> buildChoicePrompt(
+                        "You are an expert coding coach designing personalized practice sessions.",
+                        buildPerformanceContext(session),
+                        "Code Profile: " + compactCodeProfile(codeHistory != null
+                                ? codePatternAnalyzer.analyze(codeSamples(codeHistory))
+                                : codePatternAnalyzer.profile(session.getUser().getId())),
+                        table,
+                        "skill level, code quality issues, algorithmic concepts that need practice and edge case handling"),
+                null);
     }
 
     /**
-     * Select next MCQ question using AI
+     * Same pick, the MCQ history only feeds the background re-rank prompt
      */
     public String selectNextMcqQuestion(PracticeSession session,
                                         List<McqQuestionResponseDTO> candidateQuestions,
-                                        Set<String> usedQuestionIds) {
+                                        Set<String> usedQuestionIds,
+                                        List<Map<String, Object>> mcqHistory) {
+
+        return select(session, candidateQuestions, usedQuestionIds, MCQ_VIEW,
+                table -> buildChoicePrompt(
+                        "You are an expert MCQ test designer.",
+                        buildPerformanceContext(session),
+                        "MCQ Analysis: " + (mcqHistory != null ? analyzeMcqPerformancePatterns(mcqHistory) : "n/a"),
+                        table,
+                        "knowledge gaps, difficulty progression and topic reinforcement for weak areas"),
+                null);
+    }
 
-        String performanceContext = buildPerformanceContext(session);
+    /**
+     * One prompt for the whole decision, the performance context is sent once
+     */
+    private String buildChoicePrompt(String role, String performanceContext, String analysis,
+                                     String candidates, String criteria) {
+        return """
+            %s
+
+            Student Performance Context:
+            %s
+            %s
+
+            Candidate Questions (best fit first; d = E/M/H difficulty, gap = tags the student missed):
+            %s
+
+            Choose the next question and the difficulty it should be served at, considering %s.
+            Answer with the question's alias (Q1, Q2, ...) as questionId and its listed difficulty.
+            Keep the rationale to one sentence.
+            """.formatted(role, performanceContext, analysis, candidates, criteria);
+    }
+
+    // ================= LOCAL SELECTION =================
+
+    private <T> String select(PracticeSession session,
+                              List<T> candidateQuestions,
+                              Set<String> usedQuestionIds,
+                              QuestionView<T> view,
+                              Function<String, String> rerankPrompt,
+                              Double projectedAbility) {
 
-        List<McqQuestionResponseDTO> availableQuestions = candidateQuestions.stream()
-                .filter(q -> !usedQuestionIds.contains(q.getId()))
+        String type = session.getQuestionType();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        List<T> availableQuestions = candidateQuestions == null ? List.of() : candidateQuestions.stream()
+                .filter(q -> !usedQuestionIds.contains(view.id().apply(q)))
                 .toList();
 
         if (availableQuestions.isEmpty()) {
-            log.warn("No new MCQ questions available for session: {}", session.getId());
+            log.warn("No new {} questions available for session: {}", type, session.getId());
             return null;
         }
 
-        // Try AI selection first, fallback to random if AI fails
-        try {
-            log.info("🤖 Attempting AI-powered adaptive MCQ question selection...");
-            
-            // Enhanced prompt for adaptive selection based on performance
-            String prompt = """
-                Student Performance: %s
-                Available Questions (%d): %s
-                
-                Select the BEST next question based on adaptive learning:
-                1. If accuracy > 80%% → Select HARD difficulty questions
-                2. If accuracy 50-80%% → Mix MEDIUM and HARD questions
-                3. If accuracy < 50%% → Select EASY or MEDIUM questions
-                4. If slow response time → Select easier questions
-                5. Ensure variety in topics and difficulty
-                
-                Return ONLY the question ID.
-                """.formatted(
-                    performanceContext,
-                    availableQuestions.size(),
-                    buildMcqQuestionsSummary(availableQuestions)
-            );
+        String userId = session.getUser().getId();
+        double ability = projectedAbility != null ? projectedAbility : abilityModelService.ability(userId, type);
+        List<T> ranked = abilityModelService.rankByInformation(ability, availableQuestions, view.id(), view.label());
+
+        String strategy = projectedAbility != null ? "prefetch" : "information";
+        String selectedId = null;
+
+        // A hint only counts while it is still among the candidates the prefilter would consider
+        String hint = projectedAbility != null ? null : rerankHints.remove(session.getId());
+        if (hint != null) {
+            int limit = Math.min(config.getRerankPool(), ranked.size());
+            for (T candidate : ranked.subList(0, limit)) {
+                if (hint.equals(view.id().apply(candidate))) {
+                    selectedId = hint;
+                    strategy = "llm_hint";
+                    break;
+                }
+            }
+        }
 
-            ChatClient chatClient = ChatClient.create(chatModel);
-            String selectedQuestionId = chatClient.prompt()
-                    .system("You are an adaptive learning AI. Return ONLY the question ID.")
-                    .user(prompt)
-                    .call()
-                    .content()
-                    .trim();
-            
-            log.info("✅ AI selected adaptive MCQ question ID: {}", selectedQuestionId);
-            return selectedQuestionId;
-            
-        } catch (Exception e) {
-            log.warn("⚠️ AI selection failed ({}), falling back to random selection", e.getMessage());
-            
-            // Fallback: Random selection from all difficulties
-            McqQuestionResponseDTO randomQuestion = availableQuestions.get(
-                    new Random().nextInt(availableQuestions.size())
-            );
-            
-            log.info("🎲 Randomly selected MCQ question ID: {}", randomQuestion.getId());
-            return randomQuestion.getId();
+        if (selectedId == null) {
+            // Randomesque: spread exposure over the top few instead of always the single best
+            int topN = Math.min(config.getExposureTopN(), ranked.size());
+            selectedId = view.id().apply(ranked.get(ThreadLocalRandom.current().nextInt(topN)));
+        }
+
+        sample.stop(meterRegistry.timer("practice.selector.latency",
+                "type", type.toLowerCase(), "strategy", strategy));
+
+        log.info("🎯 Selected {} question {} for session {} (ability={}, strategy={})",
+                type, selectedId, session.getId(), String.format("%.2f", ability), strategy);
+
+        if (config.isLlmRerank() && rerankPrompt != null) {
+            Map<String, Double> tagGaps = tagGaps(session, candidateQuestions, view);
+            scheduleRerank(session.getId(), selectedId, ranked, view, tagGaps, rerankPrompt);
         }
+
+        return selectedId;
     }
 
     /**
-     * Select next coding question with code quality consideration
+     * Ask the LLM to pick from the next best candidates, for this session's following request
      */
-    public String selectNextCodingQuestion(PracticeSession session,
-                                           List<CodingQuestionDTO> candidateQuestions,
-                                           Set<String> usedQuestionIds,
-                                           List<Map<String, Object>> codeHistory) {
+    private <T> void scheduleRerank(String sessionId,
+                                    String selectedId,
+                                    List<T> ranked,
+                                    QuestionView<T> view,
+                                    Map<String, Double> tagGaps,
+                                    Function<String, String> rerankPrompt) {
+
+        List<T> top = prefilter(ranked, selectedId, view, tagGaps);
 
-        // Analyze previous coding patterns if available
-        String codeAnalysis = analyzePreviousCodePatterns(codeHistory);
+        if (top.size() < 2) {
+            return;
+        }
 
-        String performanceContext = buildPerformanceContext(session) +
-                "\nCode Analysis: " + codeAnalysis;
+        // Short aliases in the prompt, mapped back to question ids when the answer comes in
+        Map<String, String> aliasToId = new HashMap<>();
+        Map<String, Difficulty> allowed = new HashMap<>();
+        StringBuilder table = new StringBuilder("alias|d|tags|gap|title\n");
+        for (int i = 0; i < top.size(); i++) {
+            T question = top.get(i);
+            String alias = "Q" + (i + 1);
+            aliasToId.put(alias, view.id().apply(question));
+            allowed.put(alias, view.label().apply(question));
+            table.append(compactRow(alias, question, view, tagGaps)).append('\n');
+        }
 
-        List<CodingQuestionDTO> availableQuestions = candidateQuestions.stream()
-                .filter(q -> !usedQuestionIds.contains(q.getId()))
+        // Built here, the session entity must not be touched from another thread
+        String prompt = rerankPrompt.apply(table.toString());
+        int estimatedTokens = estimateTokens(prompt);
+
+        aiExecutor.execute(() -> {
+            try {
+                ResponseEntity<ChatResponse, QuestionChoiceDTO> response = aiGateway.call("rerank",
+                        () -> selectorChatClient.prompt()
+                                .user(prompt)
+                                .call()
+                                .responseEntity(QuestionChoiceDTO.class));
+
+                recordPromptTokens(sessionId, top.size(), ranked.size(), estimatedTokens, response.response());
+
+                QuestionChoiceDTO choice = response.entity();
+                if (isValidChoice(choice, allowed)) {
+                    llmCall("rerank", "success");
+                    String questionId = aliasToId.get(choice.getQuestionId());
+                    log.debug("Re-rank hint {} for session {}: {}", questionId, sessionId, choice.getRationale());
+                    rerankHints.put(sessionId, questionId);
+                } else {
+                    llmCall("rerank", "invalid");
+                    log.debug("Ignoring re-rank answer that does not match the candidates: {}", choice);
+                }
+            } catch (Exception e) {
+                llmCall("rerank", "failure");
+                log.debug("Background re-rank failed for session {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    // ================= RE-RANK PREFILTER =================
+
+    /**
+     * Narrow the candidates sent to the LLM to rerank-candidates questions: from the best
+     * rerank-pool by information, the ones scoring highest on fit (rank position, 1 for the best)
+     * plus tag-gap-weight times how much of the session's missed tags they cover.
+     */
+    private <T> List<T> prefilter(List<T> ranked, String selectedId, QuestionView<T> view,
+                                  Map<String, Double> tagGaps) {
+
+        List<T> pool = ranked.stream()
+                .filter(q -> !selectedId.equals(view.id().apply(q)))
+                .limit(config.getRerankPool())
                 .toList();
 
-        if (availableQuestions.isEmpty()) {
-            log.warn("No new coding questions available for session: {}", session.getId());
-            return null;
+        double maxGap = tagGaps.values().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+
+        Map<T, Double> score = new HashMap<>();
+        for (int i = 0; i < pool.size(); i++) {
+            T question = pool.get(i);
+            double fit = 1.0 - (double) i / pool.size();
+            double gap = maxGap == 0 ? 0 : tagsOf(question, view).stream()
+                    .mapToDouble(tag -> tagGaps.getOrDefault(tag, 0.0))
+                    .max()
+                    .orElse(0) / maxGap;
+            score.put(question, fit + config.getTagGapWeight() * gap);
         }
 
-        String prompt = """
-            You are an expert coding coach designing personalized practice sessions.
-            
-            Student Performance Context:
-            %s
-            
-            Available Coding Questions (%d):
-            %s
-            
-            Based on the student's performance AND coding patterns, select the MOST SUITABLE next question.
-            Consider:
-            1. Current skill level (adjust difficulty if needed)
-            2. Code quality issues from previous submissions
-            3. Algorithmic concepts that need practice
-            4. Time complexity improvements needed
-            5. Edge case handling
-            
-            Return ONLY the ID of the selected question.
-            """.formatted(
-                performanceContext,
-                availableQuestions.size(),
-                buildCodingQuestionsSummary(availableQuestions)
-        );
+        return pool.stream()
+                .sorted(Comparator.comparingDouble((T q) -> score.get(q)).reversed())
+                .limit(config.getRerankCandidates())
+                .toList();
+    }
 
-        ChatClient chatClient = ChatClient.create(chatModel);
-        String selectedQuestionId = chatClient.prompt()
-                .system("You are an expert coding coach. Respond with ONLY the question ID.")
-                .user(prompt)
-                .call()
-                .content()
-                .trim();
+    /**
+     * Per tag: misses minus half the hits in this session, only tags still behind are kept.
+     * Tags of answered questions come from the candidate list, which includes used questions.
+     */
+    private <T> Map<String, Double> tagGaps(PracticeSession session, List<T> candidateQuestions,
+                                            QuestionView<T> view) {
+        Map<String, List<String>> tagsById = new HashMap<>();
+        if (candidateQuestions != null) {
+            candidateQuestions.forEach(q -> tagsById.put(view.id().apply(q), tagsOf(q, view)));
+        }
 
-        log.info("AI selected coding question ID: {} for session: {}", selectedQuestionId, session.getId());
-        return selectedQuestionId;
+        Map<String, Double> gaps = new HashMap<>();
+        for (PracticeAttempt attempt : practiceAttemptService.getHistory(session.getId())) {
+            if (attempt.isSkipped()) {
+                continue;
+            }
+            double delta = attempt.isCorrect() ? -0.5 : 1.0;
+            for (String tag : tagsById.getOrDefault(attempt.getQuestionId(), List.of())) {
+                gaps.merge(tag, delta, Double::sum);
+            }
+        }
+
+        gaps.values().removeIf(gap -> gap <= 0);
+        return gaps;
     }
 
     /**
-     * Select next MCQ question with concept reinforcement
+     * One line per candidate: alias, E/M/H, at most 3 tags, the missed tags it covers, short title
      */
-    public String selectNextMcqQuestion(PracticeSession session,
-                                        List<McqQuestionResponseDTO> candidateQuestions,
-                                        Set<String> usedQuestionIds,
-                                        List<Map<String, Object>> mcqHistory) {
+    private <T> String compactRow(String alias, T question, QuestionView<T> view, Map<String, Double> tagGaps) {
+        List<String> tags = tagsOf(question, view);
+        Difficulty label = view.label().apply(question);
+        String title = view.title().apply(question);
+
+        return String.join("|",
+                alias,
+                label != null ? label.name().substring(0, 1) : "?",
+                String.join(",", tags.subList(0, Math.min(3, tags.size()))),
+                String.join(",", tags.stream().filter(tagGaps::containsKey).limit(3).toList()),
+                title == null ? "" : title.length() > 40 ? title.substring(0, 40) : title);
+    }
 
-        // Analyze MCQ performance patterns
-        String mcqAnalysis = analyzeMcqPerformancePatterns(mcqHistory);
+    private <T> List<String> tagsOf(T question, QuestionView<T> view) {
+        List<String> tags = view.tags().apply(question);
+        return tags != null ? tags : List.of();
+    }
 
-        String performanceContext = buildPerformanceContext(session) +
-                "\nMCQ Analysis: " + mcqAnalysis;
+    private void recordPromptTokens(String sessionId, int sent, int considered, int estimatedTokens,
+                                    ChatResponse response) {
+        Integer promptTokens = response != null && response.getMetadata() != null
+                && response.getMetadata().getUsage() != null
+                ? response.getMetadata().getUsage().getPromptTokens()
+                : null;
+
+        if (promptTokens != null && promptTokens > 0) {
+            DistributionSummary.builder("ai.prompt.tokens")
+                    .tag("purpose", "rerank")
+                    .baseUnit("tokens")
+                    .register(meterRegistry)
+                    .record(promptTokens);
+        }
 
-        List<McqQuestionResponseDTO> availableQuestions = candidateQuestions.stream()
-                .filter(q -> !usedQuestionIds.contains(q.getId()))
-                .toList();
+        log.info("📉 Re-rank prompt for session {}: {} of {} candidates, ~{} tokens estimated, {} reported",
+                sessionId, sent, considered, estimatedTokens, promptTokens != null ? promptTokens : "n/a");
+    }
 
-        if (availableQuestions.isEmpty()) {
-            log.warn("No new MCQ questions available for session: {}", session.getId());
-            return null;
+    /**
+     * Rough count for logging, about 4 characters per token for English prompts
+     */
+    private static int estimateTokens(String text) {
+        return (text.length() + 3) / 4;
+    }
+
+    private boolean isValidChoice(QuestionChoiceDTO choice, Map<String, Difficulty> allowed) {
+        if (choice == null || choice.getQuestionId() == null) {
+            return false;
         }
 
-        String prompt = """
-            You are an expert MCQ test designer.
-            
-            Student Performance Context:
-            %s
-            
-            Available MCQ Questions:
-            %s
-            
-            Select the best next question considering:
-            1. Knowledge gaps identified from previous answers
-            2. Difficulty progression based on accuracy and speed
-            3. Topic reinforcement for weak areas
-            4. Time spent on previous questions
-            5. Common misconception patterns
-            
-            Return ONLY the question ID.
-            """.formatted(
-                performanceContext,
-                buildMcqQuestionsSummaryWithDetails(availableQuestions)
-        );
+        // Aliases are Q1..Qn, accept "q1" too
+        String questionId = choice.getQuestionId().trim().toUpperCase();
+        choice.setQuestionId(questionId);
+        if (!allowed.containsKey(questionId)) {
+            return false;
+        }
 
-        ChatClient chatClient = ChatClient.create(chatModel);
-        String selectedQuestionId = chatClient.prompt()
-                .system("Select the best next MCQ question. Respond with ONLY the question ID.")
-                .user(prompt)
-                .call()
-                .content()
-                .trim();
+        // No difficulty is fine, a wrong one means the model confused the candidates
+        Difficulty label = allowed.get(questionId);
+        return choice.getDifficulty() == null || label == null
+                || label.name().equalsIgnoreCase(choice.getDifficulty().trim());
+    }
 
-        log.info("AI selected MCQ question ID: {} for session: {}", selectedQuestionId, session.getId());
-        return selectedQuestionId;
+    private void llmCall(String purpose, String outcome) {
+        meterRegistry.counter("ai.llm.calls", "purpose", purpose, "outcome", outcome).increment();
     }
 
     /**
-     * Adjust difficulty based on performance
+     * Adjust difficulty to the band of the user's estimated ability, one step at a time
      */
     public Difficulty adjustDifficulty(PracticeSession session) {
-        log.info("🎯 Adjusting difficulty based on performance...");
-        
-        double accuracy = (session.getTotalQuestionsAnswered() > 0) 
-            ? (session.getCorrectAnswers() * 100.0 / session.getTotalQuestionsAnswered()) 
-            : 0;
-        
-        double avgTime = session.getAverageTimePerQuestion();
-        
-        // Different thresholds for coding vs MCQ
-        double accuracyThreshold = "CODING".equals(session.getQuestionType()) ? 70 : 80;
-        double timeThreshold = "CODING".equals(session.getQuestionType()) ? 120 : 60;
-        
-        Difficulty currentDifficulty = session.getCurrentDifficulty();
-        
-        // Try AI-powered difficulty adjustment, fallback to rule-based
-        try {
-            String prompt = """
-                Based on student performance in %s questions, suggest next difficulty level.
-                Current Difficulty: %s
-                Accuracy: %.2f%%
-                Average Time: %.2f seconds
-                Total Questions: %d
-                Correct: %d
-                
-                Rules for %s:
-                - If accuracy > %.0f%% AND avg time < %.0fs → Increase difficulty
-                - If accuracy < %.0f%% OR avg time > %.0fs → Decrease difficulty
-                - Otherwise → Maintain current difficulty
-                
-                Return ONLY: EASY, MEDIUM, or HARD
-                """.formatted(
-                    session.getQuestionType(),
-                    currentDifficulty,
-                    accuracy,
-                    avgTime,
-                    session.getTotalQuestionsAnswered(),
-                    session.getCorrectAnswers(),
-                    session.getQuestionType(),
-                    accuracyThreshold,
-                    timeThreshold,
-                    accuracyThreshold - 20,
-                    timeThreshold * 1.5
-            );
+        return stepTowards(session.getCurrentDifficulty(),
+                abilityModelService.difficultyBand(session.getUser().getId(), session.getQuestionType()));
+    }
 
-            ChatClient chatClient = ChatClient.create(chatModel);
-            String suggestedDifficulty = chatClient.prompt()
-                    .system("Suggest difficulty level. Respond with ONLY: EASY, MEDIUM, or HARD")
-                    .user(prompt)
-                    .call()
-                    .content()
-                    .trim()
-                    .toUpperCase();
+    /**
+     * Same adjustment for an ability the user does not have yet (prefetch of an answer branch)
+     */
+    public Difficulty adjustDifficulty(PracticeSession session, double projectedAbility) {
+        return stepTowards(session.getCurrentDifficulty(), abilityModelService.difficultyBand(projectedAbility));
+    }
 
-            return Difficulty.valueOf(suggestedDifficulty);
-            
-        } catch (Exception e) {
-            log.warn("⚠️ AI difficulty adjustment failed, using rule-based logic");
-            
-            // Fallback: Rule-based difficulty adjustment
-            if (accuracy > accuracyThreshold && avgTime < timeThreshold) {
-                if (currentDifficulty == Difficulty.EASY) return Difficulty.MEDIUM;
-                if (currentDifficulty == Difficulty.MEDIUM) return Difficulty.HARD;
-            }
-            
-            if (accuracy < (accuracyThreshold - 20) || avgTime > (timeThreshold * 1.5)) {
-                if (currentDifficulty == Difficulty.HARD) return Difficulty.MEDIUM;
-                if (currentDifficulty == Difficulty.MEDIUM) return Difficulty.EASY;
-            }
-            
-            return currentDifficulty;
+    private Difficulty stepTowards(Difficulty currentDifficulty, Difficulty band) {
+        if (currentDifficulty == null || currentDifficulty == Difficulty.MIXED) {
+            return band;
         }
+        if (band.ordinal() > currentDifficulty.ordinal()) {
+            return Difficulty.values()[currentDifficulty.ordinal() + 1];
+        }
+        if (band.ordinal() < currentDifficulty.ordinal()) {
+            return Difficulty.values()[currentDifficulty.ordinal() - 1];
+        }
+        return currentDifficulty;
     }
 
     /**
@@ -386,16 +517,25 @@ public class AdaptiveQuestionSelectorImpl implements AdaptiveQuestionSelector {
                     session.getQuestionType()
             );
 
-            ChatClient chatClient = ChatClient.create(chatModel);
-            String jsonResponse = chatClient.prompt()
+            // Same stats, same prompt: a repeated end call reuses the answer
+            String cacheKey = aiResponseCacheService.key(AiCachePolicy.RECOMMENDATION, prompt);
+            Optional<String> cached = aiResponseCacheService.get(AiCachePolicy.RECOMMENDATION, cacheKey);
+            if (cached.isPresent()) {
+                return parseRecommendations(cached.get(), session.getQuestionType());
+            }
+
+            String jsonResponse = aiGateway.call("recommendations", () -> selectorChatClient.prompt()
                     .system("You are a learning coach. Respond with ONLY valid JSON.")
                     .user(prompt)
                     .call()
-                    .content();
+                    .content());
 
+            llmCall("recommendations", "success");
+            aiResponseCacheService.put(AiCachePolicy.RECOMMENDATION, cacheKey, jsonResponse);
             return parseRecommendations(jsonResponse, session.getQuestionType());
             
         } catch (Exception e) {
+            llmCall("recommendations", "failure");
             log.warn("⚠️ AI recommendations failed, using simple logic");
             
             // Fallback: Simple rule-based recommendations
@@ -447,100 +587,43 @@ public class AdaptiveQuestionSelectorImpl implements AdaptiveQuestionSelector {
         );
     }
 
-    private String buildQuestionsSummary(List<CodingQuestionDTO> questions) {
-        StringBuilder summary = new StringBuilder();
-        for (CodingQuestionDTO q : questions) {
-            summary.append(String.format(
-                    "- ID: %s | Title: %s | Difficulty: %s | Tags: %s\n",
-                    q.getId(), q.getTitle(), q.getDifficulty(), q.getTags()
-            ));
-        }
-        return summary.toString();
-    }
-
-    private String buildMcqQuestionsSummary(List<McqQuestionResponseDTO> questions) {
-        StringBuilder summary = new StringBuilder();
-        for (McqQuestionResponseDTO q : questions) {
-            summary.append(String.format(
-                    "- ID: %s | Title: %s | Difficulty: %s | Tags: %s\n",
-                    q.getId(), q.getTitle(), q.getDifficulty(), q.getTags()
-            ));
-        }
-        return summary.toString();
-    }
-
-    private String buildCodingQuestionsSummary(List<CodingQuestionDTO> questions) {
-        StringBuilder summary = new StringBuilder();
-        for (CodingQuestionDTO q : questions) {
-            summary.append(String.format(
-                    "- ID: %s | Title: %s | Difficulty: %s | Tags: %s | Time Limit: %.0fs\n",
-                    q.getId(), q.getTitle(), q.getDifficulty(), q.getTags(), q.getTimeLimit()
-            ));
+    /**
+     * One line of the code profile for the prompt, e.g.
+     * "n=12 loops(max=3,avg=1.4) recursion=25% uses(hash=50%,sort=8%) langs(java=10,python=2) verdicts(ACCEPTED=5)"
+     */
+    private String compactCodeProfile(CodeProfileDTO profile) {
+        if (profile.getSamples() == 0) {
+            return "no code submitted yet";
         }
-        return summary.toString();
+        return "n=%d loops(max=%d,avg=%.1f) recursion=%d%% uses(%s) langs(%s) verdicts(%s)".formatted(
+                profile.getSamples(),
+                profile.getMaxLoopDepth(),
+                profile.getAverageLoopDepth(),
+                Math.round(profile.getRecursionRate() * 100),
+                joinEntries(profile.getCollectionUsage(), share -> Math.round(share * 100) + "%"),
+                joinEntries(profile.getLanguages(), String::valueOf),
+                joinEntries(profile.getVerdicts(), String::valueOf));
     }
 
-    private String buildMcqQuestionsSummaryWithDetails(List<McqQuestionResponseDTO> questions) {
-        StringBuilder summary = new StringBuilder();
-        for (McqQuestionResponseDTO q : questions) {
-            summary.append(String.format(
-                    "- ID: %s | Title: %s | Difficulty: %s | Tags: %s | Time Limit: %ds | Options: %d\n",
-                    q.getId(), q.getTitle(), q.getDifficulty(), q.getTags(),
-                    q.getTimeLimit(), q.getOptions().size()
-            ));
-        }
-        return summary.toString();
+    private static <V> String joinEntries(Map<String, V> entries, Function<V, String> format) {
+        return entries.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + format.apply(entry.getValue()))
+                .collect(Collectors.joining(","));
     }
 
     /**
-     * Analyze previous code submissions for patterns
+     * Code snippets of a session's performance history as analyzer samples
      */
-    private String analyzePreviousCodePatterns(List<Map<String, Object>> codeHistory) {
-        if (codeHistory == null || codeHistory.isEmpty()) {
-            return "No previous code submissions to analyze.";
-        }
-
-        // Extract code snippets from history
-        List<String> codeSnippets = codeHistory.stream()
+    private List<CodePatternAnalyzer.Sample> codeSamples(List<Map<String, Object>> codeHistory) {
+        return codeHistory.stream()
                 .filter(entry -> "CODING".equals(entry.get("questionType")))
-                .map(entry -> (String) entry.get("codeSnippet"))
-                .filter(Objects::nonNull)
+                .filter(entry -> entry.get("codeSnippet") != null)
+                .map(entry -> new CodePatternAnalyzer.Sample(
+                        (String) entry.get("codeSnippet"),
+                        (String) entry.get("language"),
+                        (Boolean.TRUE.equals(entry.get("isCorrect"))
+                                ? SubmissionStatus.ACCEPTED : SubmissionStatus.WRONG_ANSWER).name()))
                 .toList();
-
-        if (codeSnippets.isEmpty()) {
-            return "No code snippets available for analysis.";
-        }
-
-        // Create analysis prompt for AI
-        String codeSamples = String.join("\n---\n", codeSnippets);
-        String truncatedCode = truncateSafely(codeSamples, 2000);
-
-        String analysisPrompt = """
-            Analyze these code snippets from a student's practice session:
-            
-            %s
-            
-            Provide brief analysis of:
-            1. Common coding patterns
-            2. Potential improvements
-            3. Algorithmic understanding
-            4. Code readability
-            
-            Keep analysis concise (2-3 sentences).
-            """.formatted(truncatedCode);
-
-        try {
-            ChatClient chatClient = ChatClient.create(chatModel);
-            return chatClient.prompt()
-                    .system("You are a code reviewer. Provide concise analysis.")
-                    .user(analysisPrompt)
-                    .call()
-                    .content()
-                    .trim();
-        } catch (Exception e) {
-            log.error("Error analyzing code patterns: {}", e.getMessage());
-            return "Unable to analyze code patterns.";
-        }
     }
 
     /**
@@ -734,30 +817,13 @@ public class AdaptiveQuestionSelectorImpl implements AdaptiveQuestionSelector {
                 .build();
     }
 
+
     /**
-     * Safe string truncation that won't break JSON
+     * How the selector reads a coding or MCQ candidate
      */
-    private String truncateSafely(String text, int maxLength) {
-        if (text == null) return "";
-        if (text.length() <= maxLength) return text;
-
-        // Truncate and remove any incomplete escape sequences
-        String truncated = text.substring(0, maxLength);
-
-        // Remove trailing backslash (incomplete escape)
-        if (truncated.endsWith("\\")) {
-            truncated = truncated.substring(0, truncated.length() - 1);
-        }
-
-        // Remove any incomplete quotes
-        long quoteCount = truncated.chars().filter(ch -> ch == '"').count();
-        if (quoteCount % 2 != 0) {
-            int lastQuote = truncated.lastIndexOf('"');
-            if (lastQuote > 0) {
-                truncated = truncated.substring(0, lastQuote);
-            }
-        }
-
-        return truncated + "... [truncated]";
+    private record QuestionView<T>(Function<T, String> id,
+                                   Function<T, Difficulty> label,
+                                   Function<T, List<String>> tags,
+                                   Function<T, String> title) {
     }
-}
\ No newline at end of file
+}
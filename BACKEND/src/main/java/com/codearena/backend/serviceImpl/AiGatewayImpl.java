@@ -0,0 +1,231 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.exception.AiServiceException;
+import com.codearena.backend.service.ai.AiGateway;
+import com.codearena.backend.utils.constant.ErrorMessages;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * One permit per in-flight call to the provider. A blocking call waits for a permit in a queue of
+ * at most max-queued callers and then runs on aiCallExecutor, so its deadline can be enforced
+ * while the model client is still blocked. The permit is returned when the call really ends,
+ * a call abandoned at its deadline keeps counting against the limit until the provider answers.
+ */
+@Service
+@Slf4j
+public class AiGatewayImpl implements AiGateway {
+
+    private final ThreadPoolTaskExecutor callExecutor;
+    private final AppProperties.Ai config;
+    private final MeterRegistry meterRegistry;
+
+    private final String provider;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer queueWait;
+
+    public AiGatewayImpl(@Qualifier("aiCallExecutor") ThreadPoolTaskExecutor callExecutor,
+                         AppProperties appProperties,
+                         MeterRegistry meterRegistry) {
+        this.callExecutor = callExecutor;
+        this.config = appProperties.getAi();
+        this.meterRegistry = meterRegistry;
+
+        this.provider = config.getProvider();
+        int maxConcurrency = config.getGateway().getMaxConcurrency();
+        this.permits = new Semaphore(maxConcurrency, true);
+
+        this.queueWait = Timer.builder("ai.gateway.queue.wait")
+                .tag("provider", provider)
+                .description("Time an AI call waited for a free slot")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        Gauge.builder("ai.gateway.inflight", permits, p -> maxConcurrency - p.availablePermits())
+                .tag("provider", provider)
+                .description("AI calls currently running against the provider")
+                .register(meterRegistry);
+
+        Gauge.builder("ai.gateway.queued", waiting, AtomicInteger::get)
+                .tag("provider", provider)
+                .description("AI calls waiting for a slot")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T call(String purpose, Supplier<T> call) {
+        int maxRetries = config.getMaxRetries();
+        // One deadline for the whole call, retries and backoff included
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getTimeoutSeconds());
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                T result = attempt(purpose, call, deadline);
+                count(purpose, "success");
+                return result;
+            } catch (ShedException e) {
+                count(purpose, "shed");
+                throw new AiServiceException(ErrorMessages.AI_BUSY);
+            } catch (CallTimeoutException e) {
+                // The deadline is spent, another attempt would only hold the caller longer
+                count(purpose, "timeout");
+                throw new AiServiceException(ErrorMessages.AI_TIMEOUT);
+            } catch (RuntimeException e) {
+                long pauseMs = backoffMs(attempt);
+
+                if (attempt >= maxRetries || !isRetryable(e)
+                        || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pauseMs) >= deadline) {
+                    count(purpose, "failure");
+                    throw e;
+                }
+
+                meterRegistry.counter("ai.gateway.retries", "provider", provider, "purpose", purpose).increment();
+                log.debug("AI call {} failed (attempt {}), retrying: {}", purpose, attempt + 1, e.getMessage());
+                sleep(pauseMs);
+            }
+        }
+    }
+
+    @Override
+    public <T> Flux<T> stream(String purpose, Supplier<Flux<T>> call) {
+        Duration deadline = Duration.ofSeconds(config.getTimeoutSeconds());
+
+        return Flux.using(
+                () -> {
+                    if (!permits.tryAcquire()) {
+                        count(purpose, "shed");
+                        throw new AiServiceException(ErrorMessages.AI_BUSY);
+                    }
+                    return permits;
+                },
+                permit -> call.get()
+                        .timeout(deadline)
+                        .doOnComplete(() -> count(purpose, "success"))
+                        .doOnError(e -> count(purpose, e instanceof TimeoutException ? "timeout" : "failure")),
+                Semaphore::release);
+    }
+
+    private <T> T attempt(String purpose, Supplier<T> call, long deadline) {
+        long timeoutMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+
+        if (waiting.incrementAndGet() > config.getGateway().getMaxQueued()) {
+            waiting.decrementAndGet();
+            log.warn("AI gateway queue full ({} waiting), shedding {} call", config.getGateway().getMaxQueued(), purpose);
+            throw new ShedException();
+        }
+
+        long queuedAt = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShedException();
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        long waitedNanos = System.nanoTime() - queuedAt;
+        queueWait.record(waitedNanos, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            log.warn("No AI slot within {} ms, shedding {} call", timeoutMs, purpose);
+            throw new ShedException();
+        }
+
+        Future<T> future;
+        try {
+            future = callExecutor.submit(() -> {
+                try {
+                    return call.get();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw new ShedException();
+        }
+
+        // Time spent queueing counts towards the deadline
+        long remainingMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        try {
+            return future.get(remainingMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new CallTimeoutException();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AiServiceException(ErrorMessages.AI_SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new AiServiceException(ErrorMessages.format(ErrorMessages.AI_REQUEST_FAILED, e.getCause().getMessage()));
+        }
+    }
+
+    /**
+     * Bad requests, auth errors and our own give-ups fail the same way on every attempt
+     */
+    private boolean isRetryable(RuntimeException e) {
+        return !(e instanceof IllegalArgumentException
+                || e instanceof NonTransientAiException
+                || e instanceof AiServiceException);
+    }
+
+    /**
+     * Full jitter: uniform in [0, min(max, base * 2^attempt)]
+     */
+    private long backoffMs(int attempt) {
+        AppProperties.Ai.Gateway gateway = config.getGateway();
+        long ceiling = Math.min(gateway.getBackoffMaxMs(), gateway.getBackoffBaseMs() << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long pauseMs) {
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceException(ErrorMessages.AI_SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private void count(String purpose, String outcome) {
+        meterRegistry.counter("ai.gateway.calls", "provider", provider, "purpose", purpose, "outcome", outcome)
+                .increment();
+    }
+
+    private static class ShedException extends RuntimeException {
+        ShedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static class CallTimeoutException extends RuntimeException {
+        CallTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.service.ai.AiResponseCacheService;
+import com.codearena.backend.utils.constant.AiCachePolicy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+@Slf4j
+public class AiResponseCacheServiceImpl implements AiResponseCacheService {
+
+    private static final String CACHE_PREFIX = "ai:cache:";
+    private static final int EVICT_BATCH = 500;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AppProperties.Ai.Cache config;
+    private final MeterRegistry meterRegistry;
+
+    // Local tier, access-ordered so the eldest entry is the least recently used
+    private final Map<String, LocalEntry> local;
+
+    private final Map<AiCachePolicy, LongAdder> hits = new EnumMap<>(AiCachePolicy.class);
+    private final Map<AiCachePolicy, LongAdder> misses = new EnumMap<>(AiCachePolicy.class);
+
+    public AiResponseCacheServiceImpl(StringRedisTemplate stringRedisTemplate,
+                                      AppProperties appProperties,
+                                      MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.config = appProperties.getAi().getCache();
+        this.meterRegistry = meterRegistry;
+
+        int maxEntries = config.getLocalMaxEntries();
+        this.local = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        for (AiCachePolicy policy : AiCachePolicy.values()) {
+            hits.put(policy, new LongAdder());
+            misses.put(policy, new LongAdder());
+
+            Gauge.builder("ai.cache.hit.ratio", this, service -> service.hitRate(policy))
+                    .tag("policy", tag(policy))
+                    .description("Share of AI requests answered from the response cache")
+                    .register(meterRegistry);
+        }
+
+        Gauge.builder("ai.cache.local.size", local, Map::size)
+                .description("Entries in the local AI response cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String key(AiCachePolicy policy, String... parts) {
+        StringBuilder canonical = new StringBuilder();
+        for (String part : parts) {
+            canonical.append(canonicalize(policy, part)).append('\u0000');
+        }
+        return CACHE_PREFIX + tag(policy) + ":" + sha256(canonical.toString());
+    }
+
+    @Override
+    public Optional<String> get(AiCachePolicy policy, String key) {
+        if (!isEnabled(policy)) {
+            return Optional.empty();
+        }
+
+        LocalEntry entry = local.get(key);
+        if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+            hit(policy, "local");
+            return Optional.of(entry.response());
+        }
+
+        try {
+            String value = stringRedisTemplate.opsForValue().get(key);
+            if (value != null) {
+                putLocal(policy, key, value);
+                hit(policy, "redis");
+                return Optional.of(value);
+            }
+        } catch (Exception e) {
+            log.warn("AI cache read failed for {}: {}", key, e.getMessage());
+        }
+
+        misses.get(policy).increment();
+        meterRegistry.counter("ai.cache", "policy", tag(policy), "result", "miss", "tier", "none").increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(AiCachePolicy policy, String key, String response) {
+        if (!isEnabled(policy) || response == null || response.isBlank()) {
+            return;
+        }
+
+        putLocal(policy, key, response);
+
+        try {
+            stringRedisTemplate.opsForValue().set(key, response, ttl(policy));
+        } catch (Exception e) {
+            log.warn("AI cache write failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public long evict(AiCachePolicy policy) {
+        String prefix = CACHE_PREFIX + (policy != null ? tag(policy) + ":" : "");
+
+        synchronized (local) {
+            local.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+
+        long removed = 0;
+        try (Cursor<String> cursor = stringRedisTemplate.scan(
+                ScanOptions.scanOptions().match(prefix + "*").count(EVICT_BATCH).build())) {
+
+            List<String> batch = new ArrayList<>(EVICT_BATCH);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == EVICT_BATCH) {
+                    removed += unlink(batch);
+                }
+            }
+            removed += unlink(batch);
+        } catch (Exception e) {
+            log.warn("AI cache eviction in Redis failed for {}: {}", prefix, e.getMessage());
+        }
+
+        log.info("🧹 Evicted {} AI cache entries for {}", removed, policy != null ? policy : "all policies");
+        return removed;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (AiCachePolicy policy : AiCachePolicy.values()) {
+            stats.put(tag(policy), Map.of(
+                    "enabled", isEnabled(policy),
+                    "ttlMinutes", ttl(policy).toMinutes(),
+                    "hits", hits.get(policy).sum(),
+                    "misses", misses.get(policy).sum(),
+                    "hitRate", hitRate(policy)));
+        }
+        return stats;
+    }
+
+    private long unlink(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long count = stringRedisTemplate.unlink(keys);
+        keys.clear();
+        return count != null ? count : 0;
+    }
+
+    private void putLocal(AiCachePolicy policy, String key, String response) {
+        if (config.getLocalMaxEntries() == 0) {
+            return;
+        }
+        local.put(key, new LocalEntry(response, System.currentTimeMillis() + ttl(policy).toMillis()));
+    }
+
+    private void hit(AiCachePolicy policy, String tier) {
+        hits.get(policy).increment();
+        meterRegistry.counter("ai.cache", "policy", tag(policy), "result", "hit", "tier", tier).increment();
+    }
+
+    private double hitRate(AiCachePolicy policy) {
+        long hitCount = hits.get(policy).sum();
+        long total = hitCount + misses.get(policy).sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private boolean isEnabled(AiCachePolicy policy) {
+        return config.isEnabled() && ttl(policy).toMinutes() > 0;
+    }
+
+    private Duration ttl(AiCachePolicy policy) {
+        return Duration.ofMinutes(switch (policy) {
+            case HINT -> config.getHintTtlMinutes();
+            case REVIEW -> config.getReviewTtlMinutes();
+            case RECOMMENDATION -> config.getRecommendationTtlMinutes();
+        });
+    }
+
+    /**
+     * Line endings and trailing whitespace never change the answer. Hint inputs are prose,
+     * so case and inner whitespace are folded too; code keeps its indentation (Python).
+     */
+    private String canonicalize(AiCachePolicy policy, String part) {
+        if (part == null) {
+            return "";
+        }
+        String canonical = part
+                .replace("\r\n", "\n")
+                .replaceAll("[ \\t]+\n", "\n")
+                .strip();
+
+        if (policy == AiCachePolicy.HINT) {
+            canonical = canonical.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        }
+        return canonical;
+    }
+
+    private static String tag(AiCachePolicy policy) {
+        return policy.name().toLowerCase(Locale.ROOT);
+    }
+
+    private String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record LocalEntry(String response, long expiresAt) {
+    }
+}
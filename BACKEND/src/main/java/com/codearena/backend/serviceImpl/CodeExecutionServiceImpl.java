@@ -1,56 +1,113 @@
 package com.codearena.backend.serviceImpl;
 
 
+import com.codearena.backend.dto.CachedVerdictDTO;
 import com.codearena.backend.dto.CodeExecutionDTO;
 import com.codearena.backend.dto.CodeExecutionResultDTO; // <-- ADDED
+import com.codearena.backend.dto.ExecutionRequestDTO;
+import com.codearena.backend.dto.ExecutionResultDTO;
+import com.codearena.backend.dto.JudgeJobDTO;
+import com.codearena.backend.config.AppProperties;
 import com.codearena.backend.entity.*;
+import com.codearena.backend.exception.BadRequestException;
+import com.codearena.backend.exception.JudgeQueueFullException;
 import com.codearena.backend.exception.ResourceNotFoundException;
 import com.codearena.backend.repository.CodingQuestionRepository;
 import com.codearena.backend.repository.RoomRepository;
 import com.codearena.backend.repository.SubmissionRepository;
 import com.codearena.backend.repository.TestCaseRepository;
 import com.codearena.backend.service.CodeExecutionService;
+import com.codearena.backend.service.JudgeQueueService;
 import com.codearena.backend.service.UserService;
+import com.codearena.backend.service.VerdictCacheService;
+import com.codearena.backend.utils.JudgeHarness;
+import com.codearena.backend.utils.constant.ErrorMessages;
+import com.codearena.backend.utils.constant.JudgePriority;
 import com.codearena.backend.utils.constant.Status;
 import com.codearena.backend.utils.constant.SubmissionStatus;
-import org.json.JSONArray;
-import org.json.JSONObject;
-import kong.unirest.HttpResponse;
-import kong.unirest.JsonNode;
-import kong.unirest.Unirest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 
 @Service
+@Slf4j
 public class CodeExecutionServiceImpl implements CodeExecutionService {
 
-    private static final String PISTON_API_URL = "https://emkc.org/api/v2/piston/execute";
     private final CodingQuestionRepository codingQuestionRepository;
     private final TestCaseRepository testCaseRepository;
     private final SubmissionRepository submissionRepository;
     private final UserService userService;
     private final RoomRepository roomRepository;
+    private final JudgeQueueService judgeQueueService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AppProperties appProperties;
+    private final ThreadPoolTaskExecutor testCaseExecutor;
+    private final ResilientExecutionRouter executionRouter;
+    private final VerdictCacheService verdictCacheService;
+    private final ExecutionSingleFlight executionSingleFlight;
 
     public CodeExecutionServiceImpl(CodingQuestionRepository codingQuestionRepository,
                              TestCaseRepository testCaseRepository,
                              SubmissionRepository submissionRepository,
                              UserService userService,
-                             RoomRepository roomRepository) {
+                             RoomRepository roomRepository,
+                             JudgeQueueService judgeQueueService,
+                             SimpMessagingTemplate messagingTemplate,
+                             AppProperties appProperties,
+                             @Qualifier("testCaseExecutor") ThreadPoolTaskExecutor testCaseExecutor,
+                             ResilientExecutionRouter executionRouter,
+                             VerdictCacheService verdictCacheService,
+                             ExecutionSingleFlight executionSingleFlight) {
 
         this.codingQuestionRepository = codingQuestionRepository;
         this.testCaseRepository = testCaseRepository;
         this.submissionRepository = submissionRepository;
         this.userService = userService;
         this.roomRepository = roomRepository;
+        this.judgeQueueService = judgeQueueService;
+        this.messagingTemplate = messagingTemplate;
+        this.appProperties = appProperties;
+        this.testCaseExecutor = testCaseExecutor;
+        this.executionRouter = executionRouter;
+        this.verdictCacheService = verdictCacheService;
+        this.executionSingleFlight = executionSingleFlight;
     }
 
 
     @Override
     public CodeExecutionResultDTO runCode(CodeExecutionDTO request) {
 
+        // Lowest judge class, room and practice submissions go first
+        CompletableFuture<CodeExecutionResultDTO> future =
+                judgeQueueService.enqueue(JudgePriority.RUN, () -> runSample(request));
+
+        return await(future, null);
+    }
+
+    private CodeExecutionResultDTO runSample(CodeExecutionDTO request) {
+
         CodeExecutionResultDTO result = new CodeExecutionResultDTO();
 
         result.setExitCode(-1);
@@ -76,55 +133,34 @@ public class CodeExecutionServiceImpl implements CodeExecutionService {
 
             String stdin = sampleTest.getInputData();
 
-            // ---------- Build Payload ----------
-
-            JSONObject payload = new JSONObject();
-            payload.put("language", language);
-            payload.put("version", version);
-
-            JSONArray filesArray = new JSONArray();
-            JSONObject fileObject = new JSONObject();
-            fileObject.put("name", "Main." + getFileExtension(language));
-            fileObject.put("content", code);
-
-            filesArray.put(fileObject);
+            // ---------- Execute ----------
 
-            payload.put("files", filesArray);
-            payload.put("stdin", stdin);
-
-            // ---------- Call Piston ----------
-            System.out.println(payload.toString());
-            HttpResponse<JsonNode> response =
-                    Unirest.post(PISTON_API_URL)
-                            .header("Content-Type", "application/json")
-                            .body(payload.toString())
-                            .asJson();
-
-            kong.unirest.json.JSONObject body =
-                    response.getBody().getObject();
+            ExecutionResultDTO run = execute(
+                    ExecutionRequestDTO.builder()
+                            .language(language)
+                            .version(version)
+                            .fileName("Main." + getFileExtension(language))
+                            .source(code)
+                            .stdin(stdin)
+                            .build()
+            );
 
             // ---------- Compile Error ----------
 
-            if (body.has("compile")) {
+            if (run.isCompileError()) {
 
-                String compileError =
-                        body.getJSONObject("compile").optString("stderr", "Compile Error");
-
-                result.setStderr(compileError);
+                result.setStderr(run.getCompileOutput());
                 result.setExitCode(1);
 
                 return result;
             }
 
-            kong.unirest.json.JSONObject run =
-                    body.getJSONObject("run");
-
-            result.setStdout(run.optString("stdout", ""));
-            result.setStderr(run.optString("stderr", ""));
-            result.setExitCode(run.optInt("code", 0));
+            result.setStdout(run.getStdout());
+            result.setStderr(run.getStderr());
+            result.setExitCode(run.getExitCode());
 
-            result.setTime(run.optDouble("time", 0.0));
-            result.setMemory(run.optDouble("memory", 0.0));
+            result.setTime(run.getTime());
+            result.setMemory(run.getMemory());
 
             return result;
 
@@ -138,15 +174,11 @@ public class CodeExecutionServiceImpl implements CodeExecutionService {
     }
 
     @Override
-    public CodeExecutionResultDTO submitCode(
+    public JudgeJobDTO submitCode(
             CodeExecutionDTO request,
             int roomCode) {
 
-        CodeExecutionResultDTO result = new CodeExecutionResultDTO();
         User user = userService.getCurrentUser();
-        result.setExitCode(-1);
-        result.setTime(0.0);
-        result.setMemory(0.0);
 
         // ================= FETCH ROOM =================
 
@@ -172,374 +204,777 @@ public class CodeExecutionServiceImpl implements CodeExecutionService {
                         question.getId()
                 ) + 1;
 
-        // ================= FETCH TEST CASES =================
+        // ================= QUEUE JOB =================
 
-        List<TestCase> testCases =
-                testCaseRepository.findByCodingQuestionId(question.getId());
-
-        int passed = 0;
-        int total = testCases.size();
-
-        Submission submission = new Submission();
-
-        submission.setUser(user);
-        submission.setRoom(room);
-        submission.setQuestion(question);
-        submission.setLanguage(request.getLanguage());
-        submission.setSourceCode(request.getCode());
+        Submission submission = createPendingSubmission(user, room, question, request);
         submission.setAttemptNumber(attempt);
-        submission.setSubmittedAt(LocalDateTime.now());
+        submissionRepository.save(submission);
 
-        // ================= EXECUTION LOOP =================
+        // ================= VERDICT CACHE =================
 
-        try {
+        String cacheKey = verdictCacheService.key(
+                question.getId(), request.getLanguage(), request.getVersion(), request.getCode());
 
-            for (TestCase tc : testCases) {
+        Optional<CachedVerdictDTO> cached = verdictCacheService.get(cacheKey);
+        if (cached.isPresent()) {
+            CodeExecutionResultDTO result = applyCachedVerdict(submission, question, cached.get());
+            publishSubmissionResult(submission, result);
+            publishRoomResult(roomCode, submission, result);
 
-                String stdin = tc.getInputData();
+            JudgeJobDTO job = toJob(submission, roomCode);
+            job.setResult(result);
+            return job;
+        }
 
-                JSONObject payload = new JSONObject();
-                payload.put("language", request.getLanguage());
-                payload.put("version", request.getVersion());
+        // Snapshot before a worker starts mutating the submission
+        JudgeJobDTO job = toJob(submission, roomCode);
 
-                JSONArray filesArray = new JSONArray();
-                JSONObject fileObject = new JSONObject();
-                fileObject.put("name", "Main." + getFileExtension(request.getLanguage()));
-                fileObject.put("content", request.getCode());
+        try {
+            judgeQueueService.enqueue(JudgePriority.ROOM, () -> judge(submission, question, request, cacheKey))
+                    .whenComplete((result, error) -> publishRoomResult(roomCode, submission,
+                            error == null ? result : failJudging(submission, error)));
+        } catch (JudgeQueueFullException e) {
+            submissionRepository.delete(submission);
+            throw e;
+        }
 
-                filesArray.put(fileObject);
+        log.info("Queued submission {} for room {} (queue depth={})",
+                submission.getId(), roomCode, judgeQueueService.getQueueDepth(JudgePriority.ROOM));
 
-                payload.put("files", filesArray);
-                payload.put("stdin", stdin);
+        return job;
+    }
 
-                HttpResponse<JsonNode> response =
-                        Unirest.post(PISTON_API_URL)
-                                .header("Content-Type", "application/json")
-                                .body(payload.toString())
-                                .asJson();
 
-                kong.unirest.json.JSONObject body =
-                        response.getBody().getObject();
+    @Override
+    public CodeExecutionResultDTO submitCode(
+            CodeExecutionDTO request) {
 
-                // ================= COMPILE ERROR =================
+        User user = userService.getCurrentUser();
 
-                if (body.has("compile")) {
+        // ================= FETCH QUESTION =================
 
-                    String compileErr =
-                            body.getJSONObject("compile").optString("stderr");
+        CodingQuestion question =
+                codingQuestionRepository.findById(request.getCodingQuestionId())
+                        .orElseThrow(() -> new RuntimeException("Question not found"));
 
-                    submission.setStatus(SubmissionStatus.COMPILATION_ERROR);
-                    submission.setCompilerMessage(compileErr);
-                    submission.setScore(0);
+        Submission submission = createPendingSubmission(user, null, question, request);
+        submissionRepository.save(submission);
 
-                    submissionRepository.save(submission);
+        // ================= VERDICT CACHE =================
 
-                    result.setStderr(compileErr);
-                    result.setExitCode(1);
+        String cacheKey = verdictCacheService.key(
+                question.getId(), request.getLanguage(), request.getVersion(), request.getCode());
 
-                    return result;
-                }
+        Optional<CachedVerdictDTO> cached = verdictCacheService.get(cacheKey);
+        if (cached.isPresent()) {
+            CodeExecutionResultDTO result = applyCachedVerdict(submission, question, cached.get());
+            publishSubmissionResult(submission, result);
+            return result;
+        }
 
-                kong.unirest.json.JSONObject run =
-                        body.getJSONObject("run");
+        // Practice callers need the verdict, so wait on the queued job
+        CompletableFuture<CodeExecutionResultDTO> future;
+        try {
+            future = judgeQueueService.enqueue(JudgePriority.PRACTICE, () -> judge(submission, question, request, cacheKey));
+        } catch (JudgeQueueFullException e) {
+            submissionRepository.delete(submission);
+            throw e;
+        }
 
-                String stderr =
-                        run.optString("stderr", "").trim();
+        return await(future.exceptionally(error -> failJudging(submission, error)), submission.getId());
+    }
 
-                // ================= RUNTIME ERROR =================
+    /**
+     * Wait for a queued job the caller needs the answer of
+     */
+    private CodeExecutionResultDTO await(CompletableFuture<CodeExecutionResultDTO> future, String submissionId) {
+        try {
+            return future.get(appProperties.getJudge().getResultTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Judge job {} still running after timeout", submissionId != null ? submissionId : "(run)");
+            CodeExecutionResultDTO result = new CodeExecutionResultDTO();
+            result.setId(submissionId);
+            result.setExitCode(-1);
+            result.setStderr(ErrorMessages.JUDGE_TIMEOUT);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for judge", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Judge job failed", e.getCause());
+        }
+    }
 
-                if (!stderr.isEmpty()) {
+    @Override
+    public JudgeJobDTO getSubmissionJob(String jobId) {
+        User user = userService.getCurrentUser();
 
-                    submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
-                    submission.setCompilerMessage(stderr);
-                    submission.setScore(0);
+        Submission submission = submissionRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        ErrorMessages.format(ErrorMessages.SUBMISSION_NOT_FOUND, jobId)));
 
-                    submissionRepository.save(submission);
+        if (!submission.getUser().getId().equals(user.getId())) {
+            throw new BadRequestException(ErrorMessages.UNAUTHORIZED_ACCESS);
+        }
 
-                    result.setStderr(stderr);
-                    result.setExitCode(1);
+        Integer roomCode = submission.getRoom() != null ? submission.getRoom().getRoomCode() : null;
+        return toJob(submission, roomCode);
+    }
 
-                    return result;
-                }
+    // ================= JUDGING =================
 
-                String actual =
-                        normalize(run.optString("stdout"));
+    private Submission createPendingSubmission(User user,
+                                               Room room,
+                                               CodingQuestion question,
+                                               CodeExecutionDTO request) {
+        Submission submission = new Submission();
+        submission.setUser(user);
+        submission.setRoom(room);
+        submission.setQuestion(question);
+        submission.setLanguage(request.getLanguage());
+        submission.setSourceCode(request.getCode());
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setStatus(SubmissionStatus.PENDING);
+        return submission;
+    }
 
-                String expected =
-                        normalize(tc.getExpectedOutput());
+    /**
+     * Runs every test case of the question and stores the verdict on the submission.
+     * Executed on a judge worker thread, so it must not touch the security context.
+     * The cache key is resolved before queueing so a test case edit during judging
+     * cannot store this verdict under the new test set version.
+     */
+    private CodeExecutionResultDTO judge(Submission submission,
+                                         CodingQuestion question,
+                                         CodeExecutionDTO request,
+                                         String cacheKey) {
 
-                // ================= WRONG ANSWER =================
+        // ================= FETCH TEST CASES =================
 
-                if (!actual.equals(expected)) {
+        List<TestCase> testCases =
+                testCaseRepository.findByCodingQuestionIdOrderByOrderIndexAsc(question.getId());
 
-                    submission.setStatus(SubmissionStatus.WRONG_ANSWER);
-                    submission.setScore(0);
+        // ================= EXECUTION =================
 
-                    // Optional: store judge feedback in DB
-                    submission.setCompilerMessage(
-                            "TestCase " + tc.getOrderIndex()
-                                    + " Failed\nExpected: " + expected
-                                    + "\nFound: " + actual
-                    );
+        AppProperties.Judge judgeProperties = appProperties.getJudge();
 
-                    submissionRepository.save(submission);
+        // Each verdict is pushed as soon as it is known, hidden test data is never sent
+        Consumer<TestCaseOutcome> onOutcome = outcome ->
+                publishTestCaseResult(submission, testCases.indexOf(outcome.testCase()) + 1, testCases.size(), outcome);
 
-                    // Send detailed result to frontend
-                    result.setStdout(
-                            "❌ Wrong Answer at TestCase " + tc.getOrderIndex()
-                                    + "\nExpected Output:\n" + expected
-                                    + "\n\nYour Output:\n" + actual
-                    );
+        List<TestCaseOutcome> outcomes;
+        if (judgeProperties.isBatchTestCases() && JudgeHarness.supports(request.getLanguage())) {
+            outcomes = executeBatch(request, question, testCases, onOutcome);
+        } else if (judgeProperties.isParallelTestCases()) {
+            outcomes = executeParallel(request, question, testCases, onOutcome);
+        } else {
+            outcomes = executeSerial(request, question, testCases, onOutcome);
+        }
 
-                    result.setExitCode(1);
+        CodeExecutionResultDTO result = applyVerdict(submission, question, testCases.size(), outcomes);
+        publishSubmissionResult(submission, result);
+
+        // TLEs, MLEs and sandbox failures depend on load, only cache verdicts the code itself decides
+        boolean deterministic = outcomes.stream().allMatch(outcome ->
+                outcome.status() != null
+                        && outcome.status() != SubmissionStatus.TIME_LIMIT_EXCEEDED
+                        && outcome.status() != SubmissionStatus.MEMORY_LIMIT_EXCEEDED);
+
+        if (deterministic) {
+            verdictCacheService.put(cacheKey, CachedVerdictDTO.builder()
+                    .status(submission.getStatus())
+                    .score(submission.getScore())
+                    .compilerMessage(submission.getCompilerMessage())
+                    .executionTime(submission.getExecutionTime())
+                    .memoryUsed(submission.getMemoryUsed())
+                    .passedTestCases(submission.getPassedTestCases())
+                    .totalTestCases(submission.getTotalTestCases())
+                    .result(result)
+                    .build());
+        }
 
-                    return result;
-                }
+        return result;
+    }
 
+    /**
+     * A job that threw never reaches applyVerdict, without this its submission would stay PENDING
+     */
+    private CodeExecutionResultDTO failJudging(Submission submission, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        log.error("❌ Judging submission {} failed: {}", submission.getId(), cause.getMessage(), cause);
 
-                // ================= PASS =================
+        submission.setStatus(SubmissionStatus.INTERNAL_ERROR);
+        submission.setScore(0);
+        submission.setCompilerMessage(ErrorMessages.JUDGE_FAILED);
+        try {
+            submissionRepository.save(submission);
+        } catch (Exception e) {
+            log.error("Could not store failed verdict of submission {}: {}", submission.getId(), e.getMessage());
+        }
 
-                passed++;
+        CodeExecutionResultDTO result = new CodeExecutionResultDTO();
+        result.setId(submission.getId());
+        result.setExitCode(-1);
+        result.setStderr(ErrorMessages.JUDGE_FAILED);
+        publishSubmissionResult(submission, result);
+        return result;
+    }
 
-                // Save max execution metrics
-                submission.setExecutionTime(
-                        Math.max(submission.getExecutionTime(),
-                                run.optDouble("time", 0.0)));
+    /**
+     * Fill the submission from a cached verdict instead of running the code.
+     * The score comes from the question as it is now, points can change without the test set changing.
+     */
+    private CodeExecutionResultDTO applyCachedVerdict(Submission submission,
+                                                      CodingQuestion question,
+                                                      CachedVerdictDTO cached) {
+        submission.setStatus(cached.getStatus());
+        submission.setScore(cached.getStatus() == SubmissionStatus.ACCEPTED ? question.getPoints() : 0);
+        submission.setCompilerMessage(cached.getCompilerMessage());
+        submission.setExecutionTime(cached.getExecutionTime());
+        submission.setMemoryUsed(cached.getMemoryUsed());
+        submission.setPassedTestCases(cached.getPassedTestCases());
+        submission.setTotalTestCases(cached.getTotalTestCases());
+        submissionRepository.save(submission);
+
+        log.info("♻️ Submission {} reused cached verdict {}", submission.getId(), cached.getStatus());
 
-                submission.setMemoryUsed(
-                        Math.max(submission.getMemoryUsed(),
-                                run.optDouble("memory", 0.0)));
+        CodeExecutionResultDTO result = new CodeExecutionResultDTO();
+        BeanUtils.copyProperties(cached.getResult(), result);
+        result.setId(submission.getId());
+        return result;
+    }
+
+    /**
+     * Runs test cases one by one and stops at the first failure
+     */
+    private List<TestCaseOutcome> executeSerial(CodeExecutionDTO request,
+                                                CodingQuestion question,
+                                                List<TestCase> testCases,
+                                                Consumer<TestCaseOutcome> onOutcome) {
+        List<TestCaseOutcome> outcomes = new ArrayList<>();
+
+        for (TestCase tc : testCases) {
+            TestCaseOutcome outcome = executeTestCase(request, question, tc);
+            outcomes.add(outcome);
+            onOutcome.accept(outcome);
+
+            if (!outcome.passed()) {
+                break;
             }
+        }
+        return outcomes;
+    }
 
-            // ================= ACCEPTED =================
+    /**
+     * Runs up to max-concurrent-test-cases at once.
+     * When a case fails, every sibling after it is cancelled, but the cases before it
+     * still finish so the reported failure is the lowest orderIndex, same as the serial loop.
+     */
+    private List<TestCaseOutcome> executeParallel(CodeExecutionDTO request,
+                                                  CodingQuestion question,
+                                                  List<TestCase> testCases,
+                                                  Consumer<TestCaseOutcome> onOutcome) {
+        int total = testCases.size();
+        TestCaseOutcome[] outcomes = new TestCaseOutcome[total];
+        AtomicReferenceArray<Future<?>> futures = new AtomicReferenceArray<>(total);
+        AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        Semaphore permits = new Semaphore(appProperties.getJudge().getMaxConcurrentTestCases());
 
-            submission.setStatus(SubmissionStatus.ACCEPTED);
-            submission.setScore(question.getPoints());
+        try {
+            for (int i = 0; i < total; i++) {
+                permits.acquire();
 
-            submission.setPassedTestCases(passed);
-            submission.setTotalTestCases(total);
+                if (i > firstFailure.get()) {
+                    permits.release();
+                    break;
+                }
 
-            submissionRepository.save(submission);
+                int index = i;
+                futures.set(i, testCaseExecutor.submit(() -> {
+                    try {
+                        TestCaseOutcome outcome = executeTestCase(request, question, testCases.get(index));
+                        outcomes[index] = outcome;
+
+                        if (outcome.passed()) {
+                            onOutcome.accept(outcome);
+                        } else {
+                            int failure = firstFailure.accumulateAndGet(index, Math::min);
+                            cancelAfter(futures, failure);
+
+                            // Cancelled siblings after the first failure stay silent
+                            if (failure == index) {
+                                onOutcome.accept(outcome);
+                            }
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
 
-            result.setPassedTestCases(passed);
-            result.setTotalTestCases(total);
+            // Everything before the first failure has to finish to know the verdict
+            for (int i = 0; i < total && i <= firstFailure.get(); i++) {
+                Future<?> future = futures.get(i);
+                if (future == null) {
+                    break;
+                }
+                try {
+                    future.get();
+                } catch (CancellationException ignored) {
+                    // Sibling of an earlier failure
+                }
+            }
 
-            result.setStdout("✅ Accepted");
-            result.setExitCode(0);
+            // Stragglers submitted while the failure was being recorded
+            cancelAfter(futures, firstFailure.get());
 
-            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAfter(futures, -1);
+            throw new RuntimeException("Interrupted while judging", e);
+        } catch (ExecutionException e) {
+            cancelAfter(futures, -1);
+            throw new RuntimeException("Test case execution failed", e.getCause());
+        }
 
-        } catch (Exception e) {
+        List<TestCaseOutcome> ordered = new ArrayList<>();
+        for (TestCaseOutcome outcome : outcomes) {
+            if (outcome == null) {
+                break;
+            }
+            ordered.add(outcome);
+            if (!outcome.passed()) {
+                break;
+            }
+        }
+        return ordered;
+    }
 
-            submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
-            submission.setCompilerMessage(e.getMessage());
-            submission.setScore(0);
+    private void cancelAfter(AtomicReferenceArray<Future<?>> futures, int index) {
+        if (index >= futures.length()) {
+            return;
+        }
+        for (int i = index + 1; i < futures.length(); i++) {
+            Future<?> future = futures.get(i);
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
 
-            submissionRepository.save(submission);
+    /**
+     * Compiles once and runs every test case in a single sandbox call through the judge harness.
+     * Cases the harness never reported (the sandbox ran out of run_timeout) fall back to one
+     * call each, so a slow batch never turns into a false TLE.
+     */
+    private List<TestCaseOutcome> executeBatch(CodeExecutionDTO request,
+                                               CodingQuestion question,
+                                               List<TestCase> testCases,
+                                               Consumer<TestCaseOutcome> onOutcome) {
 
-            result.setStderr("Execution failed");
-            return result;
+        List<TestCaseOutcome> outcomes = new ArrayList<>();
+
+        if (testCases.isEmpty()) {
+            return outcomes;
         }
-    }
 
+        long timeLimitMs = timeLimitMs(question);
 
-    @Override
-    public CodeExecutionResultDTO submitCode(
-            CodeExecutionDTO request) {
+        try {
 
-        CodeExecutionResultDTO result = new CodeExecutionResultDTO();
-        User user = userService.getCurrentUser();
-        result.setExitCode(-1);
-        result.setTime(0.0);
-        result.setMemory(0.0);
+            JudgeHarness.Program program = JudgeHarness.build(
+                    request.getLanguage(),
+                    request.getCode(),
+                    testCases.stream().map(TestCase::getInputData).toList(),
+                    timeLimitMs,
+                    (long) question.getMemoryLimit()
+            );
+
+            ExecutionResultDTO run = execute(
+                    ExecutionRequestDTO.builder()
+                            .language(request.getLanguage())
+                            .version(request.getVersion())
+                            .fileName(program.fileName())
+                            .source(program.source())
+                            .stdin(program.stdin())
+                            .runTimeoutMs(Math.min(
+                                    appProperties.getJudge().getBatchRunTimeoutMs(),
+                                    timeLimitMs * testCases.size() + 1000))
+                            .memoryLimitMb((long) question.getMemoryLimit())
+                            .build()
+            );
+
+            // ================= COMPILE ERROR =================
+
+            JudgeHarness.Report report =
+                    JudgeHarness.parse(run.getStdout());
+
+            String compileError = run.isCompileError() ? run.getCompileOutput() : report.compileError();
+
+            if (compileError != null) {
+                TestCaseOutcome outcome = TestCaseOutcome.failed(testCases.get(0),
+                        SubmissionStatus.COMPILATION_ERROR, compileError, null);
+                outcomes.add(outcome);
+                onOutcome.accept(outcome);
+                return outcomes;
+            }
 
-        // ================= FETCH ROOM =================
+            // ================= PER TEST CASE =================
 
+            // Classify everything first so a malformed report falls back cleanly
+            List<TestCaseOutcome> reported = new ArrayList<>();
+            for (JudgeHarness.CaseResult caseResult : report.cases()) {
+                reported.add(classify(testCases.get(caseResult.index()), question, caseResult));
+            }
 
+            for (TestCaseOutcome outcome : reported) {
+                outcomes.add(outcome);
+                onOutcome.accept(outcome);
 
-        // ================= FETCH QUESTION =================
+                if (!outcome.passed()) {
+                    return outcomes;
+                }
+            }
 
-        CodingQuestion question =
-                codingQuestionRepository.findById(request.getCodingQuestionId())
-                        .orElseThrow(() -> new RuntimeException("Question not found"));
+        } catch (Exception e) {
+            log.warn("Batch judging failed, falling back to one call per test case: {}", e.getMessage());
+            outcomes.clear();
+        }
 
-        // ================= ATTEMPT NUMBER =================
+        // ================= UNREPORTED CASES =================
 
-//        int attempt =
-//                submissionRepository.countByUserIdAndRoomIdAndQuestionId(
-//                        user.getId(),
-//                        room.getId(),
-//                        question.getId()
-//                ) + 1;
+        for (TestCase tc : testCases.subList(outcomes.size(), testCases.size())) {
+            TestCaseOutcome outcome = executeTestCase(request, question, tc);
+            outcomes.add(outcome);
+            onOutcome.accept(outcome);
 
-        // ================= FETCH TEST CASES =================
+            if (!outcome.passed()) {
+                break;
+            }
+        }
+        return outcomes;
+    }
 
-        List<TestCase> testCases =
-                testCaseRepository.findByCodingQuestionId(question.getId());
+    // Harness reports ms / KB, submissions store seconds / MB
+    private TestCaseOutcome classify(TestCase tc, CodingQuestion question, JudgeHarness.CaseResult caseResult) {
+        double memoryMb = caseResult.memoryKb() / 1024.0;
+        // The harness peak is the program's own usage (heap for Java), so it can be held to the limit
+        boolean memoryExceeded = caseResult.memoryExceeded()
+                || (question.getMemoryLimit() > 0 && memoryMb > question.getMemoryLimit());
+        return classify(tc, caseResult.timedOut(), memoryExceeded, caseResult.exitCode(),
+                caseResult.stderr(), caseResult.stdout(), caseResult.timeMs() / 1000.0, memoryMb);
+    }
 
-        int passed = 0;
-        int total = testCases.size();
+    /**
+     * One verdict rule for the batch harness and the per-case path, so a program gets the same
+     * verdict whichever way app.judge.batch-test-cases is set
+     */
+    private TestCaseOutcome classify(TestCase tc,
+                                     boolean timedOut,
+                                     boolean memoryExceeded,
+                                     int exitCode,
+                                     String stderr,
+                                     String stdout,
+                                     double timeSeconds,
+                                     double memoryMb) {
+
+        // ================= TIME LIMIT =================
+
+        if (timedOut) {
+            return TestCaseOutcome.failed(tc, SubmissionStatus.TIME_LIMIT_EXCEEDED,
+                    ErrorMessages.TIME_LIMIT_EXCEEDED, null);
+        }
 
-        Submission submission = new Submission();
+        // ================= MEMORY LIMIT =================
 
-        submission.setUser(user);
-//        submission.setRoom(room);
-        submission.setQuestion(question);
-        submission.setLanguage(request.getLanguage());
-        submission.setSourceCode(request.getCode());
-//        submission.setAttemptNumber(attempt);
-        submission.setSubmittedAt(LocalDateTime.now());
+        if (memoryExceeded) {
+            return TestCaseOutcome.failed(tc, SubmissionStatus.MEMORY_LIMIT_EXCEEDED,
+                    ErrorMessages.MEMORY_LIMIT_EXCEEDED, null);
+        }
 
-        // ================= EXECUTION LOOP =================
+        String error = stderr == null ? "" : stderr.trim();
 
-        try {
+        // ================= RUNTIME ERROR =================
 
-            for (TestCase tc : testCases) {
+        // 128+ is a signal (crash, memory limit); plain non-zero exits only count with stderr
+        if (!error.isEmpty() || exitCode >= 128) {
+            return TestCaseOutcome.failed(tc, SubmissionStatus.RUNTIME_ERROR,
+                    error.isEmpty() ? "Process exited with code " + exitCode : error, null);
+        }
 
-                String stdin = tc.getInputData();
+        String actual = normalize(stdout == null ? "" : stdout);
 
-                JSONObject payload = new JSONObject();
-                payload.put("language", request.getLanguage());
-                payload.put("version", request.getVersion());
+        // ================= WRONG ANSWER =================
 
-                JSONArray filesArray = new JSONArray();
-                JSONObject fileObject = new JSONObject();
-                fileObject.put("name", "Main." + getFileExtension(request.getLanguage()));
-                fileObject.put("content", request.getCode());
+        if (!actual.equals(normalize(tc.getExpectedOutput()))) {
+            return TestCaseOutcome.failed(tc, SubmissionStatus.WRONG_ANSWER, null, actual);
+        }
 
-                filesArray.put(fileObject);
+        // ================= PASS =================
 
-                payload.put("files", filesArray);
-                payload.put("stdin", stdin);
+        return new TestCaseOutcome(tc, SubmissionStatus.ACCEPTED, null, actual, timeSeconds, memoryMb);
+    }
 
-                HttpResponse<JsonNode> response =
-                        Unirest.post(PISTON_API_URL)
-                                .header("Content-Type", "application/json")
-                                .body(payload.toString())
-                                .asJson();
+    // CodingQuestion.timeLimit is in seconds
+    private long timeLimitMs(CodingQuestion question) {
+        double limit = question.getTimeLimit();
+        if (limit <= 0) {
+            return 2000;
+        }
+        return Math.round(limit * 1000);
+    }
 
-                kong.unirest.json.JSONObject body =
-                        response.getBody().getObject();
+    /**
+     * Runs one test case on the execution engine and classifies the output
+     */
+    private TestCaseOutcome executeTestCase(CodeExecutionDTO request, CodingQuestion question, TestCase tc) {
 
-                // ================= COMPILE ERROR =================
+        try {
 
-                if (body.has("compile")) {
+            ExecutionResultDTO run = execute(
+                    ExecutionRequestDTO.builder()
+                            .language(request.getLanguage())
+                            .version(request.getVersion())
+                            .fileName("Main." + getFileExtension(request.getLanguage()))
+                            .source(request.getCode())
+                            .stdin(tc.getInputData())
+                            .memoryLimitMb((long) question.getMemoryLimit())
+                            .build()
+            );
+
+            // ================= COMPILE ERROR =================
+
+            if (run.isCompileError()) {
+                return TestCaseOutcome.failed(tc, SubmissionStatus.COMPILATION_ERROR,
+                        run.getCompileOutput(), null);
+            }
 
-                    String compileErr =
-                            body.getJSONObject("compile").optString("stderr");
+            // Engines enforce the limit themselves and report whole-process memory (JVM included),
+            // a kill for memory surfaces as a signal below
+            return classify(tc, run.isTimedOut(), false, run.getExitCode(), run.getStderr(), run.getStdout(),
+                    run.getTime(), run.getMemory());
 
-                    submission.setStatus(SubmissionStatus.COMPILATION_ERROR);
-                    submission.setCompilerMessage(compileErr);
-                    submission.setScore(0);
+        } catch (Exception e) {
+            // Sandbox unreachable or broken, surfaces as INTERNAL_ERROR
+            return TestCaseOutcome.failed(tc, null, e.getMessage(), null);
+        }
+    }
 
-                    submissionRepository.save(submission);
+    private ExecutionResultDTO execute(ExecutionRequestDTO request) {
+        return executionSingleFlight.execute(executionRouter.currentEngine(), request, executionRouter::execute);
+    }
 
-                    result.setStderr(compileErr);
-                    result.setExitCode(1);
+    /**
+     * Turns ordered test case outcomes into the stored verdict and the user-facing result
+     */
+    private CodeExecutionResultDTO applyVerdict(Submission submission,
+                                                CodingQuestion question,
+                                                int total,
+                                                List<TestCaseOutcome> outcomes) {
 
-                    return result;
-                }
+        CodeExecutionResultDTO result = new CodeExecutionResultDTO();
+        result.setId(submission.getId());
+        result.setExitCode(-1);
+        result.setTime(0.0);
+        result.setMemory(0.0);
 
-                kong.unirest.json.JSONObject run =
-                        body.getJSONObject("run");
+        int passed = 0;
 
-                String stderr =
-                        run.optString("stderr", "").trim();
+        for (TestCaseOutcome outcome : outcomes) {
 
-                // ================= RUNTIME ERROR =================
+            if (outcome.passed()) {
 
-                if (!stderr.isEmpty()) {
+                passed++;
 
-                    submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
-                    submission.setCompilerMessage(stderr);
-                    submission.setScore(0);
+                // Save max execution metrics
+                submission.setExecutionTime(
+                        Math.max(submission.getExecutionTime(), outcome.time()));
 
-                    submissionRepository.save(submission);
+                submission.setMemoryUsed(
+                        Math.max(submission.getMemoryUsed(), outcome.memory()));
+                continue;
+            }
 
-                    result.setStderr(stderr);
-                    result.setExitCode(1);
+            submission.setScore(0);
+            result.setExitCode(1);
 
-                    return result;
-                }
+            if (outcome.status() == null) {
 
-                String actual =
-                        normalize(run.optString("stdout"));
+                // ================= EXECUTION FAILURE =================
 
-                String expected =
-                        normalize(tc.getExpectedOutput());
+                // Our side failed, not the program, so it must not read as a runtime error
+                submission.setStatus(SubmissionStatus.INTERNAL_ERROR);
+                submission.setCompilerMessage(outcome.message());
+                result.setExitCode(-1);
+                result.setStderr("Execution failed");
 
-                // ================= WRONG ANSWER =================
+            } else if (outcome.status() == SubmissionStatus.WRONG_ANSWER) {
 
-                if (!actual.equals(expected)) {
+                String expected = normalize(outcome.testCase().getExpectedOutput());
+                int orderIndex = outcome.testCase().getOrderIndex();
 
-                    submission.setStatus(SubmissionStatus.WRONG_ANSWER);
-                    submission.setScore(0);
+                submission.setStatus(SubmissionStatus.WRONG_ANSWER);
 
-                    // Optional: store judge feedback in DB
-                    submission.setCompilerMessage(
-                            "TestCase " + tc.getOrderIndex()
-                                    + " Failed\nExpected: " + expected
-                                    + "\nFound: " + actual
-                    );
+                // Optional: store judge feedback in DB
+                submission.setCompilerMessage(
+                        "TestCase " + orderIndex
+                                + " Failed\nExpected: " + expected
+                                + "\nFound: " + outcome.stdout()
+                );
 
-                    submissionRepository.save(submission);
+                // Send detailed result to frontend
+                result.setStdout(
+                        "❌ Wrong Answer at TestCase " + orderIndex
+                                + "\nExpected Output:\n" + expected
+                                + "\n\nYour Output:\n" + outcome.stdout()
+                );
 
-                    // Send detailed result to frontend
-                    result.setStdout(
-                            "❌ Wrong Answer at TestCase " + tc.getOrderIndex()
-                                    + "\nExpected Output:\n" + expected
-                                    + "\n\nYour Output:\n" + actual
-                    );
+            } else {
 
-                    result.setExitCode(1);
+                // COMPILATION_ERROR / RUNTIME_ERROR
+                submission.setStatus(outcome.status());
+                submission.setCompilerMessage(outcome.message());
+                result.setStderr(outcome.message());
+            }
 
-                    return result;
-                }
+            submissionRepository.save(submission);
+            return result;
+        }
 
+        // ================= ACCEPTED =================
 
-                // ================= PASS =================
+        submission.setStatus(SubmissionStatus.ACCEPTED);
+        submission.setScore(question.getPoints());
 
-                passed++;
+        submission.setPassedTestCases(passed);
+        submission.setTotalTestCases(total);
 
-                // Save max execution metrics
-                submission.setExecutionTime(
-                        Math.max(submission.getExecutionTime(),
-                                run.optDouble("time", 0.0)));
+        submissionRepository.save(submission);
 
-                submission.setMemoryUsed(
-                        Math.max(submission.getMemoryUsed(),
-                                run.optDouble("memory", 0.0)));
-            }
+        result.setPassedTestCases(passed);
+        result.setTotalTestCases(total);
 
-            // ================= ACCEPTED =================
+        result.setStdout("✅ Accepted");
+        result.setExitCode(0);
 
-            submission.setStatus(SubmissionStatus.ACCEPTED);
-            submission.setScore(question.getPoints());
+        return result;
+    }
 
-            submission.setPassedTestCases(passed);
-            submission.setTotalTestCases(total);
+    /**
+     * Result of one test case. A null status means the execution itself failed.
+     */
+    private record TestCaseOutcome(TestCase testCase,
+                                   SubmissionStatus status,
+                                   String message,
+                                   String stdout,
+                                   double time,
+                                   double memory) {
+
+        static TestCaseOutcome failed(TestCase testCase, SubmissionStatus status, String message, String stdout) {
+            return new TestCaseOutcome(testCase, status, message, stdout, 0.0, 0.0);
+        }
 
-            submissionRepository.save(submission);
+        boolean passed() {
+            return status == SubmissionStatus.ACCEPTED;
+        }
+    }
 
-            result.setPassedTestCases(passed);
-            result.setTotalTestCases(total);
+    // ================= PROGRESS EVENTS =================
+
+    /**
+     * Per-user progress, delivered to /user/queue/submission/{submissionId}
+     */
+    private void publishTestCaseResult(Submission submission, int position, int total, TestCaseOutcome outcome) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "TEST_CASE_RESULT");
+        event.put("submissionId", submission.getId());
+        event.put("testCase", position);
+        event.put("totalTestCases", total);
+        event.put("status", outcome.status() != null ? outcome.status() : SubmissionStatus.INTERNAL_ERROR);
+        event.put("passed", outcome.passed());
+        event.put("time", outcome.time());
+        event.put("memory", outcome.memory());
+        event.put("timestamp", System.currentTimeMillis());
+
+        sendToSubmitter(submission, event);
+    }
 
-            result.setStdout("✅ Accepted");
-            result.setExitCode(0);
+    private void publishSubmissionResult(Submission submission, CodeExecutionResultDTO result) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "SUBMISSION_RESULT");
+        event.put("submissionId", submission.getId());
+        event.put("status", submission.getStatus());
+        event.put("result", result);
+        event.put("timestamp", System.currentTimeMillis());
 
-            return result;
+        sendToSubmitter(submission, event);
+    }
 
+    private void sendToSubmitter(Submission submission, Map<String, Object> event) {
+        try {
+            messagingTemplate.convertAndSendToUser(
+                    submission.getUser().getUsername(),
+                    "/queue/submission/" + submission.getId(),
+                    event);
         } catch (Exception e) {
+            log.error("Failed to push progress for submission {}: {}", submission.getId(), e.getMessage());
+        }
+    }
 
-            submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
-            submission.setCompilerMessage(e.getMessage());
-            submission.setScore(0);
+    private void publishRoomResult(int roomCode, Submission submission, CodeExecutionResultDTO result) {
+        try {
+            Map<String, Object> event = new HashMap<>();
+            event.put("event", "SUBMISSION_RESULT");
+            event.put("jobId", submission.getId());
+            event.put("username", submission.getUser().getUsername());
+            event.put("questionId", submission.getQuestion().getId());
+            event.put("status", submission.getStatus());
+            event.put("result", result);
+            event.put("timestamp", System.currentTimeMillis());
+
+            messagingTemplate.convertAndSend("/topic/room/" + roomCode + "/submission", event);
+        } catch (Exception e) {
+            log.error("Failed to publish result for submission {}: {}", submission.getId(), e.getMessage());
+        }
+    }
 
-            submissionRepository.save(submission);
+    private JudgeJobDTO toJob(Submission submission, Integer roomCode) {
+        return JudgeJobDTO.builder()
+                .jobId(submission.getId())
+                .roomCode(roomCode)
+                .questionId(submission.getQuestion().getId())
+                .status(submission.getStatus())
+                .submittedAt(submission.getSubmittedAt())
+                .result(submission.getStatus() == SubmissionStatus.PENDING ? null : toResult(submission))
+                .build();
+    }
 
-            result.setStderr("Execution failed");
-            return result;
+    /**
+     * Rebuild the user-facing result from a judged submission row
+     */
+    private CodeExecutionResultDTO toResult(Submission submission) {
+        CodeExecutionResultDTO result = new CodeExecutionResultDTO();
+        result.setId(submission.getId());
+        result.setTime(submission.getExecutionTime());
+        result.setMemory(submission.getMemoryUsed());
+        result.setPassedTestCases(submission.getPassedTestCases());
+        result.setTotalTestCases(submission.getTotalTestCases());
+
+        switch (submission.getStatus()) {
+            case ACCEPTED -> {
+                result.setStdout("✅ Accepted");
+                result.setExitCode(0);
+            }
+            case WRONG_ANSWER -> {
+                result.setStdout("❌ Wrong Answer\n" + submission.getCompilerMessage());
+                result.setExitCode(1);
+            }
+            default -> {
+                result.setStderr(submission.getCompilerMessage());
+                result.setExitCode(1);
+            }
         }
+        return result;
     }
 
 
@@ -0,0 +1,360 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.CodeProfileDTO;
+import com.codearena.backend.repository.SubmissionRepository;
+import com.codearena.backend.service.ai.CodePatternAnalyzer;
+import com.codearena.backend.utils.constant.SubmissionStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Heuristic, language-agnostic pass over source text. It does not parse, so it can be fooled
+ * by unusual formatting, but it is cheap and good enough to tell a nested-loop brute force from
+ * a hash map or a memoized recursion.
+ *
+ * Comments and string literals are dropped first. Loops are nested by braces, or by
+ * indentation for Python; comprehensions count as one more level on their line.
+ */
+@Service
+@Slf4j
+public class CodePatternAnalyzerImpl implements CodePatternAnalyzer {
+
+    private static final int MAX_USERS = 10_000;
+    // Longer sources are cut, the profile only needs their shape
+    private static final int MAX_SOURCE_CHARS = 20_000;
+
+    private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern TRIPLE_QUOTED = Pattern.compile("(\"\"\"|''').*?\\1", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"(?:\\\\.|[^\"\\\\\\n])*\"|'(?:\\\\.|[^'\\\\\\n])*'");
+    private static final Pattern LINE_COMMENT = Pattern.compile("//[^\\n]*");
+    private static final Pattern HASH_COMMENT = Pattern.compile("#[^\\n]*");
+
+    private static final Pattern BRACE_TOKEN = Pattern.compile("\\b(for|while|do)\\b|[{}();]");
+    private static final Pattern PYTHON_LOOP = Pattern.compile("^(?:async\\s+)?(for|while)\\b");
+    private static final Pattern INLINE_FOR = Pattern.compile("\\bfor\\b");
+
+    private static final Pattern PYTHON_DEF = Pattern.compile("^([ \\t]*)def\\s+(\\w+)\\s*\\(", Pattern.MULTILINE);
+    private static final Pattern BRACE_FUNCTION = Pattern.compile(
+            "\\b(\\w+)\\s*\\([^;{}()]*\\)\\s*(?:const\\s*)?(?:throws\\s+[\\w.,\\s]+)?\\{");
+    private static final Set<String> NOT_FUNCTIONS = Set.of(
+            "if", "for", "while", "switch", "catch", "synchronized", "return", "else", "do", "try", "function");
+
+    private static final Map<String, Pattern> COLLECTIONS = Map.of(
+            "hash", Pattern.compile("\\b(?:HashMap|HashSet|LinkedHashMap|TreeMap|TreeSet|Map|Set|unordered_map|unordered_set|map|set)\\s*<"
+                    + "|\\b(?:dict|set|defaultdict|Counter)\\s*\\(|\\bnew\\s+(?:Map|Set)\\b"),
+            "stack_queue", Pattern.compile("\\b(?:Stack|Deque|ArrayDeque|Queue|LinkedList|stack|queue|deque)\\s*<"
+                    + "|\\bdeque\\s*\\("),
+            "heap", Pattern.compile("\\b(?:PriorityQueue|priority_queue|heapq|heappush|heapify)\\b"),
+            "sort", Pattern.compile("\\bsort(?:ed)?\\s*\\("),
+            "memo", Pattern.compile("\\b(?:dp|memo)\\b|lru_cache|@cache\\b"));
+
+    private final SubmissionRepository submissionRepository;
+    private final AppProperties.Ai.Selector config;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CachedProfile> profiles = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedProfile> eldest) {
+                    return size() > MAX_USERS;
+                }
+            });
+
+    public CodePatternAnalyzerImpl(SubmissionRepository submissionRepository,
+                                   AppProperties appProperties,
+                                   MeterRegistry meterRegistry) {
+        this.submissionRepository = submissionRepository;
+        this.config = appProperties.getAi().getSelector();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public CodeProfileDTO profile(String userId) {
+        CachedProfile cached = profiles.get(userId);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            count("hit");
+            return cached.profile();
+        }
+        count("miss");
+
+        List<Sample> samples = new ArrayList<>();
+        for (Object[] row : submissionRepository.findRecentCode(userId, PageRequest.of(0, config.getCodeProfileSamples()))) {
+            SubmissionStatus status = (SubmissionStatus) row[2];
+            samples.add(new Sample((String) row[0], (String) row[1], status != null ? status.name() : null));
+        }
+
+        CodeProfileDTO profile = analyze(samples);
+        log.debug("Code profile of user {} from {} submissions: {}", userId, samples.size(), profile);
+
+        long ttlMillis = config.getCodeProfileTtlMinutes() * 60_000L;
+        if (ttlMillis > 0) {
+            profiles.put(userId, new CachedProfile(profile, System.currentTimeMillis() + ttlMillis));
+        }
+        return profile;
+    }
+
+    @Override
+    public CodeProfileDTO analyze(List<Sample> samples) {
+        Map<String, Integer> collectionCounts = new TreeMap<>();
+        Map<String, Integer> languages = new TreeMap<>();
+        Map<String, Integer> verdicts = new TreeMap<>();
+        int analyzed = 0;
+        int maxDepth = 0;
+        int depthSum = 0;
+        int recursive = 0;
+
+        for (Sample sample : samples) {
+            if (sample.sourceCode() == null || sample.sourceCode().isBlank()) {
+                continue;
+            }
+            analyzed++;
+
+            String language = sample.language() != null ? sample.language().toLowerCase() : "unknown";
+            boolean python = language.startsWith("py");
+            String code = strip(sample.sourceCode(), python);
+
+            int depth = python ? indentLoopDepth(code) : braceLoopDepth(code);
+            maxDepth = Math.max(maxDepth, depth);
+            depthSum += depth;
+
+            if (python ? hasPythonRecursion(code) : hasBraceRecursion(code)) {
+                recursive++;
+            }
+
+            COLLECTIONS.forEach((name, pattern) -> {
+                if (pattern.matcher(code).find()) {
+                    collectionCounts.merge(name, 1, Integer::sum);
+                }
+            });
+
+            languages.merge(language, 1, Integer::sum);
+            if (sample.verdict() != null && !SubmissionStatus.PENDING.name().equals(sample.verdict())) {
+                verdicts.merge(sample.verdict(), 1, Integer::sum);
+            }
+        }
+
+        Map<String, Double> collectionUsage = new TreeMap<>();
+        int total = analyzed;
+        collectionCounts.forEach((name, uses) -> collectionUsage.put(name, (double) uses / total));
+
+        return CodeProfileDTO.builder()
+                .samples(analyzed)
+                .maxLoopDepth(maxDepth)
+                .averageLoopDepth(analyzed > 0 ? (double) depthSum / analyzed : 0)
+                .recursionRate(analyzed > 0 ? (double) recursive / analyzed : 0)
+                .collectionUsage(collectionUsage)
+                .languages(languages)
+                .verdicts(verdicts)
+                .build();
+    }
+
+    // ================= SOURCE SCAN =================
+
+    private static String strip(String source, boolean python) {
+        String code = source.length() > MAX_SOURCE_CHARS ? source.substring(0, MAX_SOURCE_CHARS) : source;
+        code = python
+                ? TRIPLE_QUOTED.matcher(code).replaceAll("\"\"")
+                : BLOCK_COMMENT.matcher(code).replaceAll(" ");
+        code = STRING_LITERAL.matcher(code).replaceAll("\"\"");
+        return (python ? HASH_COMMENT : LINE_COMMENT).matcher(code).replaceAll("");
+    }
+
+    /**
+     * Deepest loop nesting by braces. A loop without braces covers the next statement,
+     * and the while closing a do block is not a second loop.
+     */
+    private static int braceLoopDepth(String code) {
+        Deque<BlockKind> blocks = new ArrayDeque<>();
+        Matcher matcher = BRACE_TOKEN.matcher(code);
+        int openLoops = 0;
+        int parens = 0;
+        // Loop header seen, its body not opened yet
+        BlockKind pending = BlockKind.NONE;
+        int braceless = 0;
+        boolean afterDoBlock = false;
+        int maxDepth = 0;
+
+        while (matcher.find()) {
+            String token = matcher.group();
+            switch (token) {
+                case "for", "while", "do" -> {
+                    if (token.equals("while") && afterDoBlock) {
+                        afterDoBlock = false;
+                        continue;
+                    }
+                    if (pending != BlockKind.NONE) {
+                        // Nested loop as the braceless body of the previous one
+                        braceless++;
+                    }
+                    pending = token.equals("do") ? BlockKind.DO : BlockKind.LOOP;
+                    maxDepth = Math.max(maxDepth, openLoops + braceless + 1);
+                }
+                case "(" -> parens++;
+                case ")" -> parens = Math.max(0, parens - 1);
+                case "{" -> {
+                    blocks.push(pending);
+                    if (pending != BlockKind.NONE) {
+                        openLoops++;
+                    }
+                    pending = BlockKind.NONE;
+                }
+                case "}" -> {
+                    BlockKind closed = blocks.isEmpty() ? BlockKind.NONE : blocks.pop();
+                    if (closed != BlockKind.NONE) {
+                        openLoops--;
+                    }
+                    afterDoBlock = closed == BlockKind.DO;
+                    braceless = 0;
+                }
+                case ";" -> {
+                    if (parens == 0) {
+                        // End of a braceless loop body
+                        pending = BlockKind.NONE;
+                        braceless = 0;
+                    }
+                }
+                default -> {
+                }
+            }
+            if (!token.equals("}") && !token.equals("while")) {
+                afterDoBlock = false;
+            }
+        }
+        return maxDepth;
+    }
+
+    private static int indentLoopDepth(String code) {
+        Deque<int[]> blocks = new ArrayDeque<>();
+        int openLoops = 0;
+        int maxDepth = 0;
+
+        for (String line : code.split("\n")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            int indent = indentOf(line);
+            while (!blocks.isEmpty() && blocks.peek()[0] >= indent) {
+                openLoops -= blocks.pop()[1];
+            }
+
+            boolean loop = PYTHON_LOOP.matcher(trimmed).find();
+            int inline = countMatches(INLINE_FOR, trimmed) - (loop && trimmed.startsWith("for") ? 1 : 0);
+            maxDepth = Math.max(maxDepth, openLoops + (loop ? 1 : 0) + Math.max(0, inline));
+
+            if (trimmed.endsWith(":")) {
+                blocks.push(new int[]{indent, loop ? 1 : 0});
+                if (loop) {
+                    openLoops++;
+                }
+            }
+        }
+        return maxDepth;
+    }
+
+    private static boolean hasPythonRecursion(String code) {
+        String[] lines = code.split("\n");
+        Matcher def = PYTHON_DEF.matcher(code);
+        while (def.find()) {
+            int defIndent = indentOf(def.group(1));
+            Pattern call = callOf(def.group(2));
+            int startLine = code.substring(0, def.start()).split("\n", -1).length;
+
+            for (int i = startLine; i < lines.length; i++) {
+                if (lines[i].isBlank()) {
+                    continue;
+                }
+                if (indentOf(lines[i]) <= defIndent) {
+                    break;
+                }
+                if (call.matcher(lines[i]).find()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasBraceRecursion(String code) {
+        Set<String> checked = new HashSet<>();
+        Matcher function = BRACE_FUNCTION.matcher(code);
+        while (function.find()) {
+            String name = function.group(1);
+            // Constructors and class names call like functions from outside, skip them
+            if (NOT_FUNCTIONS.contains(name) || Character.isUpperCase(name.charAt(0)) || !checked.add(name)) {
+                continue;
+            }
+
+            int bodyStart = function.end();
+            int depth = 1;
+            int i = bodyStart;
+            while (i < code.length() && depth > 0) {
+                char c = code.charAt(i++);
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                }
+            }
+
+            if (callOf(name).matcher(code.substring(bodyStart, i)).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern callOf(String name) {
+        // Plain calls, or through self. / this.
+        return Pattern.compile("(?:(?<![.\\w])|(?<=self\\.)|(?<=this\\.))" + Pattern.quote(name) + "\\s*\\(");
+    }
+
+    private static int indentOf(String line) {
+        int indent = 0;
+        for (char c : line.toCharArray()) {
+            if (c == ' ') {
+                indent++;
+            } else if (c == '\t') {
+                indent += 4;
+            } else {
+                break;
+            }
+        }
+        return indent;
+    }
+
+    private static int countMatches(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("practice.code.profile", "result", result).increment();
+    }
+
+    private enum BlockKind { NONE, LOOP, DO }
+
+    private record CachedProfile(CodeProfileDTO profile, long expiresAt) {
+    }
+}
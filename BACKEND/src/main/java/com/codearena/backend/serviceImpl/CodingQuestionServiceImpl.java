@@ -14,6 +14,7 @@ import com.codearena.backend.repository.CodingQuestionTagsRepository;
 import com.codearena.backend.repository.StarterCodeRepository;
 import com.codearena.backend.repository.TestCaseRepository;
 import com.codearena.backend.service.CodingQuestionService;
+import com.codearena.backend.service.VerdictCacheService;
 //import jakarta.transaction.Transactional;
 import com.codearena.backend.utils.constant.Difficulty;
 import com.codearena.backend.utils.constant.Language;
@@ -36,6 +37,7 @@ public class CodingQuestionServiceImpl implements CodingQuestionService {
     private final TestCaseRepository testCaseRepository;
     private final CodingQuestionTagsRepository codingQuestionTagsRepository;
     private final StarterCodeRepository starterCodeRepository;
+    private final VerdictCacheService verdictCacheService;
 
 
     private CodingQuestionDTO toDTO(CodingQuestion question) {
@@ -193,6 +195,9 @@ public class CodingQuestionServiceImpl implements CodingQuestionService {
             testCaseRepository.saveAll(newTcs);
         }
 
+        // Test cases and limits may have changed, cached verdicts for the old ones must not be reused
+        verdictCacheService.invalidateQuestion(id);
+
         return toDTO(updated);
     }
 
@@ -223,6 +228,7 @@ public class CodingQuestionServiceImpl implements CodingQuestionService {
 
         // Then delete the coding question
         codingQuestionRepository.delete(question);
+        verdictCacheService.invalidateQuestion(id);
     }
 
     @Override
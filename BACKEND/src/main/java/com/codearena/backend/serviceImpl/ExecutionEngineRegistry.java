@@ -0,0 +1,63 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.service.ExecutionEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Looks up execution engines by name. The active one comes from app.code-execution.engine,
+ * the fallback from app.code-execution.secondary-engine.
+ */
+@Component
+@Slf4j
+public class ExecutionEngineRegistry {
+
+    private final Map<String, ExecutionEngine> engines;
+    private final ExecutionEngine primary;
+    private final ExecutionEngine secondary;
+
+    public ExecutionEngineRegistry(List<ExecutionEngine> engines, AppProperties appProperties) {
+        this.engines = engines.stream()
+                .collect(Collectors.toMap(ExecutionEngine::name, Function.identity()));
+
+        this.primary = get(appProperties.getCodeExecution().getEngine());
+
+        String secondaryName = appProperties.getCodeExecution().getSecondaryEngine();
+        this.secondary = secondaryName == null || secondaryName.isBlank() ? null : get(secondaryName);
+        if (secondary == primary) {
+            throw new IllegalStateException("Secondary execution engine must differ from the primary: " + secondaryName);
+        }
+
+        primary.checkUsable();
+        if (secondary != null) {
+            secondary.checkUsable();
+        }
+
+        log.info("⚙️ Code execution engine: {}, fallback: {} (available: {})",
+                primary.name(), secondary == null ? "none" : secondary.name(), this.engines.keySet());
+    }
+
+    public ExecutionEngine primary() {
+        return primary;
+    }
+
+    public Optional<ExecutionEngine> secondary() {
+        return Optional.ofNullable(secondary);
+    }
+
+    public ExecutionEngine get(String name) {
+        ExecutionEngine engine = engines.get(name.toLowerCase());
+        if (engine == null) {
+            throw new IllegalStateException("Unknown code execution engine: " + name
+                    + " (available: " + engines.keySet() + ")");
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,95 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.exception.CodeExecutionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * JSON over the pooled execution HTTP client.
+ * Responses are streamed straight into the caller's record type, no intermediate JSON tree.
+ */
+@Component
+public class ExecutionHttpClient {
+
+    private static final int ERROR_BODY_PREVIEW = 300;
+
+    private final CloseableHttpClient executionHttpClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public ExecutionHttpClient(@Qualifier("executionHttpClient") CloseableHttpClient executionHttpClient,
+                               @Qualifier("executionConnectionManager") PoolingHttpClientConnectionManager executionConnectionManager,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.executionHttpClient = executionHttpClient;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        // Pool saturation: leased close to max with pending > 0 means calls are queuing for a connection
+        Gauge.builder("execution.http.pool.leased",
+                        executionConnectionManager, m -> m.getTotalStats().getLeased())
+                .description("Connections in use").register(meterRegistry);
+        Gauge.builder("execution.http.pool.pending",
+                        executionConnectionManager, m -> m.getTotalStats().getPending())
+                .description("Calls waiting for a connection").register(meterRegistry);
+        Gauge.builder("execution.http.pool.available",
+                        executionConnectionManager, m -> m.getTotalStats().getAvailable())
+                .description("Idle keep-alive connections").register(meterRegistry);
+        Gauge.builder("execution.http.pool.max",
+                        executionConnectionManager, m -> m.getTotalStats().getMax())
+                .register(meterRegistry);
+        Gauge.builder("execution.http.pool.saturation",
+                        executionConnectionManager, m -> (double) m.getTotalStats().getLeased()
+                                / Math.max(1, m.getTotalStats().getMax()))
+                .description("Leased / max connections").register(meterRegistry);
+    }
+
+    public <T> T postJson(String url, Object body, Class<T> responseType) {
+        URI uri = URI.create(url);
+        HttpPost post = new HttpPost(uri);
+        String host = uri.getHost() == null ? "unknown" : uri.getHost();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+
+        try {
+            post.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON));
+
+            T result = executionHttpClient.execute(post, response -> {
+                if (response.getCode() / 100 != 2) {
+                    String preview = response.getEntity() == null ? ""
+                            : EntityUtils.toString(response.getEntity());
+                    throw new CodeExecutionException("Execution backend returned HTTP " + response.getCode()
+                            + ": " + preview.substring(0, Math.min(preview.length(), ERROR_BODY_PREVIEW)));
+                }
+                try (InputStream content = response.getEntity().getContent()) {
+                    return objectMapper.readValue(content, responseType);
+                }
+            });
+
+            outcome = "success";
+            return result;
+
+        } catch (CodeExecutionException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new CodeExecutionException("Execution backend call failed: " + e.getMessage(), e);
+        } finally {
+            sample.stop(meterRegistry.timer("execution.http.requests", "host", host, "outcome", outcome));
+        }
+    }
+}
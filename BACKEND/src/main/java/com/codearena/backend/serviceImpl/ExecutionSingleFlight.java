@@ -0,0 +1,138 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.ExecutionRequestDTO;
+import com.codearena.backend.dto.ExecutionResultDTO;
+import com.codearena.backend.exception.CodeExecutionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent identical runs into one sandbox call.
+ * The first caller for a key runs the program, everyone arriving while it is in flight
+ * waits on the same future. Nothing is kept after the call finishes, repeat submissions
+ * over time are the verdict cache's job.
+ */
+@Component
+public class ExecutionSingleFlight {
+
+    private final Map<String, CompletableFuture<ExecutionResultDTO>> inFlight = new ConcurrentHashMap<>();
+
+    private final AppProperties appProperties;
+    private final Counter leaderCounter;
+    private final Counter coalescedCounter;
+
+    public ExecutionSingleFlight(AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.appProperties = appProperties;
+
+        this.leaderCounter = Counter.builder("execution.singleflight")
+                .tag("result", "executed")
+                .description("Sandbox runs actually issued")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("execution.singleflight")
+                .tag("result", "coalesced")
+                .description("Runs served by an identical in-flight call")
+                .register(meterRegistry);
+
+        Gauge.builder("execution.singleflight.inflight", inFlight, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the request through runner, or join an identical run already in flight on the same
+     * engine. The engine is part of the key: engines differ in limits and reported usage, so a
+     * run that fell back to the secondary is not shared with callers routed to the primary.
+     */
+    public ExecutionResultDTO execute(String engine,
+                                      ExecutionRequestDTO request,
+                                      Function<ExecutionRequestDTO, ExecutionResultDTO> runner) {
+        if (!appProperties.getCodeExecution().isSingleFlight()) {
+            return runner.apply(request);
+        }
+
+        String key = key(engine, request);
+
+        while (true) {
+            CompletableFuture<ExecutionResultDTO> mine = new CompletableFuture<>();
+            CompletableFuture<ExecutionResultDTO> existing = inFlight.putIfAbsent(key, mine);
+
+            if (existing == null) {
+                return lead(runner, request, key, mine);
+            }
+
+            coalescedCounter.increment();
+
+            try {
+                return existing.get();
+            } catch (CancellationException e) {
+                // The leader was cancelled (its submission failed elsewhere), run it ourselves
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CodeExecutionException("Interrupted while waiting for identical run", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new CodeExecutionException("Identical run failed", e.getCause());
+            }
+        }
+    }
+
+    private ExecutionResultDTO lead(Function<ExecutionRequestDTO, ExecutionResultDTO> runner,
+                                    ExecutionRequestDTO request,
+                                    String key,
+                                    CompletableFuture<ExecutionResultDTO> mine) {
+        leaderCounter.increment();
+
+        try {
+            ExecutionResultDTO result = runner.apply(request);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // A cancelled fan-out task must not fail the followers, they retry instead
+            if (Thread.currentThread().isInterrupted()) {
+                mine.cancel(false);
+            } else {
+                mine.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Everything that can change the outcome of the run
+    private String key(String engine, ExecutionRequestDTO request) {
+        return engine
+                + "|" + request.getLanguage().toLowerCase()
+                + "|" + request.getVersion()
+                + "|" + request.getFileName()
+                + "|" + request.getRunTimeoutMs()
+                + "|" + request.getMemoryLimitMb()
+                + "|" + sha256(request.getSource())
+                + "|" + sha256(request.getStdin());
+    }
+
+    private String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(
+                    digest.digest((value == null ? "" : value).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.entity.Room;
+import com.codearena.backend.repository.PracticeSessionRepository;
+import com.codearena.backend.repository.RoomRepository;
+import com.codearena.backend.service.ExpiryTimerService;
+import com.codearena.backend.service.NotificationService;
+import com.codearena.backend.service.PracticePrefetchService;
+import com.codearena.backend.service.PracticeSessionStateService;
+import com.codearena.backend.utils.HierarchicalTimerWheel;
+import com.codearena.backend.utils.constant.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Timers are members "session:{id}" and "room:{id}" of the expiry:timers sorted set, scored by
+ * deadline in epoch millis, and keys of the same name in the local wheel.
+ *
+ * Firing claims the member first (ZREM only when its score is due), so of all the nodes holding a
+ * timer exactly one expires it. A member whose score moved later was extended elsewhere and goes
+ * back into the wheel. Handlers check the stored state under the row, a timer that fires for
+ * something already ended is a no-op, and a failed handler is retried RETRY_MILLIS later.
+ */
+@Service
+@Slf4j
+public class ExpiryTimerServiceImpl implements ExpiryTimerService {
+
+    private static final String TIMERS_KEY = "expiry:timers";
+    private static final String SESSION = "session:";
+    private static final String ROOM = "room:";
+
+    private static final long TICK_MILLIS = 1000;
+    private static final long RETRY_MILLIS = 30_000;
+    private static final int LOAD_LIMIT = 10_000;
+    private static final Set<Status> ENDED_ROOM_STATUSES = EnumSet.of(Status.COMPLETED, Status.EXPIRED, Status.CLOSED);
+
+    // ================= CLAIM RESULTS =================
+    private static final long CLAIMED = -1;
+    private static final long GONE = 0;
+
+    // KEYS: timers. ARGV: member, now. -1 claimed, 0 gone, otherwise the later deadline it moved to.
+    private static final RedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local score = redis.call('ZSCORE', KEYS[1], ARGV[1])
+            if not score then return 0 end
+            if tonumber(score) > tonumber(ARGV[2]) then return tonumber(score) end
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            return -1
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PracticeSessionRepository practiceSessionRepository;
+    private final PracticeSessionStateService practiceSessionStateService;
+    private final PracticePrefetchService practicePrefetchService;
+    private final NotificationService notificationService;
+    private final RoomRepository roomRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ThreadPoolTaskExecutor expiryExecutor;
+    private final TransactionTemplate expiryTransaction;
+    private final AppProperties appProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK_MILLIS, System.currentTimeMillis());
+
+    public ExpiryTimerServiceImpl(StringRedisTemplate stringRedisTemplate,
+                                  PracticeSessionRepository practiceSessionRepository,
+                                  PracticeSessionStateService practiceSessionStateService,
+                                  PracticePrefetchService practicePrefetchService,
+                                  NotificationService notificationService,
+                                  RoomRepository roomRepository,
+                                  SimpMessagingTemplate messagingTemplate,
+                                  @Qualifier("expiryExecutor") ThreadPoolTaskExecutor expiryExecutor,
+                                  PlatformTransactionManager transactionManager,
+                                  AppProperties appProperties,
+                                  MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.practiceSessionRepository = practiceSessionRepository;
+        this.practiceSessionStateService = practiceSessionStateService;
+        this.practicePrefetchService = practicePrefetchService;
+        this.notificationService = notificationService;
+        this.roomRepository = roomRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.expiryExecutor = expiryExecutor;
+        this.expiryTransaction = new TransactionTemplate(transactionManager);
+        this.appProperties = appProperties;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("expiry.timers.pending", wheel, HierarchicalTimerWheel::size);
+    }
+
+    // ================= SCHEDULING =================
+
+    @Override
+    public void scheduleSessionExpiry(String sessionId, LocalDateTime expiresAt) {
+        schedule(SESSION + sessionId, expiresAt);
+    }
+
+    @Override
+    public void cancelSessionExpiry(String sessionId) {
+        String member = SESSION + sessionId;
+        afterCommit(() -> {
+            wheel.cancel(member);
+            try {
+                stringRedisTemplate.opsForZSet().remove(TIMERS_KEY, member);
+            } catch (Exception e) {
+                // The timer still fires and finds the session ended
+                log.warn("Could not cancel expiry timer {}: {}", member, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void scheduleRoomExpiry(String roomId, LocalDateTime expiryTime) {
+        schedule(ROOM + roomId, expiryTime);
+    }
+
+    private void schedule(String member, LocalDateTime deadline) {
+        if (deadline == null) {
+            return;
+        }
+        long deadlineMillis = toMillis(deadline);
+        afterCommit(() -> arm(member, deadlineMillis));
+    }
+
+    private void arm(String member, long deadlineMillis) {
+        wheel.schedule(member, deadlineMillis);
+        try {
+            stringRedisTemplate.opsForZSet().add(TIMERS_KEY, member, deadlineMillis);
+        } catch (Exception e) {
+            // Only this node knows the timer now, the database seed restores it on the next start
+            log.warn("Expiry timer {} is local only: {}", member, e.getMessage());
+        }
+    }
+
+    // ================= FIRING =================
+
+    @Override
+    public int fireDue() {
+        List<String> due = wheel.advance(System.currentTimeMillis());
+        for (String member : due) {
+            try {
+                expiryExecutor.execute(() -> fire(member));
+            } catch (TaskRejectedException e) {
+                // Not claimed yet, the next load picks it up from Redis
+                log.warn("⚠️ Expiry pool full, {} waits for the next load", member);
+                count(member, "rejected");
+            }
+        }
+        return due.size();
+    }
+
+    @Override
+    public int loadUpcoming() {
+        long horizon = System.currentTimeMillis() + 2 * appProperties.getRoom().getExpiryCheckInterval();
+        Set<TypedTuple<String>> upcoming = stringRedisTemplate.opsForZSet()
+                .rangeByScoreWithScores(TIMERS_KEY, Double.NEGATIVE_INFINITY, horizon, 0, LOAD_LIMIT);
+        if (upcoming == null) {
+            return 0;
+        }
+
+        for (TypedTuple<String> timer : upcoming) {
+            if (timer.getValue() != null && timer.getScore() != null) {
+                wheel.schedule(timer.getValue(), timer.getScore().longValue());
+            }
+        }
+        return upcoming.size();
+    }
+
+    @Override
+    public int seedFromDatabase() {
+        Set<TypedTuple<String>> timers = new HashSet<>();
+        for (Object[] row : practiceSessionRepository.findActiveExpiries()) {
+            timers.add(TypedTuple.of(SESSION + row[0], (double) toMillis((LocalDateTime) row[1])));
+        }
+        for (Object[] row : roomRepository.findOpenExpiries(ENDED_ROOM_STATUSES)) {
+            timers.add(TypedTuple.of(ROOM + row[0], (double) toMillis((LocalDateTime) row[1])));
+        }
+
+        if (timers.isEmpty()) {
+            return 0;
+        }
+        // NX, a deadline moved by a running node is newer than the row it was written from
+        Long added = stringRedisTemplate.opsForZSet().addIfAbsent(TIMERS_KEY, timers);
+        return added != null ? added.intValue() : 0;
+    }
+
+    private void fire(String member) {
+        long now = System.currentTimeMillis();
+
+        Long claim;
+        try {
+            claim = stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(TIMERS_KEY), member, String.valueOf(now));
+        } catch (Exception e) {
+            // Handlers check the stored state, at worst two nodes both find it ended
+            log.warn("Could not claim expiry timer {}, firing anyway: {}", member, e.getMessage());
+            claim = CLAIMED;
+        }
+
+        if (claim == null || claim == GONE) {
+            count(member, "taken");
+            return;
+        }
+        if (claim != CLAIMED) {
+            wheel.schedule(member, claim);
+            count(member, "moved");
+            return;
+        }
+
+        try {
+            boolean expired = member.startsWith(SESSION)
+                    ? expireSession(member.substring(SESSION.length()))
+                    : expireRoom(member.substring(ROOM.length()));
+            count(member, expired ? "expired" : "skipped");
+        } catch (Exception e) {
+            log.error("❌ Expiry of {} failed, retrying in {}s: {}", member, RETRY_MILLIS / 1000, e.getMessage());
+            arm(member, now + RETRY_MILLIS);
+            count(member, "failed");
+        }
+    }
+
+    // ================= HANDLERS =================
+
+    private boolean expireSession(String sessionId) {
+        PracticeSession expired = expiryTransaction.execute(status -> {
+            PracticeSession stored = practiceSessionRepository.findById(sessionId).orElse(null);
+            if (stored == null || stored.isCompleted() || stored.isExpired()) {
+                return null;
+            }
+
+            // Hot state has the latest deadline and counters
+            PracticeSession session = practiceSessionStateService.load(sessionId);
+            if (session.getExpiresAt().isAfter(LocalDateTime.now())) {
+                scheduleSessionExpiry(sessionId, session.getExpiresAt());
+                return null;
+            }
+
+            session.setUser(stored.getUser());
+            session.setExpired(true);
+            session.setCompleted(true);
+            practiceSessionStateService.end(session);
+            return session;
+        });
+
+        if (expired == null) {
+            return false;
+        }
+
+        practicePrefetchService.cancel(sessionId);
+        notificationService.sendSessionExpired(expired.getUser(), sessionId);
+        log.info("⏰ Practice session {} expired", sessionId);
+        return true;
+    }
+
+    private boolean expireRoom(String roomId) {
+        Room expired = expiryTransaction.execute(status -> {
+            Room room = roomRepository.findByIdWithLock(roomId).orElse(null);
+            if (room == null || room.getExpiryTime() == null || ENDED_ROOM_STATUSES.contains(room.getStatus())) {
+                return null;
+            }
+
+            if (room.getExpiryTime().isAfter(LocalDateTime.now())) {
+                scheduleRoomExpiry(roomId, room.getExpiryTime());
+                return null;
+            }
+
+            room.setStatus(Status.EXPIRED);
+            room.setEndedAt(LocalDateTime.now());
+            return roomRepository.save(room);
+        });
+
+        if (expired == null) {
+            return false;
+        }
+
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("event", "ROOM_EXPIRED");
+        notification.put("roomCode", expired.getRoomCode());
+        notification.put("message", "Match time is up");
+        notification.put("timestamp", System.currentTimeMillis());
+
+        try {
+            messagingTemplate.convertAndSend("/topic/room/" + expired.getRoomCode() + "/status", notification);
+        } catch (Exception e) {
+            log.error("Failed to broadcast expiry of room {}: {}", expired.getRoomCode(), e.getMessage());
+        }
+
+        log.info("⏰ Room {} expired", expired.getRoomCode());
+        return true;
+    }
+
+    // ================= HELPERS =================
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void count(String member, String result) {
+        String type = member.startsWith(SESSION) ? "session" : "room";
+        meterRegistry.counter("expiry.timers.fired", "type", type, "result", result).increment();
+    }
+}
@@ -0,0 +1,143 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.ExecutionRequestDTO;
+import com.codearena.backend.dto.ExecutionResultDTO;
+import com.codearena.backend.exception.CodeExecutionException;
+import com.codearena.backend.service.ExecutionEngine;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Judge0 CE API. Submissions are sent with wait=true so one call returns the result.
+ */
+@Component
+public class Judge0ExecutionEngine implements ExecutionEngine {
+
+    // Judge0 status ids
+    private static final int STATUS_TIME_LIMIT_EXCEEDED = 5;
+    private static final int STATUS_COMPILATION_ERROR = 6;
+
+    private final AppProperties appProperties;
+    private final ExecutionHttpClient executionHttpClient;
+
+    public Judge0ExecutionEngine(AppProperties appProperties, ExecutionHttpClient executionHttpClient) {
+        this.appProperties = appProperties;
+        this.executionHttpClient = executionHttpClient;
+    }
+
+    @Override
+    public String name() {
+        return "judge0";
+    }
+
+    @Override
+    public ExecutionResultDTO execute(ExecutionRequestDTO request) {
+
+        AppProperties.CodeExecution config = appProperties.getCodeExecution();
+
+        double wallSeconds = request.getRunTimeoutMs() != null
+                ? request.getRunTimeoutMs() / 1000.0
+                : config.getTimeoutSeconds();
+
+        long memoryMb = request.getMemoryLimitMb() > 0
+                ? Math.min(request.getMemoryLimitMb(), config.getMaxMemoryMb())
+                : config.getMaxMemoryMb();
+
+        Judge0Request payload = new Judge0Request(
+                languageId(request.getLanguage()),
+                encode(request.getSource()),
+                encode(request.getStdin()),
+                wallSeconds,
+                wallSeconds,
+                memoryMb * 1024 // in KB
+        );
+
+        Judge0Response body = executionHttpClient.postJson(
+                config.getJudge0Url() + "/submissions?base64_encoded=true&wait=true",
+                payload,
+                Judge0Response.class);
+
+        int status = body.status() == null ? 0 : body.status().id();
+
+        ExecutionResultDTO result = new ExecutionResultDTO();
+
+        // ================= COMPILE STAGE =================
+
+        if (status == STATUS_COMPILATION_ERROR) {
+            result.setCompileCode(1);
+            result.setCompileOutput(decode(body.compileOutput()));
+            return result;
+        }
+
+        // ================= RUN STAGE =================
+
+        result.setStdout(decode(body.stdout()));
+        result.setStderr(decode(body.stderr()));
+        result.setExitCode(body.exitCode() == null ? -1 : body.exitCode());
+        result.setSignal(body.exitSignal() == null ? null : String.valueOf(body.exitSignal()));
+        result.setTimedOut(status == STATUS_TIME_LIMIT_EXCEEDED);
+
+        // time is in seconds, memory in KB
+        result.setTime(body.time() == null ? 0.0 : Double.parseDouble(body.time()));
+        result.setMemory(body.memory() == null ? 0.0 : body.memory() / 1024.0);
+
+        return result;
+    }
+
+    // Default Judge0 CE language ids
+    private int languageId(String language) {
+        return switch (language.toLowerCase()) {
+            case "c" -> 50;
+            case "cpp" -> 54;
+            case "java" -> 62;
+            case "python" -> 71;
+            case "javascript" -> 63;
+            case "go" -> 60;
+            case "ruby" -> 72;
+            case "php" -> 68;
+            default -> throw new CodeExecutionException("Language not supported by Judge0: " + language);
+        };
+    }
+
+    private String encode(String value) {
+        return Base64.getEncoder().encodeToString(
+                (value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        return new String(Base64.getMimeDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    // ================= WIRE FORMAT =================
+
+    record Judge0Request(@JsonProperty("language_id") int languageId,
+                         @JsonProperty("source_code") String sourceCode,
+                         String stdin,
+                         @JsonProperty("cpu_time_limit") double cpuTimeLimit,
+                         @JsonProperty("wall_time_limit") double wallTimeLimit,
+                         @JsonProperty("memory_limit") long memoryLimit) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Judge0Response(String stdout,
+                          String stderr,
+                          @JsonProperty("compile_output") String compileOutput,
+                          @JsonProperty("exit_code") Integer exitCode,
+                          @JsonProperty("exit_signal") Integer exitSignal,
+                          String time,
+                          Double memory,
+                          Judge0Status status) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Judge0Status(int id, String description) {
+    }
+}
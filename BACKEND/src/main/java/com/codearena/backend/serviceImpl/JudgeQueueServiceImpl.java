@@ -0,0 +1,189 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.exception.JudgeQueueFullException;
+import com.codearena.backend.service.JudgeQueueService;
+import com.codearena.backend.utils.constant.ErrorMessages;
+import com.codearena.backend.utils.constant.JudgePriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Weighted fair queuing over the JudgePriority classes.
+ *
+ * Every job gets a virtual finish tag, max(virtual time, class's last tag) + 1 / weight,
+ * and a free worker always takes the smallest tag. A class with weight 8 therefore gets
+ * 8 turns for every turn of a weight 1 class while both have work, and an idle class
+ * does not bank credit because tags never start behind the virtual clock.
+ *
+ * The executor only receives a dispatch ticket per job; which job a ticket runs is decided
+ * when a worker picks it up.
+ */
+@Service
+@Slf4j
+public class JudgeQueueServiceImpl implements JudgeQueueService {
+
+    private final ThreadPoolTaskExecutor judgeExecutor;
+    private final int capacityPerClass;
+
+    // Guarded by this
+    private final PriorityQueue<QueuedJob> queue = new PriorityQueue<>(
+            Comparator.comparingDouble(QueuedJob::finishTag).thenComparingLong(QueuedJob::sequence));
+    private final Map<JudgePriority, JudgeClass> classes = new EnumMap<>(JudgePriority.class);
+    private double virtualTime;
+    private long sequence;
+
+    public JudgeQueueServiceImpl(@Qualifier("judgeExecutor") ThreadPoolTaskExecutor judgeExecutor,
+                                 AppProperties appProperties,
+                                 MeterRegistry meterRegistry) {
+        this.judgeExecutor = judgeExecutor;
+        this.capacityPerClass = appProperties.getJudge().getQueueCapacity();
+
+        AppProperties.Judge.Scheduling scheduling = appProperties.getJudge().getScheduling();
+
+        for (JudgePriority priority : JudgePriority.values()) {
+            int weight = switch (priority) {
+                case ROOM -> scheduling.getRoomWeight();
+                case PRACTICE -> scheduling.getPracticeWeight();
+                case RUN -> scheduling.getRunWeight();
+            };
+
+            String tag = priority.name().toLowerCase();
+
+            JudgeClass judgeClass = new JudgeClass(
+                    weight,
+                    Timer.builder("judge.queue.wait")
+                            .tag("class", tag)
+                            .description("Time a judge job waited for a worker")
+                            .publishPercentileHistogram()
+                            .minimumExpectedValue(Duration.ofMillis(1))
+                            .maximumExpectedValue(Duration.ofMinutes(2))
+                            .register(meterRegistry),
+                    Counter.builder("judge.queue.rejected")
+                            .tag("class", tag)
+                            .register(meterRegistry));
+
+            classes.put(priority, judgeClass);
+
+            Gauge.builder("judge.queue.depth", this, service -> service.getQueueDepth(priority))
+                    .tag("class", tag)
+                    .description("Judge jobs waiting for a worker")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> enqueue(JudgePriority priority, Supplier<T> job) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        QueuedJob queued;
+        synchronized (this) {
+            JudgeClass judgeClass = classes.get(priority);
+
+            if (judgeClass.depth >= capacityPerClass) {
+                judgeClass.rejected.increment();
+                log.warn("Judge queue full for {} (depth={}, active={}), rejecting job",
+                        priority, judgeClass.depth, getActiveCount());
+                throw new JudgeQueueFullException(ErrorMessages.JUDGE_QUEUE_FULL);
+            }
+
+            double start = Math.max(virtualTime, judgeClass.lastFinishTag);
+            judgeClass.lastFinishTag = start + 1.0 / judgeClass.weight;
+            judgeClass.depth++;
+
+            queued = new QueuedJob(priority, start, judgeClass.lastFinishTag, sequence++,
+                    System.nanoTime(), () -> {
+                        try {
+                            future.complete(job.get());
+                        } catch (Throwable t) {
+                            future.completeExceptionally(t);
+                        }
+                    });
+            queue.add(queued);
+        }
+
+        try {
+            judgeExecutor.execute(this::runNext);
+        } catch (TaskRejectedException e) {
+            synchronized (this) {
+                if (queue.remove(queued)) {
+                    classes.get(priority).depth--;
+                }
+            }
+            log.warn("Judge executor rejected dispatch for {} (active={})", priority, getActiveCount());
+            throw new JudgeQueueFullException(ErrorMessages.JUDGE_QUEUE_FULL);
+        }
+
+        return future;
+    }
+
+    /**
+     * One call per dispatch ticket, runs whichever job has the smallest finish tag
+     */
+    private void runNext() {
+        QueuedJob next;
+        synchronized (this) {
+            next = queue.poll();
+            if (next == null) {
+                return;
+            }
+            virtualTime = Math.max(virtualTime, next.startTag());
+            classes.get(next.priority()).depth--;
+        }
+
+        classes.get(next.priority()).waitTimer.record(Duration.ofNanos(System.nanoTime() - next.enqueuedAt()));
+        next.task().run();
+    }
+
+    @Override
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public synchronized int getQueueDepth(JudgePriority priority) {
+        return classes.get(priority).depth;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return judgeExecutor.getActiveCount();
+    }
+
+    private static class JudgeClass {
+        private final int weight;
+        private final Timer waitTimer;
+        private final Counter rejected;
+        private int depth;
+        private double lastFinishTag;
+
+        JudgeClass(int weight, Timer waitTimer, Counter rejected) {
+            this.weight = weight;
+            this.waitTimer = waitTimer;
+            this.rejected = rejected;
+        }
+    }
+
+    private record QueuedJob(JudgePriority priority,
+                             double startTag,
+                             double finishTag,
+                             long sequence,
+                             long enqueuedAt,
+                             Runnable task) {
+    }
+}
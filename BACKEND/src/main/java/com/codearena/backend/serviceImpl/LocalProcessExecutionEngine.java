@@ -0,0 +1,282 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.ExecutionRequestDTO;
+import com.codearena.backend.dto.ExecutionResultDTO;
+import com.codearena.backend.exception.CodeExecutionException;
+import com.codearena.backend.service.ExecutionEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs programs on this machine inside nsjail.
+ * Compile and run stages both go through the jail: a fresh user, mount, PID and network
+ * namespace, the configured sandbox uid, only the work dir writable and the system dirs
+ * read-only, so nothing of the server (config, secrets, network) is reachable. CPU time,
+ * address space, output size and process count are capped with rlimits, wall-clock time is
+ * also enforced here by killing the process tree. Meant for self-hosted judging and load tests,
+ * it needs nsjail, gcc/g++, a JDK, python3 and node on the host.
+ */
+@Component
+@Slf4j
+public class LocalProcessExecutionEngine implements ExecutionEngine {
+
+    private static final int SIGKILL = 9;
+    private static final int SIGXCPU = 24;
+    private static final String JAIL_DIR = "/box";
+    private static final String JAIL_PATH = "/usr/local/bin:/usr/bin:/bin";
+
+    private final AppProperties appProperties;
+
+    public LocalProcessExecutionEngine(AppProperties appProperties) {
+        this.appProperties = appProperties;
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public void checkUsable() {
+        String nsjail = appProperties.getCodeExecution().getLocal().getNsjailPath();
+        if (nsjail == null || nsjail.isBlank()) {
+            throw new IllegalStateException("The local execution engine runs untrusted code on this host, "
+                    + "set app.code-execution.local.nsjail-path to use it");
+        }
+        if (!Files.isExecutable(Path.of(nsjail))) {
+            throw new IllegalStateException("nsjail not found or not executable: " + nsjail);
+        }
+    }
+
+    @Override
+    public ExecutionResultDTO execute(ExecutionRequestDTO request) {
+        // Never run anything unjailed, whoever got hold of this engine
+        try {
+            checkUsable();
+        } catch (IllegalStateException e) {
+            throw new CodeExecutionException(e.getMessage());
+        }
+
+        AppProperties.CodeExecution config = appProperties.getCodeExecution();
+        AppProperties.CodeExecution.Local local = config.getLocal();
+
+        long wallMs = request.getRunTimeoutMs() != null
+                ? request.getRunTimeoutMs()
+                : config.getTimeoutSeconds() * 1000L;
+
+        long memoryMb = request.getMemoryLimitMb() > 0
+                ? Math.min(request.getMemoryLimitMb(), config.getMaxMemoryMb())
+                : config.getMaxMemoryMb();
+
+        String language = request.getLanguage().toLowerCase();
+        Path workDir = null;
+
+        try {
+            workDir = local.getWorkDir().isBlank()
+                    ? Files.createTempDirectory("arena-run-")
+                    : Files.createTempDirectory(Files.createDirectories(Path.of(local.getWorkDir())), "arena-run-");
+
+            Path sourceFile = workDir.resolve(request.getFileName());
+            Files.writeString(sourceFile, request.getSource());
+            // The sandbox uid writes build output next to the source
+            shareWithSandbox(workDir);
+            shareWithSandbox(sourceFile);
+
+            ExecutionResultDTO result = new ExecutionResultDTO();
+
+            // ================= COMPILE STAGE =================
+
+            List<String> compileCommand = compileCommand(language, request.getFileName());
+            if (compileCommand != null) {
+                long compileMs = local.getCompileTimeoutSeconds() * 1000L;
+                ProcessResult compile = run(jailed(compileCommand, workDir, compileMs, null), workDir, "",
+                        compileMs, local.getMaxOutputKb());
+
+                result.setCompileCode(compile.timedOut() ? -1 : compile.exitCode());
+                result.setCompileOutput(compile.timedOut() ? "Compilation timed out" : compile.stderr());
+
+                if (result.isCompileError()) {
+                    return result;
+                }
+            }
+
+            // ================= RUN STAGE =================
+
+            ProcessResult run = run(
+                    jailed(runCommand(language, request.getFileName(), memoryMb), workDir, wallMs,
+                            heapCapped(language) ? null : memoryMb),
+                    workDir,
+                    request.getStdin(),
+                    wallMs,
+                    local.getMaxOutputKb()
+            );
+
+            int signal = run.exitCode() > 128 ? run.exitCode() - 128 : 0;
+
+            result.setStdout(run.stdout());
+            result.setStderr(run.stderr());
+            result.setExitCode(run.exitCode());
+            result.setSignal(signal > 0 ? String.valueOf(signal) : null);
+            result.setTimedOut(run.timedOut() || signal == SIGXCPU);
+            result.setTime(run.elapsedMs() / 1000.0);
+            // Peak memory is not observable through ProcessBuilder, the harness reports it per case
+            result.setMemory(0.0);
+
+            return result;
+
+        } catch (IOException e) {
+            throw new CodeExecutionException("Local sandbox failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CodeExecutionException("Interrupted while running program", e);
+        } finally {
+            deleteQuietly(workDir);
+        }
+    }
+
+    private List<String> compileCommand(String language, String fileName) {
+        return switch (language) {
+            case "c" -> List.of("gcc", "-O2", "-o", "main", fileName, "-lm");
+            case "cpp" -> List.of("g++", "-O2", "-std=c++17", "-o", "main", fileName);
+            case "java" -> List.of("javac", "-d", ".", fileName);
+            case "python", "javascript" -> null;
+            default -> throw new CodeExecutionException("Language not supported by local sandbox: " + language);
+        };
+    }
+
+    private List<String> runCommand(String language, String fileName, long memoryMb) {
+        String stem = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+
+        return switch (language) {
+            case "c", "cpp" -> List.of("./main");
+            case "java" -> List.of("java", "-Xmx" + memoryMb + "m", "-Xss64m", "-cp", ".", stem);
+            case "python" -> List.of("python3", fileName);
+            case "javascript" -> List.of("node", "--max-old-space-size=" + memoryMb, fileName);
+            default -> throw new CodeExecutionException("Language not supported by local sandbox: " + language);
+        };
+    }
+
+    // JVM and V8 reserve far more address space than they use, they get heap flags instead
+    private boolean heapCapped(String language) {
+        return language.equals("java") || language.equals("javascript");
+    }
+
+    /**
+     * Wrap the command in nsjail. The jail's exit status is the program's (128 + signal when it
+     * was killed), so callers read it the same way as a plain process. Null memoryMb leaves the
+     * address space unlimited.
+     */
+    private List<String> jailed(List<String> command, Path workDir, long wallMs, Long memoryMb) {
+        AppProperties.CodeExecution.Local local = appProperties.getCodeExecution().getLocal();
+        long cpuSeconds = Math.max(1, (wallMs + 999) / 1000);
+
+        List<String> jail = new ArrayList<>(List.of(
+                local.getNsjailPath(),
+                "--mode", "o",
+                "--quiet",
+                "--user", String.valueOf(local.getSandboxUid()),
+                "--group", String.valueOf(local.getSandboxGid()),
+                "--hostname", "sandbox",
+                "--cwd", JAIL_DIR,
+                "--bindmount", workDir.toAbsolutePath() + ":" + JAIL_DIR,
+                "--bindmount", "/dev/null",
+                "--tmpfsmount", "/tmp",
+                "--env", "PATH=" + JAIL_PATH,
+                "--env", "HOME=" + JAIL_DIR,
+                "--time_limit", String.valueOf(cpuSeconds + 1),
+                "--rlimit_cpu", String.valueOf(cpuSeconds),
+                "--rlimit_as", memoryMb != null ? String.valueOf(memoryMb) : "inf",
+                "--rlimit_fsize", String.valueOf(Math.max(1, local.getMaxOutputKb() * 2 / 1024)),
+                "--rlimit_nproc", String.valueOf(local.getMaxProcesses()),
+                "--rlimit_nofile", "64"
+        ));
+
+        for (String mount : local.getReadOnlyMounts()) {
+            if (Files.exists(Path.of(mount))) {
+                jail.add("--bindmount_ro");
+                jail.add(mount);
+            }
+        }
+
+        jail.add("--");
+        jail.addAll(command);
+        return jail;
+    }
+
+    private void shareWithSandbox(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString(
+                    Files.isDirectory(path) ? "rwxrwxrwx" : "rw-rw-rw-"));
+        } catch (UnsupportedOperationException e) {
+            throw new CodeExecutionException("Local sandbox needs a POSIX file system for " + path);
+        }
+    }
+
+    private ProcessResult run(List<String> command,
+                              Path workDir,
+                              String stdin,
+                              long wallMs,
+                              int maxOutputKb) throws IOException, InterruptedException {
+
+        Path in = workDir.resolve(".stdin");
+        Path out = workDir.resolve(".stdout");
+        Path err = workDir.resolve(".stderr");
+        Files.writeString(in, stdin == null ? "" : stdin);
+
+        // Files instead of pipes so a chatty program can never block on a full buffer
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectInput(in.toFile())
+                .redirectOutput(out.toFile())
+                .redirectError(err.toFile())
+                .start();
+
+        long start = System.nanoTime();
+        boolean finished = process.waitFor(wallMs, TimeUnit.MILLISECONDS);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        if (!finished) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+            process.waitFor();
+        }
+
+        int exitCode = finished ? process.exitValue() : 128 + SIGKILL;
+
+        return new ProcessResult(exitCode, !finished, elapsedMs,
+                read(out, maxOutputKb), read(err, maxOutputKb));
+    }
+
+    private String read(Path file, int maxOutputKb) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return new String(stream.readNBytes(maxOutputKb * 1024), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void deleteQuietly(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Could not clean up sandbox dir {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private record ProcessResult(int exitCode, boolean timedOut, long elapsedMs, String stdout, String stderr) {
+    }
+}
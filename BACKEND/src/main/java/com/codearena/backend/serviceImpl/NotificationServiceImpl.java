@@ -1,6 +1,7 @@
 package com.codearena.backend.serviceImpl;
 
 import com.codearena.backend.dto.PracticeResultDTO;
+import com.codearena.backend.dto.RecommendationsDTO;
 import com.codearena.backend.entity.User;
 import com.codearena.backend.service.NotificationService;
 import lombok.RequiredArgsConstructor;
@@ -52,6 +53,19 @@ public class NotificationServiceImpl implements NotificationService {
         log.info("Sent practice session completed notification to user: {}", user.getUsername());
     }
 
+    @Override
+    public void sendPracticeRecommendationsReady(User user, String sessionId, RecommendationsDTO recommendations) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("event", "PRACTICE_RECOMMENDATIONS_READY");
+        notification.put("sessionId", sessionId);
+        notification.put("message", "Your practice recommendations are ready");
+        notification.put("recommendations", recommendations);
+        notification.put("timestamp", System.currentTimeMillis());
+
+        sendToUser(user.getUsername(), "/queue/notifications", notification);
+        log.info("Sent practice recommendations notification to user: {}", user.getUsername());
+    }
+
     @Override
     public void sendSessionExtended(User user, String sessionId, int additionalMinutes) {
         Map<String, Object> notification = new HashMap<>();
@@ -77,6 +91,18 @@ public class NotificationServiceImpl implements NotificationService {
         log.info("Sent session abandoned notification to user: {}", user.getUsername());
     }
 
+    @Override
+    public void sendSessionExpired(User user, String sessionId) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("event", "SESSION_EXPIRED");
+        notification.put("sessionId", sessionId);
+        notification.put("message", "Practice session time is up");
+        notification.put("timestamp", System.currentTimeMillis());
+
+        sendToUser(user.getUsername(), "/queue/notifications", notification);
+        log.info("Sent session expired notification to user: {}", user.getUsername());
+    }
+
     /**
      * Helper method to send notification to specific user
      */
@@ -0,0 +1,153 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.ExecutionRequestDTO;
+import com.codearena.backend.dto.ExecutionResultDTO;
+import com.codearena.backend.exception.CodeExecutionException;
+import com.codearena.backend.service.ExecutionEngine;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Piston v2 API (public emkc.org or self-hosted)
+ */
+@Component
+public class PistonExecutionEngine implements ExecutionEngine {
+
+    // Piston's own run_timeout when the request does not set one
+    private static final long DEFAULT_RUN_TIMEOUT_MS = 3000;
+    private static final String STATUS_TIMED_OUT = "TO";
+    private static final String SIGKILL = "SIGKILL";
+
+    private final AppProperties appProperties;
+    private final ExecutionHttpClient executionHttpClient;
+
+    public PistonExecutionEngine(AppProperties appProperties, ExecutionHttpClient executionHttpClient) {
+        this.appProperties = appProperties;
+        this.executionHttpClient = executionHttpClient;
+    }
+
+    @Override
+    public String name() {
+        return "piston";
+    }
+
+    @Override
+    public ExecutionResultDTO execute(ExecutionRequestDTO request) {
+
+        PistonRequest payload = new PistonRequest(
+                request.getLanguage(),
+                request.getVersion(),
+                List.of(new PistonFile(request.getFileName(), request.getSource())),
+                request.getStdin(),
+                request.getRunTimeoutMs()
+        );
+
+        long start = System.nanoTime();
+        PistonResponse body = executionHttpClient.postJson(
+                appProperties.getCodeExecution().getPistonUrl(), payload, PistonResponse.class);
+        long callMs = (System.nanoTime() - start) / 1_000_000;
+
+        if (body.run() == null) {
+            throw new CodeExecutionException("Piston error: " + body.message());
+        }
+
+        ExecutionResultDTO result = new ExecutionResultDTO();
+
+        // ================= COMPILE STAGE =================
+
+        if (body.compile() != null) {
+            PistonStage compile = body.compile();
+            result.setCompileCode(compile.code() == null ? -1 : compile.code());
+            result.setCompileOutput(compile.stderr() != null && !compile.stderr().isEmpty()
+                    ? compile.stderr()
+                    : compile.output());
+
+            if (result.isCompileError()) {
+                return result;
+            }
+        }
+
+        // ================= RUN STAGE =================
+
+        PistonStage run = body.run();
+
+        result.setStdout(run.stdout() == null ? "" : run.stdout());
+        result.setStderr(run.stderr() == null ? "" : run.stderr());
+        result.setSignal(run.signal());
+        result.setTimedOut(timedOut(run, request.getRunTimeoutMs(), callMs));
+        if (run.code() != null) {
+            result.setExitCode(run.code());
+        } else {
+            // Killed by a signal (crash, memory or output limit), 128 + signal like a shell reports it
+            result.setExitCode(run.signal() != null ? 128 + signalNumber(run.signal()) : -1);
+        }
+
+        // wall_time (ms) and memory (bytes) are only present on newer Piston builds
+        result.setTime(run.wallTime() == null ? 0.0 : run.wallTime() / 1000.0);
+        result.setMemory(run.memory() == null ? 0.0 : run.memory() / (1024.0 * 1024.0));
+
+        return result;
+    }
+
+    /**
+     * Piston SIGKILLs for the memory and output limits too. Newer builds say which with a status,
+     * only "TO" is a timeout. Older ones only send the signal, then it counts as a timeout when
+     * the run actually lasted its time limit.
+     */
+    private static boolean timedOut(PistonStage run, Long runTimeoutMs, long callMs) {
+        if (run.status() != null) {
+            return STATUS_TIMED_OUT.equals(run.status());
+        }
+        if (!SIGKILL.equals(run.signal())) {
+            return false;
+        }
+        long limitMs = runTimeoutMs != null ? runTimeoutMs : DEFAULT_RUN_TIMEOUT_MS;
+        double ranMs = run.wallTime() != null ? run.wallTime() : callMs;
+        return ranMs >= limitMs;
+    }
+
+    private static int signalNumber(String signal) {
+        return switch (signal) {
+            case "SIGABRT" -> 6;
+            case "SIGFPE" -> 8;
+            case SIGKILL -> 9;
+            case "SIGSEGV" -> 11;
+            case "SIGXCPU" -> 24;
+            case "SIGXFSZ" -> 25;
+            default -> 0;
+        };
+    }
+
+    // ================= WIRE FORMAT =================
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record PistonRequest(String language,
+                         String version,
+                         List<PistonFile> files,
+                         String stdin,
+                         @JsonProperty("run_timeout") Long runTimeout) {
+    }
+
+    record PistonFile(String name, String content) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record PistonResponse(PistonStage compile, PistonStage run, String message) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record PistonStage(String stdout,
+                       String stderr,
+                       String output,
+                       Integer code,
+                       String signal,
+                       String status,
+                       @JsonProperty("wall_time") Double wallTime,
+                       Double memory) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.dto.PracticeSubmissionDTO;
+import com.codearena.backend.entity.PracticeAttempt;
+import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.repository.PracticeAttemptRepository;
+import com.codearena.backend.service.PracticeAttemptService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class PracticeAttemptServiceImpl implements PracticeAttemptService {
+
+    private final PracticeAttemptRepository practiceAttemptRepository;
+
+    @Override
+    public void recordAnswer(PracticeSession session, PracticeSubmissionDTO submission, boolean correct,
+                             String submissionId) {
+        boolean coding = "CODING".equals(submission.getQuestionType());
+
+        PracticeAttempt attempt = PracticeAttempt.builder()
+                .sessionId(session.getId())
+                .seq(nextSeq(session.getId()))
+                .questionId(submission.getQuestionId())
+                .questionType(submission.getQuestionType())
+                .correct(correct)
+                .skipped(false)
+                .timeTakenSeconds(submission.getTimeTakenSeconds())
+                .confidence(submission.getConfidenceScore())
+                .attemptedAt(LocalDateTime.now())
+                .build();
+
+        if (coding) {
+            attempt.setLanguage(submission.getLanguage());
+            attempt.setSubmissionId(submissionId);
+            if (submission.getTestCasesPassed() > 0) {
+                attempt.setTestCasesPassed(submission.getTestCasesPassed());
+                attempt.setTotalTestCases(submission.getTotalTestCases());
+            }
+        } else {
+            attempt.setSelectedOptionId(submission.getSelectedOptionId());
+        }
+
+        practiceAttemptRepository.save(attempt);
+    }
+
+    @Override
+    public void recordSkip(PracticeSession session, String questionId) {
+        practiceAttemptRepository.save(PracticeAttempt.builder()
+                .sessionId(session.getId())
+                .seq(nextSeq(session.getId()))
+                .questionId(questionId)
+                .questionType(session.getQuestionType())
+                .correct(false)
+                .skipped(true)
+                .timeTakenSeconds(0)
+                .confidence(0.0)
+                .attemptedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public boolean isUsed(String sessionId, String questionId) {
+        return practiceAttemptRepository.existsBySessionIdAndQuestionId(sessionId, questionId);
+    }
+
+    @Override
+    public Set<String> getUsedQuestionIds(String sessionId) {
+        return new HashSet<>(practiceAttemptRepository.findQuestionIdsBySessionId(sessionId));
+    }
+
+    @Override
+    public List<PracticeAttempt> getHistory(String sessionId) {
+        return practiceAttemptRepository.findBySessionIdOrderBySeqAscIdAsc(sessionId);
+    }
+
+    // Two requests of one session racing can share a seq, ties are ordered by id
+    private int nextSeq(String sessionId) {
+        return practiceAttemptRepository.findLastSeq(sessionId) + 1;
+    }
+}
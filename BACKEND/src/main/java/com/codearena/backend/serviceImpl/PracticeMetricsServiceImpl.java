@@ -0,0 +1,123 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.dto.CodingEvaluationResult;
+import com.codearena.backend.dto.McqSubmissionResultDTO;
+import com.codearena.backend.entity.PracticeQuestionMetric;
+import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.repository.PracticeQuestionMetricRepository;
+import com.codearena.backend.repository.PracticeQuestionMetricRepository.MetricSummary;
+import com.codearena.backend.service.PracticeMetricsService;
+import com.codearena.backend.utils.constant.Difficulty;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class PracticeMetricsServiceImpl implements PracticeMetricsService {
+
+    private static final String MCQ = "MCQ";
+    private static final String CODING = "CODING";
+
+    private final PracticeQuestionMetricRepository practiceQuestionMetricRepository;
+
+    @Override
+    public void recordMcq(PracticeSession session, McqSubmissionResultDTO evaluation) {
+        practiceQuestionMetricRepository.save(PracticeQuestionMetric.builder()
+                .sessionId(session.getId())
+                .questionNumber(session.getTotalQuestionsAnswered())
+                .questionType(MCQ)
+                .correct(evaluation.isCorrect())
+                .timeTakenSeconds(evaluation.getTimeTakenSeconds())
+                .timeConfidence(evaluation.getTimeConfidenceScore())
+                .difficulty(difficulty(evaluation.getDifficultyLevel()))
+                .topics(evaluation.getTags() != null && !evaluation.getTags().isEmpty()
+                        ? truncate(String.join(",", evaluation.getTags()), 512)
+                        : null)
+                .recordedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public void recordCoding(PracticeSession session, CodingEvaluationResult evaluation) {
+        practiceQuestionMetricRepository.save(PracticeQuestionMetric.builder()
+                .sessionId(session.getId())
+                .questionNumber(session.getTotalQuestionsAnswered())
+                .questionType(CODING)
+                .totalTests(evaluation.getTotalTestCases())
+                .passedTests(evaluation.getPassedTestCases())
+                .averageExecutionTime(evaluation.getAverageExecutionTime())
+                .maxMemoryUsed(evaluation.getMaxMemoryUsed())
+                .compilationError(evaluation.getCompilationError() != null ? true : null)
+                .recordedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public Map<String, String> getPerformanceMetrics(String sessionId) {
+        Map<String, String> metrics = new LinkedHashMap<>();
+
+        for (PracticeQuestionMetric metric : practiceQuestionMetricRepository.findBySessionIdOrderByIdAsc(sessionId)) {
+            if (CODING.equals(metric.getQuestionType())) {
+                String prefix = "coding_q" + metric.getQuestionNumber() + "_";
+                put(metrics, prefix + "total_tests", metric.getTotalTests());
+                put(metrics, prefix + "passed_tests", metric.getPassedTests());
+                put(metrics, prefix + "avg_time", metric.getAverageExecutionTime());
+                put(metrics, prefix + "max_memory", metric.getMaxMemoryUsed());
+                if (Boolean.TRUE.equals(metric.getCompilationError())) {
+                    metrics.put(prefix + "compilation_error", "true");
+                }
+            } else {
+                String prefix = "mcq_q" + metric.getQuestionNumber() + "_";
+                put(metrics, prefix + "correct", metric.getCorrect());
+                put(metrics, prefix + "time_taken", metric.getTimeTakenSeconds());
+                put(metrics, prefix + "time_confidence", metric.getTimeConfidence());
+                metrics.put(prefix + "difficulty",
+                        metric.getDifficulty() != null ? metric.getDifficulty().name() : "UNKNOWN");
+                put(metrics, prefix + "topics", metric.getTopics());
+            }
+        }
+
+        for (MetricSummary summary : practiceQuestionMetricRepository.summarize(sessionId)) {
+            if (CODING.equals(summary.getQuestionType())) {
+                put(metrics, "coding_summary_questions", summary.getQuestions());
+                put(metrics, "coding_summary_passed_tests", summary.getPassedTests());
+                put(metrics, "coding_summary_total_tests", summary.getTotalTests());
+                put(metrics, "coding_summary_avg_time", summary.getAverageExecutionTime());
+                put(metrics, "coding_summary_max_memory", summary.getMaxMemoryUsed());
+            } else {
+                put(metrics, "mcq_summary_questions", summary.getQuestions());
+                put(metrics, "mcq_summary_correct", summary.getCorrect());
+                put(metrics, "mcq_summary_avg_time", summary.getAverageTimeTaken());
+                put(metrics, "mcq_summary_avg_time_confidence", summary.getAverageTimeConfidence());
+            }
+        }
+
+        return metrics;
+    }
+
+    private static void put(Map<String, String> metrics, String key, Object value) {
+        if (value != null) {
+            metrics.put(key, String.valueOf(value));
+        }
+    }
+
+    // "UNKNOWN" comes from failed evaluations
+    private static Difficulty difficulty(String level) {
+        if (level == null) {
+            return null;
+        }
+        try {
+            return Difficulty.valueOf(level.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
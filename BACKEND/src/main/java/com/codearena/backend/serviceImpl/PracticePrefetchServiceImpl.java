@@ -0,0 +1,182 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.PrefetchedQuestionDTO;
+import com.codearena.backend.service.PracticePrefetchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+@Service
+@Slf4j
+public class PracticePrefetchServiceImpl implements PracticePrefetchService {
+
+    // Sessions that end without skip/end/abandon (expiry, closed tab) age out here
+    private static final int MAX_SESSIONS = 10_000;
+
+    private final ThreadPoolTaskExecutor prefetchExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AppProperties appProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Prefetch> prefetches = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Prefetch> eldest) {
+                    if (size() > MAX_SESSIONS) {
+                        eldest.getValue().cancel();
+                        return true;
+                    }
+                    return false;
+                }
+            });
+
+    public PracticePrefetchServiceImpl(@Qualifier("practicePrefetchExecutor") ThreadPoolTaskExecutor prefetchExecutor,
+                                       PlatformTransactionManager transactionManager,
+                                       AppProperties appProperties,
+                                       MeterRegistry meterRegistry) {
+        this.prefetchExecutor = prefetchExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.appProperties = appProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void prefetch(String sessionId, String servedQuestionId, Function<Boolean, PrefetchedQuestionDTO> branch) {
+        if (!appProperties.getPractice().isPrefetchEnabled()) {
+            return;
+        }
+
+        Prefetch prefetch = new Prefetch(servedQuestionId);
+        try {
+            prefetch.correct = submit(sessionId, branch, true);
+            prefetch.incorrect = submit(sessionId, branch, false);
+        } catch (TaskRejectedException e) {
+            prefetch.cancel();
+            count("rejected");
+            log.debug("Prefetch pool full, not prefetching for session {}", sessionId);
+            return;
+        }
+
+        Prefetch previous = prefetches.put(sessionId, prefetch);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    @Override
+    public boolean isPrefetched(String sessionId, String servedQuestionId) {
+        Prefetch prefetch = prefetches.get(sessionId);
+        return prefetch != null && prefetch.servedQuestionId.equals(servedQuestionId);
+    }
+
+    @Override
+    public void resolve(String sessionId, String questionId, boolean correct) {
+        Prefetch prefetch = prefetches.get(sessionId);
+        if (prefetch == null || !prefetch.servedQuestionId.equals(questionId)) {
+            return;
+        }
+
+        prefetch.answeredCorrectly = correct;
+        (correct ? prefetch.incorrect : prefetch.correct).cancel(true);
+    }
+
+    @Override
+    public Optional<PrefetchedQuestionDTO> take(String sessionId, String answeredQuestionId) {
+        Prefetch prefetch = prefetches.remove(sessionId);
+
+        if (prefetch == null
+                || !prefetch.servedQuestionId.equals(answeredQuestionId)
+                || prefetch.answeredCorrectly == null) {
+            if (prefetch != null) {
+                prefetch.cancel();
+            }
+            count("miss");
+            return Optional.empty();
+        }
+
+        Future<PrefetchedQuestionDTO> future = prefetch.answeredCorrectly ? prefetch.correct : prefetch.incorrect;
+
+        try {
+            PrefetchedQuestionDTO prefetched = future.get(appProperties.getPractice().getPrefetchWaitMs(),
+                    TimeUnit.MILLISECONDS);
+            count(prefetched != null ? "hit" : "miss");
+            return Optional.ofNullable(prefetched);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            count("timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            count("miss");
+        } catch (ExecutionException e) {
+            log.debug("Prefetch for session {} failed: {}", sessionId, e.getCause().getMessage());
+            count("miss");
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void cancel(String sessionId) {
+        Prefetch prefetch = prefetches.remove(sessionId);
+        if (prefetch != null) {
+            prefetch.cancel();
+            count("cancelled");
+        }
+    }
+
+    private Future<PrefetchedQuestionDTO> submit(String sessionId,
+                                                 Function<Boolean, PrefetchedQuestionDTO> branch,
+                                                 boolean correct) {
+        // Question lookups load lazy collections, keep a read-only session open for them
+        return prefetchExecutor.submit(() -> {
+            try {
+                return readOnlyTransaction.execute(status -> branch.apply(correct));
+            } catch (RuntimeException e) {
+                log.debug("Prefetch branch {} for session {} failed: {}", correct, sessionId, e.getMessage());
+                throw e;
+            }
+        });
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("practice.prefetch", "result", result).increment();
+    }
+
+    private static class Prefetch {
+        private final String servedQuestionId;
+        private Future<PrefetchedQuestionDTO> correct;
+        private Future<PrefetchedQuestionDTO> incorrect;
+        // null until the served question is answered
+        private volatile Boolean answeredCorrectly;
+
+        Prefetch(String servedQuestionId) {
+            this.servedQuestionId = servedQuestionId;
+        }
+
+        void cancel() {
+            if (correct != null) {
+                correct.cancel(true);
+            }
+            if (incorrect != null) {
+                incorrect.cancel(true);
+            }
+        }
+    }
+}
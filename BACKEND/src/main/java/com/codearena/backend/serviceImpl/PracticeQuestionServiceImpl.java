@@ -3,22 +3,23 @@ package com.codearena.backend.serviceImpl;
 import com.codearena.backend.config.AppProperties;
 import com.codearena.backend.dto.*;
 import com.codearena.backend.entity.CodingQuestion;
+import com.codearena.backend.entity.McqQuestion;
 import com.codearena.backend.entity.PracticeSession;
 import com.codearena.backend.entity.User;
 import com.codearena.backend.exception.BadRequestException;
-import com.codearena.backend.exception.ResourceNotFoundException;
 import com.codearena.backend.repository.CodingQuestionRepository;
+import com.codearena.backend.repository.McqQuestionRepository;
 import com.codearena.backend.repository.PracticeSessionRepository;
 import com.codearena.backend.service.*;
+import com.codearena.backend.service.ai.AbilityModelService;
 import com.codearena.backend.service.ai.AdaptiveQuestionSelector;
 import com.codearena.backend.utils.constant.Difficulty;
 import com.codearena.backend.utils.constant.ErrorMessages;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.apache.bcel.classfile.Code;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,15 +38,22 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
 
     private final PracticeSessionRepository practiceSessionRepository;
     private final AdaptiveQuestionSelector adaptiveQuestionSelector;
+    private final AbilityModelService abilityModelService;
     private final QuestionFetcherService questionFetcherService;
     private final McqEvaluationService mcqEvaluationService;
-    private final ObjectMapper objectMapper;
     private final AppProperties appProperties;
     private final ValidationService validationService;
     private final NotificationService notificationService;
     private final CodingQuestionRepository codingQuestionRepository;
+    private final McqQuestionRepository mcqQuestionRepository;
     private final CodeExecutionService codeExecutionService;
     private final SubmissionServiceImpl submissionService;
+    private final PracticePrefetchService practicePrefetchService;
+    private final PracticeRecommendationService practiceRecommendationService;
+    private final PracticeAttemptService practiceAttemptService;
+    private final PracticeSessionStateService practiceSessionStateService;
+    private final PracticeMetricsService practiceMetricsService;
+    private final ExpiryTimerService expiryTimerService;
     @Override
     @Transactional
     public PracticeSessionDTO startPracticeSession(PracticeMatchRequestDTO request, User user) {
@@ -72,15 +80,14 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         session.setCurrentQuestionIndex(0);
         session.setTotalQuestionsAnswered(0);
         session.setCorrectAnswers(0);
-        session.setAnsweredQuestionIds("[]");
-        session.setPerformanceHistory("[]");
-        session.setPerformanceMetrics(new HashMap<>());
         session.setAverageTimePerQuestion(0.0);
         session.setAccuracyPercentage(0.0);
         session.setCompleted(false);
         session.setExpired(false);
 
         PracticeSession savedSession = practiceSessionRepository.save(session);
+        practiceSessionStateService.track(savedSession);
+        expiryTimerService.scheduleSessionExpiry(savedSession.getId(), savedSession.getExpiresAt());
         log.info("Practice session started: {} for user: {}", savedSession.getId(), user.getUsername());
 
         // Send notification
@@ -101,8 +108,9 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         }
 
         // Check if the current question is still pending (not answered yet)
-        Set<String> answeredIds = getUsedQuestionIds(session);
+        Set<String> answeredIds = practiceAttemptService.getUsedQuestionIds(session.getId());
         if (!answeredIds.contains(session.getCurrentQuestionId())) {
+            prefetchNextQuestion(session);
             return questionFetcherService.fetchQuestion(session.getCurrentQuestionId(), session.getQuestionType(), session);
         }
 
@@ -112,7 +120,7 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
             return null;
         }
 
-        return getNextQuestionForSession(session);
+        return getNextQuestionForSession(session, answeredIds);
     }
 
 //    @Override
@@ -151,13 +159,17 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
     @Transactional
     public PracticeResultDTO endPracticeSession(String sessionId, User user) {
         PracticeSession session = getSession(sessionId, user);
+        practicePrefetchService.cancel(sessionId);
 
         if (!session.isCompleted()) {
             completeSession(session);
         }
 
-        // Generate AI recommendations
-        RecommendationsDTO recommendations = adaptiveQuestionSelector.generateRecommendations(session);
+        // Stored after the first end call, otherwise generated after commit and pushed to the user
+        RecommendationsDTO recommendations = practiceRecommendationService.getStored(session).orElse(null);
+        if (recommendations == null) {
+            practiceRecommendationService.generateAfterCommit(session.getId(), user);
+        }
 
         // Build result
         PracticeResultDTO result = PracticeResultDTO.builder()
@@ -175,7 +187,8 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
                 .overallDifficultyLevel(calculateOverallDifficulty(session))
                 .aiFeedback(generateAIFeedback(session))
                 .recommendations(recommendations)
-                .performanceMetrics(session.getPerformanceMetrics())
+                .recommendationsPending(recommendations == null)
+                .performanceMetrics(practiceMetricsService.getPerformanceMetrics(session.getId()))
                 .startedAt(session.getStartedAt())
                 .completedAt(session.getExpiresAt())
                 .build();
@@ -197,7 +210,7 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
 
         if (session.isExpired()) {
             session.setExpired(true);
-            practiceSessionRepository.save(session);
+            practiceSessionStateService.end(session);
             throw new BadRequestException(ErrorMessages.SESSION_EXPIRED);
         }
 
@@ -217,7 +230,9 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         List<PracticeSession> sessions = practiceSessionRepository
                 .findByUserIdAndIsCompletedFalseAndIsExpiredFalse(user.getId());
 
+        // The stored counters may be a flush behind
         return sessions.stream()
+                .map(session -> practiceSessionStateService.load(session.getId()))
                 .map(this::mapToSessionDTO)
                 .toList();
     }
@@ -240,7 +255,8 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         validateSessionActive(session);
 
         session.setExpiresAt(session.getExpiresAt().plusMinutes(additionalMinutes));
-        practiceSessionRepository.save(session);
+        practiceSessionStateService.saveNow(session);
+        expiryTimerService.scheduleSessionExpiry(sessionId, session.getExpiresAt());
 
         log.info("Extended session {} by {} minutes", sessionId, additionalMinutes);
         notificationService.sendSessionExtended(user, sessionId, additionalMinutes);
@@ -252,32 +268,30 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         PracticeSession session = getSession(sessionId, user);
         validateSessionActive(session);
 
-        // Add current question to answered list (even though skipped, it counts as "done")
+        // Both prefetched branches assumed an answer
+        practicePrefetchService.cancel(sessionId);
+
+        // A skipped question counts as "done", the attempt log marks it as skipped
         String currentQuestionId = session.getCurrentQuestionId();
         if (currentQuestionId != null && !currentQuestionId.isEmpty()) {
-            Set<String> answeredIds = getUsedQuestionIds(session);
-            if (!answeredIds.contains(currentQuestionId)) {
-                addUsedQuestion(session, currentQuestionId);
-            }
+            practiceAttemptService.recordSkip(session, currentQuestionId);
         }
 
-        // Mark current question as skipped in history
-        addSkippedQuestionToHistory(session);
-
         // Move to next question index
         session.setCurrentQuestionIndex(session.getCurrentQuestionIndex() + 1);
 
         // Check if session is complete based on unique questions answered/skipped
-        Set<String> answeredIds = getUsedQuestionIds(session);
+        Set<String> answeredIds = practiceAttemptService.getUsedQuestionIds(sessionId);
         if (answeredIds.size() >= session.getMaxQuestions()) {
             completeSession(session);
             return;
         }
 
         // Get next question
-        String nextQuestionId = selectNextQuestion(session);
+        String nextQuestionId = selectNextQuestion(session, answeredIds);
         session.setCurrentQuestionId(nextQuestionId);
-        practiceSessionRepository.save(session);
+        practiceSessionStateService.savePosition(session);
+        prefetchNextQuestion(session);
 
         log.info("Question skipped in session: {}", sessionId);
     }
@@ -286,12 +300,14 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
     @Transactional
     public void abandonSession(String sessionId, User user) {
         PracticeSession session = getSession(sessionId, user);
+        practicePrefetchService.cancel(sessionId);
 
         if (!session.isCompleted()) {
             session.setCompleted(true);
             session.setExpired(true);
             session.setExpiresAt(LocalDateTime.now());
-            practiceSessionRepository.save(session);
+            practiceSessionStateService.end(session);
+            expiryTimerService.cancelSessionExpiry(sessionId);
 
             log.info("Session {} abandoned by user: {}", sessionId, user.getUsername());
             notificationService.sendSessionAbandoned(user, sessionId);
@@ -301,13 +317,15 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
     // ==================== PRIVATE HELPER METHODS ====================
 
     private PracticeSession getSession(String sessionId, User user) {
-        PracticeSession session = practiceSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new ResourceNotFoundException(ErrorMessages.SESSION_NOT_FOUND));
+        // Active sessions come from their hot state, ended ones from MySQL
+        PracticeSession session = practiceSessionStateService.load(sessionId);
 
         if (!session.getUser().getId().equals(user.getId())) {
             throw new BadRequestException(ErrorMessages.SESSION_NO_PERMISSION);
         }
 
+        // Hot state only keeps the owner's id
+        session.setUser(user);
         return session;
     }
 
@@ -318,7 +336,8 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
 
         if (LocalDateTime.now().isAfter(session.getExpiresAt())) {
             session.setExpired(true);
-            practiceSessionRepository.save(session);
+            practiceSessionStateService.end(session);
+            expiryTimerService.cancelSessionExpiry(session.getId());
             throw new BadRequestException(ErrorMessages.SESSION_EXPIRED);
         }
     }
@@ -363,7 +382,8 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         
         log.info("✅ Selected first question ID: {}", questionId);
         session.setCurrentQuestionId(questionId);
-        practiceSessionRepository.save(session);
+        practiceSessionStateService.savePosition(session);
+        prefetchNextQuestion(session);
         
         PracticeQuestionResponseDTO question = questionFetcherService.fetchQuestion(questionId, session.getQuestionType(), session);
         log.info("📝 Fetched question: {}", question != null ? question.getTitle() : "NULL");
@@ -371,9 +391,28 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         return question;
     }
 
-    private PracticeQuestionResponseDTO getNextQuestionForSession(PracticeSession session) {
+    private PracticeQuestionResponseDTO getNextQuestionForSession(PracticeSession session,
+                                                                  Set<String> usedQuestionIds) {
+        String answeredQuestionId = session.getCurrentQuestionId();
         session.setCurrentQuestionIndex(session.getCurrentQuestionIndex() + 1);
-        String nextQuestionId = selectNextQuestion(session);
+
+        // Prefetched while the user was answering, only the position fields are stale
+        Optional<PrefetchedQuestionDTO> prefetched = practicePrefetchService.take(session.getId(), answeredQuestionId)
+                .filter(next -> !usedQuestionIds.contains(next.getQuestionId()));
+
+        if (prefetched.isPresent()) {
+            PrefetchedQuestionDTO next = prefetched.get();
+            if (next.getDifficulty() != session.getCurrentDifficulty()) {
+                log.info("Difficulty adjusted to {} for session: {}", next.getDifficulty(), session.getId());
+            }
+            session.setCurrentDifficulty(next.getDifficulty());
+            session.setCurrentQuestionId(next.getQuestionId());
+            practiceSessionStateService.savePosition(session);
+            prefetchNextQuestion(session);
+            return withCurrentPosition(next.getQuestion(), session);
+        }
+
+        String nextQuestionId = selectNextQuestion(session, usedQuestionIds);
 
         if (nextQuestionId == null) {
             completeSession(session);
@@ -381,12 +420,71 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         }
 
         session.setCurrentQuestionId(nextQuestionId);
-        practiceSessionRepository.save(session);
+        practiceSessionStateService.savePosition(session);
+        prefetchNextQuestion(session);
         return questionFetcherService.fetchQuestion(nextQuestionId, session.getQuestionType(), session);
     }
 
+    // ================= PREFETCH =================
+
+    /**
+     * Start selecting the question after the one just served, once for a correct and once for an
+     * incorrect answer. Each branch works on its own copy of the session, never on the entity.
+     */
+    private void prefetchNextQuestion(PracticeSession session) {
+        String servedQuestionId = session.getCurrentQuestionId();
+        if (servedQuestionId == null || servedQuestionId.isEmpty()
+                || practicePrefetchService.isPrefetched(session.getId(), servedQuestionId)) {
+            return;
+        }
+
+        // State as it will be once the served question is answered
+        PracticeSession answered = new PracticeSession();
+        BeanUtils.copyProperties(session, answered);
+        answered.setCurrentQuestionIndex(session.getCurrentQuestionIndex() + 1);
+
+        Set<String> usedAfterAnswer = new HashSet<>(practiceAttemptService.getUsedQuestionIds(session.getId()));
+        usedAfterAnswer.add(servedQuestionId);
+        if (usedAfterAnswer.size() >= session.getMaxQuestions()) {
+            return; // served question is the last one
+        }
+        Set<String> usedQuestionIds = Set.copyOf(usedAfterAnswer);
+
+        String userId = session.getUser().getId();
+        String questionType = session.getQuestionType();
+        Difficulty servedLabel = questionDifficulty(servedQuestionId, questionType);
+
+        practicePrefetchService.prefetch(session.getId(), servedQuestionId, correct -> {
+            PracticeSession branch = new PracticeSession();
+            BeanUtils.copyProperties(answered, branch);
+
+            double ability = abilityModelService.projectedAbility(userId, questionType, servedQuestionId, servedLabel,
+                    correct);
+            String questionId = selectNextQuestion(branch, usedQuestionIds, ability);
+            if (questionId == null) {
+                return null;
+            }
+
+            return PrefetchedQuestionDTO.builder()
+                    .difficulty(branch.getCurrentDifficulty())
+                    .questionId(questionId)
+                    .question(questionFetcherService.fetchQuestion(questionId, questionType, branch))
+                    .build();
+        });
+    }
+
+    private PracticeQuestionResponseDTO withCurrentPosition(PracticeQuestionResponseDTO question,
+                                                            PracticeSession session) {
+        question.setQuestionNumber(session.getCurrentQuestionIndex() + 1);
+        question.setTotalQuestions(session.getMaxQuestions());
+        question.setLastQuestion(session.getCurrentQuestionIndex() >= session.getMaxQuestions() - 1);
+        question.setTimeRemainingSeconds(Math.max(0,
+                Duration.between(LocalDateTime.now(), session.getExpiresAt()).getSeconds()));
+        return question;
+    }
+
     private String selectFirstQuestion(PracticeSession session) {
-        Set<String> usedQuestionIds = getUsedQuestionIds(session);
+        Set<String> usedQuestionIds = practiceAttemptService.getUsedQuestionIds(session.getId());
         log.info("🔍 Selecting first question - Type: {}, Difficulty: {}, Topic: {}, Used IDs: {}", 
                 session.getQuestionType(), session.getCurrentDifficulty(), 
                 session.getTopic(), usedQuestionIds.size());
@@ -410,22 +508,31 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         }
     }
 
-    private String selectNextQuestion(PracticeSession session) {
+    private String selectNextQuestion(PracticeSession session, Set<String> usedQuestionIds) {
+        return selectNextQuestion(session, usedQuestionIds, null);
+    }
+
+    /**
+     * projectedAbility is set for prefetch branches, null selects for the user's current ability
+     */
+    private String selectNextQuestion(PracticeSession session, Set<String> usedQuestionIds, Double projectedAbility) {
         // Adjust difficulty based on performance
-        Difficulty newDifficulty = adaptiveQuestionSelector.adjustDifficulty(session);
+        Difficulty newDifficulty = projectedAbility == null
+                ? adaptiveQuestionSelector.adjustDifficulty(session)
+                : adaptiveQuestionSelector.adjustDifficulty(session, projectedAbility);
         if (newDifficulty != session.getCurrentDifficulty()) {
             session.setCurrentDifficulty(newDifficulty);
             log.info("Difficulty adjusted to {} for session: {}", newDifficulty, session.getId());
         }
 
-        Set<String> usedQuestionIds = getUsedQuestionIds(session);
-
         if ("CODING".equals(session.getQuestionType())) {
             // CODING: Use difficulty-based selection
             List<CodingQuestionDTO> questions = questionFetcherService.getCodingQuestionsByDifficulty(
                     session.getCurrentDifficulty(), session.getTopic(), 20
             );
-            return adaptiveQuestionSelector.selectNextCodingQuestion(session, questions, usedQuestionIds);
+            return projectedAbility == null
+                    ? adaptiveQuestionSelector.selectNextCodingQuestion(session, questions, usedQuestionIds)
+                    : adaptiveQuestionSelector.selectNextCodingQuestion(session, questions, usedQuestionIds, projectedAbility);
         } else {
             // MCQ: Use adaptive selection from ALL difficulties
             List<McqQuestionResponseDTO> questions = questionFetcherService.getAllMcqQuestions(
@@ -433,21 +540,24 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
             );
             log.info("📚 Found {} MCQ questions from all difficulties for adaptive selection", 
                     questions != null ? questions.size() : 0);
-            return adaptiveQuestionSelector.selectNextMcqQuestion(session, questions, usedQuestionIds);
+            return projectedAbility == null
+                    ? adaptiveQuestionSelector.selectNextMcqQuestion(session, questions, usedQuestionIds)
+                    : adaptiveQuestionSelector.selectNextMcqQuestion(session, questions, usedQuestionIds, projectedAbility);
         }
     }
 
     private boolean processSubmission(PracticeSubmissionDTO submission, PracticeSession session) {
-        // Add question to used list (only if not already there)
-        Set<String> answeredIds = getUsedQuestionIds(session);
-        boolean isFirstAttempt = !answeredIds.contains(submission.getQuestionId());
-        
+        // Any earlier attempt, answer or skip, makes this a retry
+        boolean isFirstAttempt = !practiceAttemptService.isUsed(session.getId(), submission.getQuestionId());
+
         if (isFirstAttempt) {
-            addUsedQuestion(session, submission.getQuestionId());
             session.setTotalQuestionsAnswered(session.getTotalQuestionsAnswered() + 1);
         }
 
         boolean isCorrect = false;
+        String submissionId = null;
+        // False when the judge could not grade it (internal error, timeout), that says nothing about the user
+        boolean graded = true;
 
         if ("CODING".equals(submission.getQuestionType())) {
             CodeExecutionDTO codeExecutionDTO = new CodeExecutionDTO();
@@ -457,10 +567,12 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
             codeExecutionDTO.setVersion(submissionService.getLanguageVersion(submission.getLanguage()));
             CodeExecutionResultDTO codeExecutionResultDTO = codeExecutionService.submitCode(codeExecutionDTO);
             log.info("Output of coding practice submission: {}", codeExecutionResultDTO);
+            submissionId = codeExecutionResultDTO != null ? codeExecutionResultDTO.getId() : null;
             
             if (codeExecutionResultDTO != null && "✅ Accepted".equals(codeExecutionResultDTO.getStdout())) {
                 isCorrect = true;
             }
+            graded = codeExecutionResultDTO != null && codeExecutionResultDTO.getExitCode() != -1;
 //            CodingEvaluationResult evaluationResult = evaluateCodingSubmission(submission, session);
 //            isCorrect = evaluationResult.isPassed();
 //            storeCodingEvaluation(session, submission, evaluationResult);
@@ -468,25 +580,46 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
             isCorrect = evaluateMcqSubmission(submission, session);
         }
 
+        // Only first attempts move the ability estimates, retries would just replay the same item
+        if (isFirstAttempt && graded) {
+            abilityModelService.recordAnswer(session.getUser().getId(), session.getQuestionType(),
+                    submission.getQuestionId(), questionDifficulty(submission.getQuestionId(), session.getQuestionType()),
+                    isCorrect);
+            practicePrefetchService.resolve(session.getId(), submission.getQuestionId(), isCorrect);
+        } else if (isFirstAttempt) {
+            // Ability did not move, neither prefetched branch matches
+            practicePrefetchService.cancel(session.getId());
+        }
+
         // Update statistics
         if (isCorrect) {
             session.setCorrectAnswers(session.getCorrectAnswers() + 1);
         }
 
-        updateAverageTime(session, submission.getTimeTakenSeconds());
+        updateAverageTime(session, submission.getTimeTakenSeconds(), isFirstAttempt);
         session.setAccuracyPercentage(
                 (double) session.getCorrectAnswers() / session.getTotalQuestionsAnswered() * 100
         );
 
-        // Add to performance history
-        addPerformanceHistory(session, submission, isCorrect);
+        // Append to the attempt log
+        practiceAttemptService.recordAnswer(session, submission, isCorrect, submissionId);
 
-        // Save session
-        practiceSessionRepository.save(session);
+        // Counters go to the hot state, MySQL gets them with the next flush
+        practiceSessionStateService.recordAnswer(session, isFirstAttempt, isCorrect, submission.getTimeTakenSeconds());
 
         return isCorrect;
     }
 
+    /**
+     * Label of a question, the ability model's prior for it, null when the question is gone
+     */
+    private Difficulty questionDifficulty(String questionId, String questionType) {
+        Optional<Difficulty> label = "CODING".equals(questionType)
+                ? codingQuestionRepository.findById(questionId).map(CodingQuestion::getDifficulty)
+                : mcqQuestionRepository.findById(questionId).map(McqQuestion::getDifficulty);
+        return label.orElse(null);
+    }
+
     private CodingEvaluationResult evaluateCodingSubmission(PracticeSubmissionDTO submission, PracticeSession session) {
         try {
             CodingQuestion codingQuestion = codingQuestionRepository.findById(submission.getQuestionId()).get();
@@ -530,113 +663,21 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
     private void storeCodingEvaluation(PracticeSession session,
                                        PracticeSubmissionDTO submission,
                                        CodingEvaluationResult evaluationResult) {
-        Map<String, String> metrics = session.getPerformanceMetrics();
-        if (metrics == null) {
-            metrics = new HashMap<>();
-        }
-
-        String keyPrefix = "coding_q" + session.getTotalQuestionsAnswered() + "_";
-        metrics.put(keyPrefix + "total_tests", String.valueOf(evaluationResult.getTotalTestCases()));
-        metrics.put(keyPrefix + "passed_tests", String.valueOf(evaluationResult.getPassedTestCases()));
-        metrics.put(keyPrefix + "avg_time", String.valueOf(evaluationResult.getAverageExecutionTime()));
-        metrics.put(keyPrefix + "max_memory", String.valueOf(evaluationResult.getMaxMemoryUsed()));
-
-        if (evaluationResult.getCompilationError() != null) {
-            metrics.put(keyPrefix + "compilation_error", "true");
-        }
-
-        session.setPerformanceMetrics(metrics);
+        practiceMetricsService.recordCoding(session, evaluationResult);
     }
 
     private void storeMcqEvaluation(PracticeSession session,
                                     PracticeSubmissionDTO submission,
                                     McqSubmissionResultDTO evaluationResult) {
-        Map<String, String> metrics = session.getPerformanceMetrics();
-        if (metrics == null) {
-            metrics = new HashMap<>();
-        }
-
-        String keyPrefix = "mcq_q" + session.getTotalQuestionsAnswered() + "_";
-        metrics.put(keyPrefix + "correct", String.valueOf(evaluationResult.isCorrect()));
-        metrics.put(keyPrefix + "time_taken", String.valueOf(evaluationResult.getTimeTakenSeconds()));
-        metrics.put(keyPrefix + "time_confidence", String.valueOf(evaluationResult.getTimeConfidenceScore()));
-        metrics.put(keyPrefix + "difficulty", evaluationResult.getDifficultyLevel());
-
-        if (evaluationResult.getTags() != null && !evaluationResult.getTags().isEmpty()) {
-            metrics.put(keyPrefix + "topics", String.join(",", evaluationResult.getTags()));
-        }
-
-        session.setPerformanceMetrics(metrics);
-    }
-
-    private void addPerformanceHistory(PracticeSession session,
-                                       PracticeSubmissionDTO submission,
-                                       boolean isCorrect) {
-        try {
-            List<Map<String, Object>> history = objectMapper.readValue(
-                    session.getPerformanceHistory(),
-                    new TypeReference<List<Map<String, Object>>>() {}
-            );
-
-            Map<String, Object> entry = new HashMap<>();
-            entry.put("questionId", submission.getQuestionId());
-            entry.put("questionType", submission.getQuestionType());
-            entry.put("timeTaken", submission.getTimeTakenSeconds());
-            entry.put("isCorrect", isCorrect);
-            entry.put("timestamp", LocalDateTime.now().toString());
-            entry.put("confidence", submission.getConfidenceScore());
-
-            if ("CODING".equals(submission.getQuestionType())) {
-                entry.put("language", submission.getLanguage());
-                if (submission.getTestCasesPassed() > 0) {
-                    entry.put("testCasesPassed", submission.getTestCasesPassed());
-                    entry.put("totalTestCases", submission.getTotalTestCases());
-                }
-                if (submission.getSourceCode() != null) {
-                    // Safe truncation that won't break JSON
-                    String codeSnippet = truncateCodeSafely(submission.getSourceCode(), 500);
-                    entry.put("codeSnippet", codeSnippet);
-                }
-            } else {
-                entry.put("selectedOptionId", submission.getSelectedOptionId());
-            }
-
-            history.add(entry);
-            session.setPerformanceHistory(objectMapper.writeValueAsString(history));
-
-        } catch (JsonProcessingException e) {
-            log.error("Error updating performance history: {}", e.getMessage(), e);
-        }
-    }
-
-    private void addSkippedQuestionToHistory(PracticeSession session) {
-        try {
-            List<Map<String, Object>> history = objectMapper.readValue(
-                    session.getPerformanceHistory(),
-                    new TypeReference<List<Map<String, Object>>>() {}
-            );
-
-            Map<String, Object> entry = new HashMap<>();
-            entry.put("questionId", session.getCurrentQuestionId());
-            entry.put("questionType", session.getQuestionType());
-            entry.put("timeTaken", 0);
-            entry.put("isCorrect", false);
-            entry.put("timestamp", LocalDateTime.now().toString());
-            entry.put("confidence", 0.0);
-            entry.put("skipped", true);
-
-            history.add(entry);
-            session.setPerformanceHistory(objectMapper.writeValueAsString(history));
-
-        } catch (JsonProcessingException e) {
-            log.error("Error updating skipped question history: {}", e.getMessage(), e);
-        }
+        practiceMetricsService.recordMcq(session, evaluationResult);
     }
 
     private void completeSession(PracticeSession session) {
+        practicePrefetchService.cancel(session.getId());
         session.setCompleted(true);
         session.setExpiresAt(LocalDateTime.now());
-        practiceSessionRepository.save(session);
+        practiceSessionStateService.end(session);
+        expiryTimerService.cancelSessionExpiry(session.getId());
 
         log.info("Practice session completed: {}", session.getId());
 
@@ -644,34 +685,12 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         notificationService.sendPracticeSessionCompleted(session.getUser(), session.getId(), null);
     }
 
-    private Set<String> getUsedQuestionIds(PracticeSession session) {
-        try {
-            List<String> usedIds = objectMapper.readValue(
-                    session.getAnsweredQuestionIds(),
-                    new TypeReference<List<String>>() {}
-            );
-            return new HashSet<>(usedIds);
-        } catch (JsonProcessingException e) {
-            log.error("Error parsing used question IDs: {}", e.getMessage(), e);
-            return new HashSet<>();
-        }
-    }
-
-    private void addUsedQuestion(PracticeSession session, String questionId) {
-        try {
-            List<String> usedIds = objectMapper.readValue(
-                    session.getAnsweredQuestionIds(),
-                    new TypeReference<List<String>>() {}
-            );
-            usedIds.add(questionId);
-            session.setAnsweredQuestionIds(objectMapper.writeValueAsString(usedIds));
-        } catch (JsonProcessingException e) {
-            log.error("Error updating used question IDs: {}", e.getMessage(), e);
-        }
-    }
-
-    private void updateAverageTime(PracticeSession session, long newTime) {
-        double currentTotal = session.getAverageTimePerQuestion() * (session.getTotalQuestionsAnswered() - 1);
+    /**
+     * Time of every submission over the questions answered, the same running average the hot state keeps
+     */
+    private void updateAverageTime(PracticeSession session, long newTime, boolean firstAttempt) {
+        int answeredBefore = session.getTotalQuestionsAnswered() - (firstAttempt ? 1 : 0);
+        double currentTotal = session.getAverageTimePerQuestion() * answeredBefore;
         session.setAverageTimePerQuestion((currentTotal + newTime) / session.getTotalQuestionsAnswered());
     }
 
@@ -744,7 +763,7 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
                 .averageTimePerQuestion(session.getAverageTimePerQuestion())
                 .accuracyPercentage(session.getAccuracyPercentage())
                 .currentQuestionId(session.getCurrentQuestionId())
-                .performanceMetrics(session.getPerformanceMetrics())
+                .performanceMetrics(practiceMetricsService.getPerformanceMetrics(session.getId()))
                 .isCompleted(session.isCompleted())
                 .isExpired(session.isExpired())
                 .build();
@@ -776,36 +795,6 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         return Math.max(0, remainingSeconds / 60); // Convert to minutes
     }
 
-    /**
-     * ✅ Safe code truncation that preserves JSON integrity
-     */
-    private String truncateCodeSafely(String code, int maxLength) {
-        if (code == null) return "";
-        if (code.length() <= maxLength) return code;
-
-        // Truncate
-        String truncated = code.substring(0, maxLength);
-
-        // Remove trailing backslash (incomplete escape sequence)
-        while (truncated.endsWith("\\") && truncated.length() > 0) {
-            truncated = truncated.substring(0, truncated.length() - 1);
-        }
-
-        // Balance quotes to prevent JSON parsing errors
-        long doubleQuoteCount = truncated.chars().filter(ch -> ch == '"').count();
-        if (doubleQuoteCount % 2 != 0) {
-            int lastQuote = truncated.lastIndexOf('"');
-            if (lastQuote > 0) {
-                truncated = truncated.substring(0, lastQuote);
-            }
-        }
-
-        // Remove trailing newlines/whitespace
-        truncated = truncated.trim();
-
-        return truncated + "\n... [code truncated]";
-    }
-
     /**
      * ✅ Auto-cleanup expired sessions (can be called by scheduled task)
      */
@@ -822,5 +811,6 @@ public class PracticeQuestionServiceImpl implements PracticeQuestionService {
         }
 
         practiceSessionRepository.saveAll(expiredSessions);
+        practiceSessionStateService.forget(expiredSessions.stream().map(PracticeSession::getId).toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.dto.RecommendationsDTO;
+import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.entity.User;
+import com.codearena.backend.repository.PracticeSessionRepository;
+import com.codearena.backend.service.NotificationService;
+import com.codearena.backend.service.PracticeRecommendationService;
+import com.codearena.backend.service.ai.AdaptiveQuestionSelector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class PracticeRecommendationServiceImpl implements PracticeRecommendationService {
+
+    private final PracticeSessionRepository practiceSessionRepository;
+    private final AdaptiveQuestionSelector adaptiveQuestionSelector;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor recommendationExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // Sessions with a generation queued or running on this node
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public PracticeRecommendationServiceImpl(PracticeSessionRepository practiceSessionRepository,
+                                             AdaptiveQuestionSelector adaptiveQuestionSelector,
+                                             NotificationService notificationService,
+                                             ObjectMapper objectMapper,
+                                             @Qualifier("recommendationExecutor") ThreadPoolTaskExecutor recommendationExecutor,
+                                             MeterRegistry meterRegistry) {
+        this.practiceSessionRepository = practiceSessionRepository;
+        this.adaptiveQuestionSelector = adaptiveQuestionSelector;
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+        this.recommendationExecutor = recommendationExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Optional<RecommendationsDTO> getStored(PracticeSession session) {
+        if (session.getRecommendations() == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(session.getRecommendations(), RecommendationsDTO.class));
+        } catch (Exception e) {
+            log.warn("Stored recommendations of session {} are unreadable: {}", session.getId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void generateAfterCommit(String sessionId, User user) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The worker reads the session in its own transaction, it must see the completed state
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(sessionId, user);
+                }
+            });
+        } else {
+            submit(sessionId, user);
+        }
+    }
+
+    private void submit(String sessionId, User user) {
+        if (!inFlight.add(sessionId)) {
+            return;
+        }
+
+        try {
+            recommendationExecutor.execute(() -> generate(sessionId, user));
+        } catch (TaskRejectedException e) {
+            inFlight.remove(sessionId);
+            count("rejected");
+            log.warn("Recommendation pool full, session {} gets them on its next end call", sessionId);
+        }
+    }
+
+    private void generate(String sessionId, User user) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            PracticeSession session = practiceSessionRepository.findById(sessionId).orElse(null);
+            if (session == null || session.getRecommendations() != null) {
+                return;
+            }
+
+            RecommendationsDTO recommendations = adaptiveQuestionSelector.generateRecommendations(session);
+
+            int stored = practiceSessionRepository.saveRecommendationsIfAbsent(
+                    sessionId, objectMapper.writeValueAsString(recommendations));
+            if (stored == 0) {
+                // Another node finished first and has notified the user
+                return;
+            }
+
+            notificationService.sendPracticeRecommendationsReady(user, sessionId, recommendations);
+            count("generated");
+            log.info("📬 Recommendations ready for session {}", sessionId);
+
+        } catch (Exception e) {
+            count("failed");
+            log.error("Generating recommendations for session {} failed: {}", sessionId, e.getMessage(), e);
+        } finally {
+            inFlight.remove(sessionId);
+            sample.stop(meterRegistry.timer("practice.recommendations.latency"));
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("practice.recommendations", "result", result).increment();
+    }
+}
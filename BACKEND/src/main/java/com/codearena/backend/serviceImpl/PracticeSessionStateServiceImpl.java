@@ -0,0 +1,484 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.entity.PracticeAttempt;
+import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.entity.User;
+import com.codearena.backend.exception.ResourceNotFoundException;
+import com.codearena.backend.repository.PracticeSessionRepository;
+import com.codearena.backend.repository.UserRepository;
+import com.codearena.backend.service.PracticeAttemptService;
+import com.codearena.backend.service.PracticeSessionStateService;
+import com.codearena.backend.utils.constant.Difficulty;
+import com.codearena.backend.utils.constant.ErrorMessages;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Hash per session at practice:session:{id}, the ids changed since their last flush in the
+ * practice:session:dirty set.
+ *
+ * Crash recovery: the flusher pops ids before writing them and puts them back if the write
+ * fails, and a node that dies mid-flush leaves the hashes in Redis for the next run. When a hash
+ * is gone (Redis restart, expired), the next load rebuilds it from the MySQL row and the attempt
+ * log. Updates only ever touch an existing hash, a missing one is written to MySQL directly.
+ */
+@Service
+@Slf4j
+public class PracticeSessionStateServiceImpl implements PracticeSessionStateService {
+
+    private static final String STATE_KEY = "practice:session:";
+    private static final String DIRTY_KEY = "practice:session:dirty";
+
+    // ================= HASH FIELDS =================
+    private static final String USER_ID = "userId";
+    private static final String USERNAME = "username"; // notifications are addressed by it
+    private static final String SESSION_CODE = "sessionCode";
+    private static final String QUESTION_TYPE = "questionType";
+    private static final String TOPIC = "topic";
+    private static final String MAX_QUESTIONS = "maxQuestions";
+    private static final String TIME_LIMIT_MINUTES = "timeLimitMinutes";
+    private static final String STARTING_DIFFICULTY = "startingDifficulty";
+    private static final String CURRENT_DIFFICULTY = "currentDifficulty";
+    private static final String STARTED_AT = "startedAt";
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final String QUESTION_INDEX = "currentQuestionIndex";
+    private static final String QUESTION_ID = "currentQuestionId";
+    private static final String ANSWERED = "answered";
+    private static final String CORRECT = "correct";
+    private static final String TIME_TOTAL = "timeTotal"; // seconds over all submissions
+
+    // KEYS: state, dirty set. ARGV: session id, then field/value pairs. 0 when the hash is gone.
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end
+            redis.call('SADD', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: state, dirty set. ARGV: session id, answered, correct, seconds.
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            redis.call('HINCRBY', KEYS[1], 'answered', ARGV[2])
+            redis.call('HINCRBY', KEYS[1], 'correct', ARGV[3])
+            redis.call('HINCRBY', KEYS[1], 'timeTotal', ARGV[4])
+            redis.call('SADD', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PracticeSessionRepository practiceSessionRepository;
+    private final PracticeAttemptService practiceAttemptService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate writeTransaction;
+    private final AppProperties.Practice config;
+    private final MeterRegistry meterRegistry;
+
+    public PracticeSessionStateServiceImpl(StringRedisTemplate stringRedisTemplate,
+                                           PracticeSessionRepository practiceSessionRepository,
+                                           PracticeAttemptService practiceAttemptService,
+                                           UserRepository userRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           AppProperties appProperties,
+                                           MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.practiceSessionRepository = practiceSessionRepository;
+        this.practiceAttemptService = practiceAttemptService;
+        this.userRepository = userRepository;
+        // Fallback writes run after the caller committed, they need a transaction of their own
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.config = appProperties.getPractice();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public PracticeSession load(String sessionId) {
+        PracticeSession hot = read(sessionId);
+        if (hot != null) {
+            if (hot.getUser().getUsername() == null) {
+                resolveOwner(hot);
+            }
+            count("hit");
+            return hot;
+        }
+
+        PracticeSession stored = practiceSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorMessages.SESSION_NOT_FOUND));
+
+        if (stored.isCompleted() || stored.isExpired()) {
+            return stored;
+        }
+
+        count("rebuilt");
+        return rebuild(stored);
+    }
+
+    @Override
+    public void track(PracticeSession session) {
+        PracticeSession hot = copyOf(session);
+        afterCommit(() -> writeState(hot));
+    }
+
+    @Override
+    public void savePosition(PracticeSession session) {
+        update(session, QUESTION_INDEX, String.valueOf(session.getCurrentQuestionIndex()),
+                QUESTION_ID, session.getCurrentQuestionId(),
+                CURRENT_DIFFICULTY, name(session.getCurrentDifficulty()));
+    }
+
+    @Override
+    public void recordAnswer(PracticeSession session, boolean firstAttempt, boolean correct, long timeTakenSeconds) {
+        PracticeSession snapshot = copyOf(session);
+        String[] args = {
+                session.getId(),
+                firstAttempt ? "1" : "0",
+                correct ? "1" : "0",
+                String.valueOf(timeTakenSeconds)
+        };
+
+        afterCommit(() -> {
+            if (!execute(INCREMENT_SCRIPT, snapshot.getId(), args)) {
+                persistQuietly(snapshot);
+            }
+        });
+    }
+
+    @Override
+    public void saveNow(PracticeSession session) {
+        practiceSessionRepository.save(persistedCopy(session));
+
+        PracticeSession snapshot = copyOf(session);
+        afterCommit(() -> {
+            if (execute(UPDATE_SCRIPT, snapshot.getId(), snapshot.getId(),
+                    EXPIRES_AT, snapshot.getExpiresAt().toString())) {
+                expireWithSession(snapshot);
+            }
+        });
+    }
+
+    @Override
+    public void end(PracticeSession session) {
+        PracticeSession stored = persistedCopy(session);
+        stored.setCompleted(session.isCompleted());
+        stored.setExpired(session.isExpired());
+        practiceSessionRepository.save(stored);
+
+        // Before commit a concurrent load would rebuild the still active row, so drop it after
+        afterCommit(() -> forget(List.of(session.getId())));
+    }
+
+    @Override
+    public void forget(Iterable<String> sessionIds) {
+        List<String> keys = new ArrayList<>();
+        sessionIds.forEach(id -> keys.add(STATE_KEY + id));
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        try {
+            stringRedisTemplate.delete(keys);
+            stringRedisTemplate.opsForSet().remove(DIRTY_KEY,
+                    keys.stream().map(key -> key.substring(STATE_KEY.length())).toArray());
+        } catch (Exception e) {
+            // The hashes expire on their own, the flusher skips sessions that are no longer active
+            log.warn("Could not drop hot state of {} practice sessions: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public int flushDirty() {
+        List<String> ids = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, config.getStateFlushBatchSize());
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            Map<String, PracticeSession> hot = readAll(ids);
+            writeTransaction.executeWithoutResult(status -> {
+                for (PracticeSession stored : practiceSessionRepository.findAllById(hot.keySet())) {
+                    // Ended in MySQL meanwhile (cleanup, another node), the final state is already there
+                    if (!stored.isCompleted() && !stored.isExpired()) {
+                        copyHotState(hot.get(stored.getId()), stored);
+                    }
+                }
+            });
+            meterRegistry.counter("practice.session.state.flushed").increment(hot.size());
+            return ids.size();
+
+        } catch (RuntimeException e) {
+            stringRedisTemplate.opsForSet().add(DIRTY_KEY, ids.toArray(String[]::new));
+            throw e;
+        }
+    }
+
+    // ================= REBUILD =================
+
+    /**
+     * Counters are replayed from the attempt log, the position is the stored one, moved past the
+     * current question if the log shows it was already answered or skipped
+     */
+    private PracticeSession rebuild(PracticeSession stored) {
+        PracticeSession hot = copyOf(stored);
+
+        Set<String> used = new HashSet<>();
+        int answered = 0;
+        int correct = 0;
+        long timeTotal = 0;
+        for (PracticeAttempt attempt : practiceAttemptService.getHistory(stored.getId())) {
+            boolean firstAttempt = used.add(attempt.getQuestionId());
+            if (attempt.isSkipped()) {
+                continue;
+            }
+            if (firstAttempt) {
+                answered++;
+            }
+            if (attempt.isCorrect()) {
+                correct++;
+            }
+            timeTotal += attempt.getTimeTakenSeconds();
+        }
+        applyCounters(hot, answered, correct, timeTotal);
+
+        int indexFromLog = used.contains(stored.getCurrentQuestionId()) ? used.size() - 1 : used.size();
+        hot.setCurrentQuestionIndex(Math.max(stored.getCurrentQuestionIndex(), indexFromLog));
+
+        writeState(hot);
+        return hot;
+    }
+
+    /**
+     * Hashes written before the username was kept only know the owner's id
+     */
+    private void resolveOwner(PracticeSession hot) {
+        User owner = userRepository.findById(hot.getUser().getId())
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorMessages.USER_NOT_FOUND));
+        hot.setUser(owner);
+        execute(UPDATE_SCRIPT, hot.getId(), hot.getId(), USERNAME, owner.getUsername());
+    }
+
+    // ================= REDIS =================
+
+    private PracticeSession read(String sessionId) {
+        try {
+            Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(STATE_KEY + sessionId);
+            return hash.isEmpty() ? null : fromHash(sessionId, hash);
+        } catch (Exception e) {
+            log.warn("Hot state of practice session {} unreadable, loading it from MySQL: {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * One pipelined HGETALL for the whole batch, sessions whose hash is gone are left out
+     */
+    private Map<String, PracticeSession> readAll(List<String> sessionIds) {
+        List<Object> hashes = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            sessionIds.forEach(id -> redis.hGetAll(STATE_KEY + id));
+            return null;
+        });
+
+        Map<String, PracticeSession> sessions = new HashMap<>();
+        for (int i = 0; i < sessionIds.size(); i++) {
+            if (hashes.get(i) instanceof Map<?, ?> hash && !hash.isEmpty()) {
+                sessions.put(sessionIds.get(i), fromHash(sessionIds.get(i), hash));
+            }
+        }
+        return sessions;
+    }
+
+    private void writeState(PracticeSession session) {
+        try {
+            stringRedisTemplate.opsForHash().putAll(STATE_KEY + session.getId(), toHash(session));
+            expireWithSession(session);
+        } catch (Exception e) {
+            // Every update finds no hash and falls back to MySQL until the next load rebuilds it
+            log.warn("Could not cache practice session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void expireWithSession(PracticeSession session) {
+        LocalDateTime until = session.getExpiresAt().plusMinutes(config.getStateTtlGraceMinutes());
+        stringRedisTemplate.expireAt(STATE_KEY + session.getId(), until.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private void update(PracticeSession session, String... fieldsAndValues) {
+        PracticeSession snapshot = copyOf(session);
+
+        String[] args = new String[fieldsAndValues.length + 1];
+        args[0] = session.getId();
+        for (int i = 0; i < fieldsAndValues.length; i++) {
+            args[i + 1] = fieldsAndValues[i] != null ? fieldsAndValues[i] : "";
+        }
+
+        afterCommit(() -> {
+            if (!execute(UPDATE_SCRIPT, snapshot.getId(), args)) {
+                persistQuietly(snapshot);
+            }
+        });
+    }
+
+    /**
+     * False when the hash is gone or Redis failed, the caller then writes to MySQL instead
+     */
+    private boolean execute(RedisScript<Long> script, String sessionId, String... args) {
+        try {
+            Long applied = stringRedisTemplate.execute(script, List.of(STATE_KEY + sessionId, DIRTY_KEY), (Object[]) args);
+            return applied != null && applied == 1L;
+        } catch (Exception e) {
+            log.warn("Hot state update of practice session {} failed: {}", sessionId, e.getMessage());
+            return false;
+        }
+    }
+
+    // ================= MYSQL =================
+
+    /**
+     * Stored row with the hot state applied, inside the caller's transaction
+     */
+    private PracticeSession persistedCopy(PracticeSession session) {
+        PracticeSession stored = practiceSessionRepository.findById(session.getId())
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorMessages.SESSION_NOT_FOUND));
+        if (stored != session) {
+            copyHotState(session, stored);
+        }
+        return stored;
+    }
+
+    private void persistQuietly(PracticeSession session) {
+        count("fallback");
+        try {
+            writeTransaction.executeWithoutResult(status -> practiceSessionRepository.findById(session.getId())
+                    .ifPresent(stored -> copyHotState(session, stored)));
+        } catch (Exception e) {
+            // Counters come back from the attempt log, only the position may be behind
+            log.error("Could not persist practice session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private static void copyHotState(PracticeSession from, PracticeSession to) {
+        to.setCurrentQuestionIndex(from.getCurrentQuestionIndex());
+        to.setCurrentQuestionId(from.getCurrentQuestionId());
+        to.setCurrentDifficulty(from.getCurrentDifficulty());
+        to.setTotalQuestionsAnswered(from.getTotalQuestionsAnswered());
+        to.setCorrectAnswers(from.getCorrectAnswers());
+        to.setAverageTimePerQuestion(from.getAverageTimePerQuestion());
+        to.setAccuracyPercentage(from.getAccuracyPercentage());
+        to.setExpiresAt(from.getExpiresAt());
+    }
+
+    // ================= MAPPING =================
+
+    private static Map<String, String> toHash(PracticeSession session) {
+        Map<String, String> hash = new HashMap<>();
+        hash.put(USER_ID, session.getUser().getId());
+        if (session.getUser().getUsername() != null) {
+            hash.put(USERNAME, session.getUser().getUsername());
+        }
+        hash.put(SESSION_CODE, session.getSessionCode());
+        hash.put(QUESTION_TYPE, session.getQuestionType());
+        hash.put(MAX_QUESTIONS, String.valueOf(session.getMaxQuestions()));
+        hash.put(TIME_LIMIT_MINUTES, String.valueOf(session.getTimeLimitMinutes()));
+        hash.put(STARTING_DIFFICULTY, name(session.getStartingDifficulty()));
+        hash.put(CURRENT_DIFFICULTY, name(session.getCurrentDifficulty()));
+        hash.put(STARTED_AT, session.getStartedAt().toString());
+        hash.put(EXPIRES_AT, session.getExpiresAt().toString());
+        hash.put(QUESTION_INDEX, String.valueOf(session.getCurrentQuestionIndex()));
+        hash.put(ANSWERED, String.valueOf(session.getTotalQuestionsAnswered()));
+        hash.put(CORRECT, String.valueOf(session.getCorrectAnswers()));
+        hash.put(TIME_TOTAL, String.valueOf(Math.round(
+                session.getAverageTimePerQuestion() * session.getTotalQuestionsAnswered())));
+        if (session.getTopic() != null) {
+            hash.put(TOPIC, session.getTopic());
+        }
+        if (session.getCurrentQuestionId() != null) {
+            hash.put(QUESTION_ID, session.getCurrentQuestionId());
+        }
+        return hash;
+    }
+
+    private static PracticeSession fromHash(String sessionId, Map<?, ?> hash) {
+        Map<String, String> fields = new HashMap<>();
+        hash.forEach((key, value) -> fields.put(key.toString(), value.toString()));
+
+        User owner = new User();
+        owner.setId(fields.get(USER_ID));
+        owner.setUsername(fields.get(USERNAME));
+
+        PracticeSession session = new PracticeSession();
+        session.setId(sessionId);
+        session.setUser(owner);
+        session.setSessionCode(fields.get(SESSION_CODE));
+        session.setQuestionType(fields.get(QUESTION_TYPE));
+        session.setTopic(fields.get(TOPIC));
+        session.setMaxQuestions(Integer.parseInt(fields.get(MAX_QUESTIONS)));
+        session.setTimeLimitMinutes(Integer.parseInt(fields.get(TIME_LIMIT_MINUTES)));
+        session.setStartingDifficulty(difficulty(fields.get(STARTING_DIFFICULTY)));
+        session.setCurrentDifficulty(difficulty(fields.get(CURRENT_DIFFICULTY)));
+        session.setStartedAt(LocalDateTime.parse(fields.get(STARTED_AT)));
+        session.setExpiresAt(LocalDateTime.parse(fields.get(EXPIRES_AT)));
+        session.setCurrentQuestionIndex(Integer.parseInt(fields.get(QUESTION_INDEX)));
+        String questionId = fields.get(QUESTION_ID);
+        session.setCurrentQuestionId(questionId == null || questionId.isEmpty() ? null : questionId);
+        applyCounters(session, Integer.parseInt(fields.get(ANSWERED)), Integer.parseInt(fields.get(CORRECT)),
+                Long.parseLong(fields.get(TIME_TOTAL)));
+        return session;
+    }
+
+    private static void applyCounters(PracticeSession session, int answered, int correct, long timeTotal) {
+        session.setTotalQuestionsAnswered(answered);
+        session.setCorrectAnswers(correct);
+        session.setAverageTimePerQuestion(answered > 0 ? (double) timeTotal / answered : 0.0);
+        session.setAccuracyPercentage(answered > 0 ? (double) correct / answered * 100 : 0.0);
+    }
+
+    private static PracticeSession copyOf(PracticeSession session) {
+        PracticeSession copy = new PracticeSession();
+        BeanUtils.copyProperties(session, copy);
+        return copy;
+    }
+
+    private static String name(Difficulty difficulty) {
+        return difficulty != null ? difficulty.name() : "";
+    }
+
+    private static Difficulty difficulty(String name) {
+        return name == null || name.isEmpty() ? null : Difficulty.valueOf(name);
+    }
+
+    // ================= HELPERS =================
+
+    private static void afterCommit(Runnable write) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write.run();
+                }
+            });
+        } else {
+            write.run();
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("practice.session.state", "result", result).increment();
+    }
+}
@@ -0,0 +1,283 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.ExecutionRequestDTO;
+import com.codearena.backend.dto.ExecutionResultDTO;
+import com.codearena.backend.exception.CodeExecutionException;
+import com.codearena.backend.service.ExecutionEngine;
+import com.codearena.backend.utils.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sits between single-flight and the engines.
+ *
+ * Every engine has a circuit breaker. Calls go to the primary while its circuit allows,
+ * otherwise to the secondary engine. A call that fails on one engine is retried once on
+ * the other. A call still running after the engine's recent p95 gets a hedge (a second copy,
+ * on the secondary if there is one) and the first answer wins.
+ */
+@Component
+@Slf4j
+public class ResilientExecutionRouter {
+
+    // Below this many samples the p95 is noise, hedge at the max delay instead
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final ExecutionEngineRegistry engineRegistry;
+    private final ThreadPoolTaskExecutor callExecutor;
+    private final AppProperties.CodeExecution.Resilience config;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private final Counter hedgeLaunched;
+    private final Counter hedgeWon;
+
+    public ResilientExecutionRouter(ExecutionEngineRegistry engineRegistry,
+                                    @Qualifier("executionCallExecutor") ThreadPoolTaskExecutor callExecutor,
+                                    AppProperties appProperties,
+                                    MeterRegistry meterRegistry) {
+        this.engineRegistry = engineRegistry;
+        this.callExecutor = callExecutor;
+        this.config = appProperties.getCodeExecution().getResilience();
+        this.meterRegistry = meterRegistry;
+
+        this.hedgeLaunched = Counter.builder("execution.hedge")
+                .tag("result", "launched")
+                .description("Hedged copies sent for slow sandbox calls")
+                .register(meterRegistry);
+        this.hedgeWon = Counter.builder("execution.hedge")
+                .tag("result", "won")
+                .description("Hedged copies that answered before the original")
+                .register(meterRegistry);
+
+        // Register the state gauges up front so dashboards see CLOSED before the first call
+        breaker(engineRegistry.primary());
+        engineRegistry.secondary().ifPresent(this::breaker);
+    }
+
+    public ExecutionResultDTO execute(ExecutionRequestDTO request) {
+        ExecutionEngine primary = engineRegistry.primary();
+        ExecutionEngine secondary = engineRegistry.secondary().orElse(null);
+
+        ExecutionEngine first;
+        ExecutionEngine other;
+
+        if (breaker(primary).isCallPermitted()) {
+            first = primary;
+            other = secondary;
+        } else if (secondary != null && breaker(secondary).isCallPermitted()) {
+            first = secondary;
+            other = null;
+            fallback(primary, secondary, "circuit_open");
+        } else {
+            throw new CodeExecutionException("Code execution is temporarily unavailable ("
+                    + primary.name() + " circuit open)");
+        }
+
+        return run(first, other, request);
+    }
+
+    /**
+     * Name of the engine a call made now would start on. A hedge or failover can still end on
+     * the other one.
+     */
+    public String currentEngine() {
+        ExecutionEngine primary = engineRegistry.primary();
+        if (breaker(primary).isCallPermitted()) {
+            return primary.name();
+        }
+        return engineRegistry.secondary()
+                .filter(secondary -> breaker(secondary).isCallPermitted())
+                .map(ExecutionEngine::name)
+                .orElse(primary.name());
+    }
+
+    // ================= HEDGED CALL =================
+
+    private ExecutionResultDTO run(ExecutionEngine first, ExecutionEngine other, ExecutionRequestDTO request) {
+        ExecutorCompletionService<ExecutionResultDTO> completion =
+                new ExecutorCompletionService<>(callExecutor.getThreadPoolExecutor());
+
+        List<Future<ExecutionResultDTO>> futures = new ArrayList<>(2);
+        futures.add(completion.submit(() -> call(first, request)));
+
+        // Batch runs are long by design and vary with the number of cases, do not hedge them
+        boolean hedgeable = config.isHedging() && request.getRunTimeoutMs() == null;
+        boolean secondCallUsed = false;
+        long hedgeDelayMs = hedgeDelayMs(first);
+        int outstanding = 1;
+        Future<ExecutionResultDTO> hedge = null;
+        RuntimeException failure = null;
+
+        try {
+            while (outstanding > 0) {
+                Future<ExecutionResultDTO> done = hedgeable && !secondCallUsed
+                        ? completion.poll(hedgeDelayMs, TimeUnit.MILLISECONDS)
+                        : completion.take();
+
+                if (done == null) {
+                    // Slower than p95, send a copy
+                    ExecutionEngine target = other != null ? other : first;
+                    secondCallUsed = true;
+                    if (breaker(target).isCallPermitted()) {
+                        hedge = completion.submit(() -> call(target, request));
+                        futures.add(hedge);
+                        outstanding++;
+                        hedgeLaunched.increment();
+                    }
+                    continue;
+                }
+
+                outstanding--;
+
+                try {
+                    ExecutionResultDTO result = done.get();
+                    if (done == hedge) {
+                        hedgeWon.increment();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof RuntimeException runtime
+                            ? runtime
+                            : new CodeExecutionException("Execution call failed", e.getCause());
+                }
+
+                // Failed before a hedge went out, fail over right away
+                if (!secondCallUsed && other != null && breaker(other).isCallPermitted()) {
+                    secondCallUsed = true;
+                    fallback(first, other, "error");
+                    log.warn("⚠️ {} failed ({}), retrying on {}", first.name(), failure.getMessage(), other.name());
+                    futures.add(completion.submit(() -> call(other, request)));
+                    outstanding++;
+                }
+            }
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CodeExecutionException("Interrupted while waiting for execution", e);
+        } finally {
+            // The loser, if any, is still running
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private ExecutionResultDTO call(ExecutionEngine engine, ExecutionRequestDTO request) {
+        CircuitBreaker breaker = breaker(engine);
+        if (!breaker.tryAcquire()) {
+            throw new CodeExecutionException("Execution engine " + engine.name() + " circuit open");
+        }
+
+        long start = System.nanoTime();
+        try {
+            ExecutionResultDTO result = engine.execute(request);
+            latency(engine).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            breaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            // A cancelled hedge says nothing about the backend's health
+            if (Thread.currentThread().isInterrupted()) {
+                breaker.release();
+            } else {
+                breaker.onFailure();
+            }
+            throw e;
+        }
+    }
+
+    private long hedgeDelayMs(ExecutionEngine engine) {
+        long p95 = latency(engine).p95();
+        if (p95 < 0) {
+            return config.getHedgeMaxDelayMs();
+        }
+        return Math.max(config.getHedgeMinDelayMs(), Math.min(config.getHedgeMaxDelayMs(), p95));
+    }
+
+    private void fallback(ExecutionEngine from, ExecutionEngine to, String reason) {
+        meterRegistry.counter("execution.fallback",
+                "from", from.name(), "to", to.name(), "reason", reason).increment();
+    }
+
+    // ================= PER ENGINE STATE =================
+
+    private CircuitBreaker breaker(ExecutionEngine engine) {
+        return breakers.computeIfAbsent(engine.name(), name -> {
+            CircuitBreaker breaker = new CircuitBreaker(
+                    config.getWindowSize(),
+                    config.getMinimumCalls(),
+                    config.getFailureRatePercent(),
+                    TimeUnit.SECONDS.toMillis(config.getOpenSeconds()),
+                    config.getHalfOpenCalls(),
+                    (from, to) -> onTransition(name, from, to));
+
+            // 0 = closed, 1 = open, 2 = half open
+            Gauge.builder("execution.circuit.state", breaker, b -> b.getState().ordinal())
+                    .tag("engine", name)
+                    .description("Circuit breaker state per execution engine")
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private void onTransition(String engine, CircuitBreaker.State from, CircuitBreaker.State to) {
+        meterRegistry.counter("execution.circuit.transitions",
+                "engine", engine, "from", from.name(), "to", to.name()).increment();
+
+        if (to == CircuitBreaker.State.OPEN) {
+            log.error("🔴 Circuit for execution engine {} opened ({} -> {})", engine, from, to);
+        } else {
+            log.info("🟢 Circuit for execution engine {}: {} -> {}", engine, from, to);
+        }
+    }
+
+    private LatencyWindow latency(ExecutionEngine engine) {
+        return latencies.computeIfAbsent(engine.name(), name -> new LatencyWindow(config.getLatencySamples()));
+    }
+
+    /**
+     * Last N successful call latencies
+     */
+    private static class LatencyWindow {
+
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        // -1 while there are too few samples
+        synchronized long p95() {
+            if (count < MIN_LATENCY_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(count * 0.95) - 1];
+        }
+    }
+}
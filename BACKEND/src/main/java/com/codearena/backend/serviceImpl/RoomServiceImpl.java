@@ -7,6 +7,7 @@ import com.codearena.backend.exception.ResourceNotFoundException;
 import com.codearena.backend.exception.BadRequestException;
 import com.codearena.backend.repository.*;
 import com.codearena.backend.service.CodingQuestionService;
+import com.codearena.backend.service.ExpiryTimerService;
 import com.codearena.backend.service.McqQuestionService;
 import com.codearena.backend.service.RoomService;
 import com.codearena.backend.service.UserService;
@@ -37,6 +38,7 @@ public class RoomServiceImpl implements RoomService {
     private final MatchResultRepository matchResultRepository;
     private final SubmissionRepository submissionRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ExpiryTimerService expiryTimerService;
     @Override
     @Transactional
     public RoomResponseDTO createRoom(RoomRequestDTO roomRequestDTO) {
@@ -140,6 +142,7 @@ public class RoomServiceImpl implements RoomService {
         room.setStartedAt(LocalDateTime.now());
         room.setExpiryTime(LocalDateTime.now().plusMinutes(room.getExpiryDuration()));
         roomRepository.save(room);
+        expiryTimerService.scheduleRoomExpiry(room.getId(), room.getExpiryTime());
 
     }
 
@@ -7,6 +7,7 @@ import com.codearena.backend.exception.BadRequestException;
 import com.codearena.backend.repository.CodingQuestionRepository;
 import com.codearena.backend.repository.TestCaseRepository;
 import com.codearena.backend.service.TestCaseService;
+import com.codearena.backend.service.VerdictCacheService;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -19,12 +20,15 @@ public class TestCaseServiceImpl implements TestCaseService {
 
     private final TestCaseRepository testCaseRepository;
     private final CodingQuestionRepository codingQuestionRepository;
+    private final VerdictCacheService verdictCacheService;
 
     public TestCaseServiceImpl(TestCaseRepository testCaseRepository,
-                           CodingQuestionRepository codingQuestionRepository) {
+                           CodingQuestionRepository codingQuestionRepository,
+                           VerdictCacheService verdictCacheService) {
 
         this.testCaseRepository = testCaseRepository;
         this.codingQuestionRepository = codingQuestionRepository;
+        this.verdictCacheService = verdictCacheService;
     }
 
 
@@ -41,6 +45,7 @@ public class TestCaseServiceImpl implements TestCaseService {
         tc.setOrderIndex(dto.getOrderIndex());
         tc.setExplanation(dto.getExplanation());
         TestCase saved = testCaseRepository.save(tc);
+        verdictCacheService.invalidateQuestion(saved.getCodingQuestion().getId());
         dto.setId(saved.getId());
         return dto;
     }
@@ -56,6 +61,7 @@ public class TestCaseServiceImpl implements TestCaseService {
         tc.setOrderIndex(dto.getOrderIndex());
         tc.setExplanation(dto.getExplanation());
         TestCase saved = testCaseRepository.save(tc);
+        verdictCacheService.invalidateQuestion(saved.getCodingQuestion().getId());
         dto.setId(saved.getId());
         return dto;
     }
@@ -65,6 +71,7 @@ public class TestCaseServiceImpl implements TestCaseService {
         TestCase tc = testCaseRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException("Test case not found"));
         testCaseRepository.delete(tc);
+        verdictCacheService.invalidateQuestion(tc.getCodingQuestion().getId());
     }
 
     @Override
@@ -0,0 +1,188 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.dto.CachedVerdictDTO;
+import com.codearena.backend.service.VerdictCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class VerdictCacheServiceImpl implements VerdictCacheService {
+
+    private static final String VERDICT_PREFIX = "verdict:";
+    private static final String TEST_SET_VERSION_PREFIX = "verdict:tests:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AppProperties appProperties;
+    private final MeterRegistry meterRegistry;
+
+    // Local tier, access-ordered so the eldest entry is the least recently used
+    private final Map<String, LocalEntry> local;
+
+    // Used only while Redis is unreachable, so invalidation still works on this node
+    private final Map<String, Long> localVersions = new ConcurrentHashMap<>();
+
+    public VerdictCacheServiceImpl(RedisTemplate<String, Object> redisTemplate,
+                                   StringRedisTemplate stringRedisTemplate,
+                                   AppProperties appProperties,
+                                   MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.appProperties = appProperties;
+        this.meterRegistry = meterRegistry;
+
+        int maxEntries = appProperties.getJudge().getVerdictCache().getLocalMaxEntries();
+        this.local = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public String key(String questionId, String language, String version, String sourceCode) {
+        return VERDICT_PREFIX + questionId
+                + ":v" + testSetVersion(questionId)
+                + ":" + language.toLowerCase()
+                + ":" + version
+                + ":" + sha256(normalize(sourceCode));
+    }
+
+    @Override
+    public Optional<CachedVerdictDTO> get(String key) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+
+        LocalEntry entry = local.get(key);
+        if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+            meterRegistry.counter("judge.verdict.cache", "result", "hit", "tier", "local").increment();
+            return Optional.of(entry.verdict());
+        }
+
+        try {
+            Object value = redisTemplate.opsForValue().get(key);
+            if (value instanceof CachedVerdictDTO verdict) {
+                putLocal(key, verdict);
+                meterRegistry.counter("judge.verdict.cache", "result", "hit", "tier", "redis").increment();
+                return Optional.of(verdict);
+            }
+        } catch (Exception e) {
+            log.warn("Verdict cache read failed for {}: {}", key, e.getMessage());
+        }
+
+        meterRegistry.counter("judge.verdict.cache", "result", "miss", "tier", "none").increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(String key, CachedVerdictDTO verdict) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        putLocal(key, verdict);
+
+        try {
+            redisTemplate.opsForValue().set(key, verdict,
+                    Duration.ofMinutes(appProperties.getJudge().getVerdictCache().getTtlMinutes()));
+        } catch (Exception e) {
+            log.warn("Verdict cache write failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void invalidateQuestion(String questionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Bumping before commit would let a concurrent judge cache old test data under the new version
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpTestSetVersion(questionId);
+                }
+            });
+        } else {
+            bumpTestSetVersion(questionId);
+        }
+    }
+
+    private void bumpTestSetVersion(String questionId) {
+        localVersions.merge(questionId, 1L, Long::sum);
+
+        // Old keys are unreachable after the bump, drop them locally instead of waiting for LRU
+        String prefix = VERDICT_PREFIX + questionId + ":";
+        synchronized (local) {
+            local.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+
+        try {
+            Long version = stringRedisTemplate.opsForValue().increment(TEST_SET_VERSION_PREFIX + questionId);
+            log.info("🧹 Test cases changed for question {}, verdict cache version is now {}", questionId, version);
+        } catch (Exception e) {
+            log.warn("Could not bump test set version for question {}: {}", questionId, e.getMessage());
+        }
+    }
+
+    private String testSetVersion(String questionId) {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(TEST_SET_VERSION_PREFIX + questionId);
+            return version == null ? "0" : version;
+        } catch (Exception e) {
+            return "local" + localVersions.getOrDefault(questionId, 0L);
+        }
+    }
+
+    private void putLocal(String key, CachedVerdictDTO verdict) {
+        if (appProperties.getJudge().getVerdictCache().getLocalMaxEntries() == 0) {
+            return;
+        }
+        long ttlMillis = Duration.ofMinutes(appProperties.getJudge().getVerdictCache().getTtlMinutes()).toMillis();
+        local.put(key, new LocalEntry(verdict, System.currentTimeMillis() + ttlMillis));
+    }
+
+    private boolean isEnabled() {
+        return appProperties.getJudge().getVerdictCache().isEnabled();
+    }
+
+    /**
+     * Line endings and trailing whitespace do not change what the program does,
+     * so they should not change the cache key. Leading whitespace is kept (Python).
+     */
+    private String normalize(String sourceCode) {
+        return sourceCode
+                .replace("\r\n", "\n")
+                .replaceAll("[ \\t]+\n", "\n")
+                .stripTrailing();
+    }
+
+    private String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record LocalEntry(CachedVerdictDTO verdict, long expiresAt) {
+    }
+}
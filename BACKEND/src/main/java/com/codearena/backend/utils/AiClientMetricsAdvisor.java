@@ -0,0 +1,122 @@
+package com.codearena.backend.utils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Latency and token usage of one ChatClient, tagged with the client's name.
+ * Sits first in the advisor chain so the timer covers the whole model call.
+ *
+ * Streams only report usage on the last chunk, and only when the provider sends it.
+ */
+public class AiClientMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final String client;
+    private final MeterRegistry meterRegistry;
+
+    public AiClientMetricsAdvisor(String client, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        long start = System.nanoTime();
+        try {
+            ChatClientResponse response = chain.nextCall(request);
+            recordLatency(start, "success");
+            recordTokens(usageOf(response));
+            return response;
+        } catch (RuntimeException e) {
+            recordLatency(start, "failure");
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicReference<Usage> usage = new AtomicReference<>();
+
+            return chain.nextStream(request)
+                    .doOnNext(response -> {
+                        Usage reported = usageOf(response);
+                        if (reported != null) {
+                            usage.set(reported);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        recordLatency(start, "success");
+                        recordTokens(usage.get());
+                    })
+                    .doOnError(e -> recordLatency(start, "failure"))
+                    .doOnCancel(() -> recordLatency(start, "cancelled"));
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "metrics-" + client;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private void recordLatency(long start, String outcome) {
+        Timer.builder("ai.client.latency")
+                .tag("client", client)
+                .tag("outcome", outcome)
+                .description("Model call time per ChatClient, up to the last token for streams")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordTokens(Usage usage) {
+        if (usage == null) {
+            return;
+        }
+        recordTokens("prompt", usage.getPromptTokens());
+        recordTokens("completion", usage.getCompletionTokens());
+    }
+
+    private void recordTokens(String type, Integer tokens) {
+        if (tokens == null || tokens <= 0) {
+            return;
+        }
+        DistributionSummary.builder("ai.client.tokens")
+                .tag("client", client)
+                .tag("type", type)
+                .baseUnit("tokens")
+                .register(meterRegistry)
+                .record(tokens);
+    }
+
+    /**
+     * Usage of a response, null when the provider did not report any
+     */
+    private static Usage usageOf(ChatClientResponse response) {
+        ChatResponse chatResponse = response != null ? response.chatResponse() : null;
+        if (chatResponse == null || chatResponse.getMetadata() == null) {
+            return null;
+        }
+        Usage usage = chatResponse.getMetadata().getUsage();
+        return usage != null && usage.getTotalTokens() != null && usage.getTotalTokens() > 0 ? usage : null;
+    }
+}
@@ -0,0 +1,159 @@
+package com.codearena.backend.utils;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * CLOSED: calls go through, the last windowSize results are kept. Once at least
+ * minimumCalls are recorded and the failure rate reaches the threshold it opens.
+ * OPEN: calls are refused until openMillis have passed, then it goes HALF_OPEN.
+ * HALF_OPEN: up to halfOpenCalls trial calls are let through. Any failure opens it
+ * again, all trials succeeding closes it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openMillis;
+    private final int halfOpenCalls;
+    private final BiConsumer<State, State> onTransition;
+
+    // Ring buffer of recent outcomes while CLOSED
+    private final boolean[] window;
+    private int windowIndex;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int windowSize,
+                          int minimumCalls,
+                          int failureRatePercent,
+                          long openMillis,
+                          int halfOpenCalls,
+                          BiConsumer<State, State> onTransition) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRatePercent = failureRatePercent;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = halfOpenCalls;
+        this.onTransition = onTransition;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Whether tryAcquire() would currently let a call through, without taking a permit
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> System.currentTimeMillis() - openedAt >= openMillis;
+            case HALF_OPEN -> halfOpenPermits > 0;
+        };
+    }
+
+    /**
+     * Ask to make a call. Every true must be followed by onSuccess(), onFailure() or release().
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            transition(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (halfOpenPermits > 0) {
+                    halfOpenPermits--;
+                    yield true;
+                }
+                yield false;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                resetWindow();
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+
+        if (state == State.CLOSED
+                && recorded >= minimumCalls
+                && failures * 100 >= failureRatePercent * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * The call was abandoned (cancelled) before it said anything about the backend
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenPermits + halfOpenSuccesses < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == windowSize) {
+            if (window[windowIndex]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            failures++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        if (from == to) {
+            return;
+        }
+        state = to;
+        onTransition.accept(from, to);
+    }
+}
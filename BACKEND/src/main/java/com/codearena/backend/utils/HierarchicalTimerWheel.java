@@ -0,0 +1,157 @@
+package com.codearena.backend.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timer wheel keyed by string, 4 levels of 64 slots.
+ *
+ * Level 0 holds timers due within 64 ticks, one slot per tick. Each higher level covers 64 times
+ * the span of the one below, so with 1s ticks the wheel reaches about 194 days. Slots are chosen
+ * from the deadline's own tick bits: a slot of level n comes around again exactly when the lower
+ * levels wrap to 0, at which point its timers are placed again one level lower (or fired).
+ * Scheduling and cancelling are O(1), a timer is moved at most once per level.
+ *
+ * Deadlines past the wheel's reach wait in the last slot of the top level and are placed again
+ * when it comes around. Deadlines already passed fire on the next tick. Never fires early.
+ */
+public class HierarchicalTimerWheel {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private static final class Timer {
+        final String key;
+        final long expiryTick;
+        Set<Timer> slot;
+
+        Timer(String key, long expiryTick) {
+            this.key = key;
+            this.expiryTick = expiryTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<List<Set<Timer>>> wheels = new ArrayList<>(LEVELS);
+    private final Map<String, Timer> timers = new HashMap<>();
+
+    private long currentTick;
+
+    public HierarchicalTimerWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+        for (int level = 0; level < LEVELS; level++) {
+            List<Set<Timer>> slots = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            wheels.add(slots);
+        }
+    }
+
+    /**
+     * Schedule or move the timer for key
+     */
+    public synchronized void schedule(String key, long deadlineMillis) {
+        cancel(key);
+
+        // Rounded up, a timer never fires before its deadline
+        long expiryTick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        Timer timer = new Timer(key, expiryTick);
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    /**
+     * Returns whether a timer was pending for key
+     */
+    public synchronized boolean cancel(String key) {
+        Timer timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        timer.slot.remove(timer);
+        return true;
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Run every tick up to nowMillis, returns the keys that came due in deadline order
+     */
+    public synchronized List<String> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<String> due = new ArrayList<>();
+
+        if (timers.isEmpty()) {
+            // Nothing to cascade, skip idle stretches (and clock jumps) in one go
+            currentTick = Math.max(currentTick, targetTick);
+            return due;
+        }
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            Set<Timer> slot = wheels.get(0).get((int) (currentTick & SLOT_MASK));
+            for (Timer timer : List.copyOf(slot)) {
+                slot.remove(timer);
+                if (timer.expiryTick <= currentTick) {
+                    timers.remove(timer.key);
+                    due.add(timer.key);
+                } else {
+                    place(timer);
+                }
+            }
+        }
+        return due;
+    }
+
+    // Higher levels first, so timers they hand down still get moved on this tick
+    private void cascade() {
+        int dueLevels = 0;
+        while (dueLevels + 1 < LEVELS
+                && (currentTick & ((1L << (SLOT_BITS * (dueLevels + 1))) - 1)) == 0) {
+            dueLevels++;
+        }
+
+        for (int level = dueLevels; level >= 1; level--) {
+            Set<Timer> slot = wheels.get(level).get(slotIndex(currentTick, level));
+            List<Timer> moving = List.copyOf(slot);
+            slot.clear();
+            moving.forEach(this::place);
+        }
+    }
+
+    private void place(Timer timer) {
+        long delta = timer.expiryTick - currentTick;
+        long slotTick = timer.expiryTick;
+        int level = 0;
+
+        if (delta > MAX_DELTA) {
+            level = LEVELS - 1;
+            slotTick = currentTick + MAX_DELTA;
+        } else {
+            while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+        }
+
+        Set<Timer> slot = wheels.get(level).get(slotIndex(slotTick, level));
+        slot.add(timer);
+        timer.slot = slot;
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+}
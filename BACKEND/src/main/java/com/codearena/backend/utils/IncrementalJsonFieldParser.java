@@ -0,0 +1,105 @@
+package com.codearena.backend.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads one JSON object from text that arrives in arbitrary pieces (streamed model output) and
+ * hands out each top-level scalar field as soon as its value is complete.
+ *
+ * Anything before the first '{' (markdown fences, "Here is the JSON") and after the closing
+ * '}' is ignored. Nested objects and arrays are skipped. Not thread-safe, one per stream.
+ */
+public class IncrementalJsonFieldParser {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Map<String, String> fields = new LinkedHashMap<>();
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private String currentField;
+
+    public IncrementalJsonFieldParser(ObjectMapper objectMapper) {
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Non-blocking JSON parser not available", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feed the next piece of text, returns the fields completed by it in document order
+     */
+    public List<Map.Entry<String, String>> feed(String chunk) throws IOException {
+        List<Map.Entry<String, String>> completed = new ArrayList<>();
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return completed;
+        }
+
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return completed;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> depth++;
+                case END_OBJECT, END_ARRAY -> {
+                    depth--;
+                    if (depth == 0) {
+                        finished = true;
+                    }
+                }
+                case FIELD_NAME -> {
+                    if (depth == 1) {
+                        currentField = parser.currentName();
+                    }
+                }
+                default -> {
+                    if (depth == 1 && currentField != null && token.isScalarValue()) {
+                        String value = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                        fields.put(currentField, value);
+                        completed.add(new AbstractMap.SimpleImmutableEntry<>(currentField, value));
+                        currentField = null;
+                    }
+                }
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Whether the closing '}' of the object has been read
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Every top-level scalar field read so far
+     */
+    public Map<String, String> getFields() {
+        return fields;
+    }
+}
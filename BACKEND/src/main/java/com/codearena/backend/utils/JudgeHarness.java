@@ -0,0 +1,165 @@
+package com.codearena.backend.utils;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps a user program in a per-language harness (resources/judge) so that one sandbox call
+ * compiles it once and runs it against every test case.
+ *
+ * All inputs go in as one framed stdin: "<cases>\n" then "<bytes>\n<input bytes>" per case.
+ * The harness prints one "##ARENA" line per case with base64 stdout/stderr, or a single
+ * "##ARENA-COMPILE" line when the program does not build.
+ */
+public class JudgeHarness {
+
+    private static final String CASE_PREFIX = "##ARENA ";
+    private static final String COMPILE_PREFIX = "##ARENA-COMPILE ";
+
+    private static final Map<String, String> TEMPLATES = new ConcurrentHashMap<>();
+
+    private JudgeHarness() {
+    }
+
+    public static boolean supports(String language) {
+        return switch (language.toLowerCase()) {
+            case "c", "cpp", "python", "java", "javascript" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Build the single file and stdin to send to the sandbox
+     */
+    public static Program build(String language,
+                                String code,
+                                List<String> inputs,
+                                long timeLimitMs,
+                                long memoryLimitMb) {
+
+        String lang = language.toLowerCase();
+
+        String fileName = switch (lang) {
+            case "c" -> "Main.c";
+            case "cpp" -> "Main.cpp";
+            case "python" -> "Main.py";
+            case "java" -> "Main.java";
+            case "javascript" -> "Main.js";
+            default -> throw new IllegalArgumentException("No judge harness for language: " + language);
+        };
+
+        String templateName = switch (lang) {
+            case "c", "cpp" -> "harness.c";
+            case "python" -> "harness.py";
+            case "java" -> "harness.java";
+            default -> "harness.js";
+        };
+
+        // Limits go in before the user code so nothing inside the code gets substituted
+        String harness = template(templateName)
+                .replace("{{TIME_LIMIT_MS}}", String.valueOf(timeLimitMs))
+                .replace("{{MEMORY_LIMIT_MB}}", String.valueOf(memoryLimitMb));
+
+        String source = lang.equals("c") || lang.equals("cpp")
+                ? harness.replace("{{USER_SOURCE}}", code)
+                : harness.replace("{{USER_SOURCE_B64}}", encode(code));
+
+        StringBuilder stdin = new StringBuilder().append(inputs.size()).append('\n');
+        for (String input : inputs) {
+            String value = input == null ? "" : input;
+            stdin.append(value.getBytes(StandardCharsets.UTF_8).length).append('\n').append(value);
+        }
+
+        return new Program(fileName, source, stdin.toString());
+    }
+
+    /**
+     * Parse the harness output. Cases the harness never reported (sandbox killed it) are absent.
+     */
+    public static Report parse(String stdout) {
+        List<CaseResult> cases = new ArrayList<>();
+
+        if (stdout == null) {
+            return new Report(null, cases);
+        }
+
+        for (String line : stdout.split("\n")) {
+            if (line.startsWith(COMPILE_PREFIX)) {
+                return new Report(decode(line.substring(COMPILE_PREFIX.length()).trim()), cases);
+            }
+            if (!line.startsWith(CASE_PREFIX)) {
+                continue;
+            }
+
+            String[] parts = line.substring(CASE_PREFIX.length()).trim().split(" ");
+            if (parts.length != 6) {
+                continue;
+            }
+
+            cases.add(new CaseResult(
+                    Integer.parseInt(parts[0]),
+                    Integer.parseInt(parts[1]),
+                    Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]),
+                    decode(parts[4]),
+                    decode(parts[5])
+            ));
+        }
+        return new Report(null, cases);
+    }
+
+    private static String template(String name) {
+        return TEMPLATES.computeIfAbsent(name, key -> {
+            try {
+                return new String(new ClassPathResource("judge/" + key).getInputStream().readAllBytes(),
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Missing judge harness: " + key, e);
+            }
+        });
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return "-".equals(value) ? "" : new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    public record Program(String fileName, String source, String stdin) {
+    }
+
+    /**
+     * compileError is null when the program built
+     */
+    public record Report(String compileError, List<CaseResult> cases) {
+    }
+
+    /**
+     * exitCode 124 means the case hit its time limit, 125 its memory limit
+     */
+    public record CaseResult(int index,
+                             int exitCode,
+                             long timeMs,
+                             long memoryKb,
+                             String stdout,
+                             String stderr) {
+
+        public boolean timedOut() {
+            return exitCode == 124;
+        }
+
+        public boolean memoryExceeded() {
+            return exitCode == 125;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.codearena.backend.utils.constant;
+
+/**
+ * AI responses that may be served from the response cache, one TTL each
+ * (app.ai.cache.*-ttl-minutes, 0 turns caching off for that kind)
+ */
+public enum AiCachePolicy {
+    // Keyed by question title + description, the same for every user
+    HINT,
+    // Keyed by problem, language and source hash
+    REVIEW,
+    // Keyed by the full prompt, only repeats within one session's stats hit
+    RECOMMENDATION
+}
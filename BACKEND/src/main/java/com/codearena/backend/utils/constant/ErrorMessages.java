@@ -107,6 +107,10 @@ public final class ErrorMessages {
     public static final String MEMORY_LIMIT_EXCEEDED = "Memory Limit Exceeded";
     public static final String EXECUTION_FAILED = "Code execution failed: %s";
     public static final String SYSTEM_ERROR = "System Error: %s";
+    public static final String JUDGE_QUEUE_FULL = "Judge is busy. Please resubmit in a few seconds";
+    public static final String JUDGE_TIMEOUT = "Judging is taking longer than expected. Check the submission status later";
+    public static final String JUDGE_FAILED = "Judging failed on our side. Please resubmit";
+    public static final String SUBMISSION_NOT_FOUND = "Submission not found with id: %s";
 
     // ==================== Email Errors ====================
     public static final String EMAIL_SEND_FAILED = "Failed to send email to %s";
@@ -117,6 +121,7 @@ public final class ErrorMessages {
     public static final String AI_SERVICE_UNAVAILABLE = "AI service is temporarily unavailable";
     public static final String AI_REQUEST_FAILED = "AI request failed: %s";
     public static final String AI_TIMEOUT = "AI request timed out. Please try again";
+    public static final String AI_BUSY = "AI is busy right now. Please try again in a few seconds";
     public static final String AI_RESPONSE_INVALID = "AI response could not be parsed. Please try again";
     public static final String AI_FALLBACK_ACTIVATED = "AI service unavailable, using fallback logic";
 
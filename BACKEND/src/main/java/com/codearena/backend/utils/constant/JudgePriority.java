@@ -0,0 +1,13 @@
+package com.codearena.backend.utils.constant;
+
+/**
+ * Judge queue classes, most urgent first
+ */
+public enum JudgePriority {
+    // Room submissions, finishedAt decides ties
+    ROOM,
+    // Practice session submissions
+    PRACTICE,
+    // "Run" against the sample test case
+    RUN
+}
@@ -5,7 +5,10 @@ public enum SubmissionStatus {
     ACCEPTED,
     WRONG_ANSWER,
     TIME_LIMIT_EXCEEDED,
+    MEMORY_LIMIT_EXCEEDED,
     RUNTIME_ERROR,
     COMPILATION_ERROR,
-    PARTIALLY_CORRECT
+    PARTIALLY_CORRECT,
+    // The sandbox could not run the program (backend down, circuit open), not the user's fault
+    INTERNAL_ERROR
 }
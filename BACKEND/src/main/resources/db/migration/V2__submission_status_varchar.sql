@@ -0,0 +1,10 @@
+-- submission.status was created by Hibernate as ENUM(...), which rejects INTERNAL_ERROR.
+-- On a fresh database the table does not exist yet (Hibernate creates it after Flyway), so skip.
+SET @stmt = (SELECT IF(COUNT(*) > 0,
+                       'ALTER TABLE submission MODIFY status VARCHAR(32)',
+                       'SELECT 1')
+             FROM information_schema.tables
+             WHERE table_schema = DATABASE() AND table_name = 'submission');
+PREPARE migrate_status FROM @stmt;
+EXECUTE migrate_status;
+DEALLOCATE PREPARE migrate_status;
@@ -0,0 +1,93 @@
+-- Append-only practice attempt log, replaces the JSON blobs practice_sessions.answered_question_ids
+-- and practice_sessions.performance_history. The old columns are left in place, nothing reads them.
+CREATE TABLE IF NOT EXISTS practice_attempt (
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    session_id          VARCHAR(255) NOT NULL,
+    seq                 INT          NOT NULL,
+    question_id         VARCHAR(255) NOT NULL,
+    question_type       VARCHAR(16),
+    correct             BOOLEAN      NOT NULL DEFAULT FALSE,
+    skipped             BOOLEAN      NOT NULL DEFAULT FALSE,
+    time_taken_seconds  BIGINT       NOT NULL DEFAULT 0,
+    confidence          DOUBLE,
+    language            VARCHAR(32),
+    test_cases_passed   INT,
+    total_test_cases    INT,
+    submission_id       VARCHAR(255),
+    selected_option_id  VARCHAR(255),
+    attempted_at        DATETIME(6),
+    PRIMARY KEY (id),
+    KEY idx_practice_attempt_session_question (session_id, question_id),
+    KEY idx_practice_attempt_session_seq (session_id, seq)
+);
+
+-- Backfill from the blobs. On a fresh database practice_sessions does not exist yet
+-- (Hibernate creates it after Flyway), so skip.
+SET @has_sessions = (SELECT COUNT(*)
+                     FROM information_schema.tables
+                     WHERE table_schema = DATABASE() AND table_name = 'practice_sessions');
+
+-- One row per performance_history entry, in entry order. Code snippets are not carried over,
+-- new coding attempts reference their submission instead.
+SET @stmt = IF(@has_sessions > 0, '
+    INSERT INTO practice_attempt (session_id, seq, question_id, question_type, correct, skipped,
+                                  time_taken_seconds, confidence, language, test_cases_passed,
+                                  total_test_cases, selected_option_id, attempted_at)
+    SELECT ps.id,
+           h.seq,
+           h.question_id,
+           COALESCE(h.question_type, ps.question_type),
+           COALESCE(h.correct = ''true'', FALSE),
+           COALESCE(h.skipped = ''true'', FALSE),
+           COALESCE(h.time_taken, 0),
+           h.confidence,
+           h.language,
+           h.test_cases_passed,
+           h.total_test_cases,
+           h.selected_option_id,
+           IF(h.attempted_at REGEXP ''^[0-9]{4}-[0-9]{2}-[0-9]{2}T[0-9]{2}:[0-9]{2}:[0-9]{2}'',
+              CAST(REPLACE(LEFT(h.attempted_at, 19), ''T'', '' '') AS DATETIME),
+              ps.started_at)
+    FROM practice_sessions ps,
+         JSON_TABLE(IF(JSON_VALID(ps.performance_history), ps.performance_history, ''[]''), ''$[*]''
+             COLUMNS (
+                 seq                FOR ORDINALITY,
+                 question_id        VARCHAR(255) PATH ''$.questionId'',
+                 question_type      VARCHAR(16)  PATH ''$.questionType'',
+                 correct            VARCHAR(5)   PATH ''$.isCorrect'',
+                 skipped            VARCHAR(5)   PATH ''$.skipped'',
+                 time_taken         BIGINT       PATH ''$.timeTaken'',
+                 confidence         DOUBLE       PATH ''$.confidence'',
+                 language           VARCHAR(32)  PATH ''$.language'',
+                 test_cases_passed  INT          PATH ''$.testCasesPassed'',
+                 total_test_cases   INT          PATH ''$.totalTestCases'',
+                 selected_option_id VARCHAR(255) PATH ''$.selectedOptionId'',
+                 attempted_at       VARCHAR(64)  PATH ''$.timestamp''
+             )) h
+    WHERE h.question_id IS NOT NULL', 'SELECT 1');
+PREPARE backfill_history FROM @stmt;
+EXECUTE backfill_history;
+DEALLOCATE PREPARE backfill_history;
+
+-- Used question ids without a history entry become skips after the history rows
+SET @stmt = IF(@has_sessions > 0, '
+    INSERT INTO practice_attempt (session_id, seq, question_id, question_type, skipped, attempted_at)
+    SELECT ps.id,
+           COALESCE(JSON_LENGTH(IF(JSON_VALID(ps.performance_history), ps.performance_history, ''[]'')), 0) + u.seq,
+           u.question_id,
+           ps.question_type,
+           TRUE,
+           ps.started_at
+    FROM practice_sessions ps,
+         JSON_TABLE(IF(JSON_VALID(ps.answered_question_ids), ps.answered_question_ids, ''[]''), ''$[*]''
+             COLUMNS (
+                 seq         FOR ORDINALITY,
+                 question_id VARCHAR(255) PATH ''$''
+             )) u
+    WHERE u.question_id IS NOT NULL
+    AND NOT EXISTS (SELECT 1
+                    FROM practice_attempt a
+                    WHERE a.session_id = ps.id AND a.question_id = u.question_id)', 'SELECT 1');
+PREPARE backfill_used FROM @stmt;
+EXECUTE backfill_used;
+DEALLOCATE PREPARE backfill_used;
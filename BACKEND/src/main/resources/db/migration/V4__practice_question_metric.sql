@@ -0,0 +1,62 @@
+-- Typed per-question metrics, replaces the practice_session_metrics key/value collection
+-- (keys like mcq_q7_time_confidence) that Hibernate rewrote in full on every flush.
+CREATE TABLE IF NOT EXISTS practice_question_metric (
+    id                      BIGINT       NOT NULL AUTO_INCREMENT,
+    session_id              VARCHAR(255) NOT NULL,
+    question_number         INT          NOT NULL,
+    question_type           VARCHAR(16),
+    correct                 BOOLEAN,
+    time_taken_seconds      BIGINT,
+    time_confidence         DOUBLE,
+    difficulty              VARCHAR(16),
+    topics                  VARCHAR(512),
+    total_tests             INT,
+    passed_tests            INT,
+    average_execution_time  DOUBLE,
+    max_memory_used         DOUBLE,
+    compilation_error       BOOLEAN,
+    recorded_at             DATETIME(6),
+    PRIMARY KEY (id),
+    KEY idx_practice_question_metric_session (session_id)
+);
+
+-- On a fresh database the old table never existed, skip
+SET @has_metrics = (SELECT COUNT(*)
+                    FROM information_schema.tables
+                    WHERE table_schema = DATABASE() AND table_name = 'practice_session_metrics');
+
+-- One row per session, type and question number. Values that do not parse become NULL.
+SET @stmt = IF(@has_metrics > 0, '
+    INSERT INTO practice_question_metric (session_id, question_number, question_type, correct,
+                                          time_taken_seconds, time_confidence, difficulty, topics,
+                                          total_tests, passed_tests, average_execution_time,
+                                          max_memory_used, compilation_error)
+    SELECT m.session_id,
+           m.question_number,
+           m.question_type,
+           MAX(CASE WHEN m.metric = ''correct'' THEN m.metric_value = ''true'' END),
+           MAX(CASE WHEN m.metric = ''time_taken'' AND m.numeric_value THEN CAST(m.metric_value AS SIGNED) END),
+           MAX(CASE WHEN m.metric = ''time_confidence'' AND m.numeric_value THEN CAST(m.metric_value AS DOUBLE) END),
+           MAX(CASE WHEN m.metric = ''difficulty'' AND m.metric_value IN (''EASY'', ''MEDIUM'', ''HARD'', ''MIXED'')
+                    THEN m.metric_value END),
+           MAX(CASE WHEN m.metric = ''topics'' THEN LEFT(m.metric_value, 512) END),
+           MAX(CASE WHEN m.metric = ''total_tests'' AND m.numeric_value THEN CAST(m.metric_value AS SIGNED) END),
+           MAX(CASE WHEN m.metric = ''passed_tests'' AND m.numeric_value THEN CAST(m.metric_value AS SIGNED) END),
+           MAX(CASE WHEN m.metric = ''avg_time'' AND m.numeric_value THEN CAST(m.metric_value AS DOUBLE) END),
+           MAX(CASE WHEN m.metric = ''max_memory'' AND m.numeric_value THEN CAST(m.metric_value AS DOUBLE) END),
+           MAX(CASE WHEN m.metric = ''compilation_error'' THEN m.metric_value = ''true'' END)
+    FROM (SELECT session_id,
+                 IF(metric_key LIKE ''mcq%'', ''MCQ'', ''CODING'') AS question_type,
+                 CAST(REGEXP_SUBSTR(metric_key, ''[0-9]+'') AS UNSIGNED) AS question_number,
+                 REGEXP_REPLACE(metric_key, ''^(mcq|coding)_q[0-9]+_'', '''') AS metric,
+                 metric_value,
+                 metric_value REGEXP ''^-?[0-9.]+([eE]-?[0-9]+)?$'' AS numeric_value
+          FROM practice_session_metrics
+          WHERE metric_key REGEXP ''^(mcq|coding)_q[0-9]+_'') m
+    GROUP BY m.session_id, m.question_type, m.question_number', 'SELECT 1');
+PREPARE backfill_metrics FROM @stmt;
+EXECUTE backfill_metrics;
+DEALLOCATE PREPARE backfill_metrics;
+
+-- Its foreign key to practice_sessions would block deleting sessions once nothing maps it
+DROP TABLE IF EXISTS practice_session_metrics;
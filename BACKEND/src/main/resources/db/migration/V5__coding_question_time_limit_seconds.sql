@@ -0,0 +1,11 @@
+-- coding_question.time_limit is in seconds. Rows entered in milliseconds (anything from 100 up,
+-- the judge used to guess the unit from the size) are converted once.
+-- On a fresh database the table does not exist yet (Hibernate creates it after Flyway), so skip.
+SET @stmt = (SELECT IF(COUNT(*) > 0,
+                       'UPDATE coding_question SET time_limit = time_limit / 1000 WHERE time_limit >= 100',
+                       'SELECT 1')
+             FROM information_schema.tables
+             WHERE table_schema = DATABASE() AND table_name = 'coding_question');
+PREPARE migrate_time_limit FROM @stmt;
+EXECUTE migrate_time_limit;
+DEALLOCATE PREPARE migrate_time_limit;
@@ -0,0 +1,161 @@
+/*
+ * CodeArena batch harness (C / C++).
+ * The user program is compiled once together with this file. A constructor runs before
+ * the user's main and forks one child per test case; each child returns into the normal
+ * startup path, so the user's globals and main run fresh for every case.
+ *
+ * stdin : "<cases>\n" then "<bytes>\n<input bytes>" per case
+ * stdout: "##ARENA <index> <exit> <timeMs> <memoryKb> <stdoutB64> <stderrB64>" per case
+ */
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <signal.h>
+#include <time.h>
+#include <unistd.h>
+#include <fcntl.h>
+#include <sys/types.h>
+#include <sys/wait.h>
+#include <sys/time.h>
+#include <sys/resource.h>
+
+static const char __arena_b64_chars[] =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+static void __arena_print_b64(const char *path) {
+    FILE *file = fopen(path, "rb");
+    unsigned char in[3];
+    size_t n;
+    int any = 0;
+
+    if (file == NULL) {
+        fputs("-", stdout);
+        return;
+    }
+    while ((n = fread(in, 1, 3, file)) > 0) {
+        any = 1;
+        putchar(__arena_b64_chars[in[0] >> 2]);
+        putchar(__arena_b64_chars[((in[0] & 3) << 4) | (n > 1 ? in[1] >> 4 : 0)]);
+        putchar(n > 1 ? __arena_b64_chars[((in[1] & 15) << 2) | (n > 2 ? in[2] >> 6 : 0)] : '=');
+        putchar(n > 2 ? __arena_b64_chars[in[2] & 63] : '=');
+    }
+    fclose(file);
+    if (!any) {
+        fputs("-", stdout);
+    }
+}
+
+static char *__arena_read_all(size_t *length) {
+    size_t capacity = 1 << 16;
+    size_t size = 0;
+    ssize_t n;
+    char *buffer = (char *) malloc(capacity);
+
+    /* read(2) rather than stdio so the user's stdin FILE is left untouched */
+    while ((n = read(STDIN_FILENO, buffer + size, capacity - size)) > 0) {
+        size += (size_t) n;
+        if (size == capacity) {
+            capacity *= 2;
+            buffer = (char *) realloc(buffer, capacity);
+        }
+    }
+    *length = size;
+    return buffer;
+}
+
+static long __arena_read_number(const char *data, size_t length, size_t *pos) {
+    long value = 0;
+    while (*pos < length && data[*pos] != '\n') {
+        value = value * 10 + (data[*pos] - '0');
+        (*pos)++;
+    }
+    (*pos)++;
+    return value;
+}
+
+__attribute__((constructor(101)))
+static void __arena_run_cases(void) {
+    const long time_limit_ms = {{TIME_LIMIT_MS}};
+    const long memory_limit_mb = {{MEMORY_LIMIT_MB}};
+    size_t length;
+    size_t pos = 0;
+    char *data = __arena_read_all(&length);
+    long cases = __arena_read_number(data, length, &pos);
+    long i;
+
+    for (i = 0; i < cases; i++) {
+        char in_path[64], out_path[64], err_path[64];
+        long size = __arena_read_number(data, length, &pos);
+        struct timespec start, end;
+        struct rusage usage;
+        int status = 0;
+        int exit_code;
+        long elapsed_ms;
+        pid_t pid;
+        FILE *in;
+
+        sprintf(in_path, "__arena_in_%ld", i);
+        sprintf(out_path, "__arena_out_%ld", i);
+        sprintf(err_path, "__arena_err_%ld", i);
+
+        in = fopen(in_path, "wb");
+        fwrite(data + pos, 1, (size_t) size, in);
+        fclose(in);
+        pos += (size_t) size;
+
+        fflush(stdout);
+        clock_gettime(CLOCK_MONOTONIC, &start);
+
+        pid = fork();
+        if (pid == 0) {
+            struct itimerval timer;
+
+            dup2(open(in_path, O_RDONLY), STDIN_FILENO);
+            dup2(open(out_path, O_WRONLY | O_CREAT | O_TRUNC, 0644), STDOUT_FILENO);
+            dup2(open(err_path, O_WRONLY | O_CREAT | O_TRUNC, 0644), STDERR_FILENO);
+
+            memset(&timer, 0, sizeof(timer));
+            timer.it_value.tv_sec = time_limit_ms / 1000;
+            timer.it_value.tv_usec = (time_limit_ms % 1000) * 1000;
+            setitimer(ITIMER_REAL, &timer, NULL);
+
+            if (memory_limit_mb > 0) {
+                struct rlimit limit;
+                limit.rlim_cur = limit.rlim_max = (rlim_t) memory_limit_mb * 1024 * 1024;
+                setrlimit(RLIMIT_AS, &limit);
+            }
+
+            free(data);
+            return;
+        }
+
+        memset(&usage, 0, sizeof(usage));
+        wait4(pid, &status, 0, &usage);
+        clock_gettime(CLOCK_MONOTONIC, &end);
+
+        elapsed_ms = (end.tv_sec - start.tv_sec) * 1000 + (end.tv_nsec - start.tv_nsec) / 1000000;
+
+        if (WIFSIGNALED(status)) {
+            exit_code = WTERMSIG(status) == SIGALRM ? 124 : 128 + WTERMSIG(status);
+        } else {
+            exit_code = WEXITSTATUS(status);
+        }
+
+        printf("##ARENA %ld %d %ld %ld ", i, exit_code, elapsed_ms, (long) usage.ru_maxrss);
+        __arena_print_b64(out_path);
+        putchar(' ');
+        __arena_print_b64(err_path);
+        putchar('\n');
+
+        unlink(in_path);
+        unlink(out_path);
+        unlink(err_path);
+    }
+
+    free(data);
+    fflush(stdout);
+    _exit(0);
+}
+
+#line 1 "solution"
+{{USER_SOURCE}}
@@ -0,0 +1,153 @@
+// CodeArena batch harness (Java).
+// The user program is compiled once with javac, then every test case runs in a fresh JVM
+// started from those classes, so static state starts clean, System.exit / Runtime.halt end
+// only that case, and -Xmx holds the case to the memory limit. A small runner class compiled
+// next to the user's code reports the peak heap and turns an OutOfMemoryError into exit 125.
+//
+// stdin : "<cases>\n" then "<bytes>\n<input bytes>" per case
+// stdout: "##ARENA <index> <exit> <timeMs> <memoryKb> <stdoutB64> <stderrB64>" per case
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class Main {
+
+    static final String SOURCE = new String(Base64.getDecoder().decode("{{USER_SOURCE_B64}}"), StandardCharsets.UTF_8);
+    static final long TIME_LIMIT_MS = {{TIME_LIMIT_MS}};
+    static final long MEMORY_LIMIT_MB = {{MEMORY_LIMIT_MB}};
+
+    static final String RUNNER = "__ArenaRunner";
+
+    // args: user class, peak file. Runs the user's main on the JVM's own main thread.
+    static final String RUNNER_SOURCE =
+            "import java.lang.management.ManagementFactory;\n" +
+            "import java.lang.management.MemoryPoolMXBean;\n" +
+            "import java.lang.management.MemoryType;\n" +
+            "import java.lang.reflect.InvocationTargetException;\n" +
+            "import java.nio.file.Files;\n" +
+            "import java.nio.file.Path;\n" +
+            "public class " + RUNNER + " {\n" +
+            "    public static void main(String[] args) throws Throwable {\n" +
+            "        Path peakFile = Path.of(args[1]);\n" +
+            "        Runtime.getRuntime().addShutdownHook(new Thread(() -> {\n" +
+            "            try { Files.writeString(peakFile, String.valueOf(peakUsageKb())); } catch (Exception ignored) { }\n" +
+            "        }));\n" +
+            "        Thread.setDefaultUncaughtExceptionHandler((thread, error) -> {\n" +
+            "            error.printStackTrace();\n" +
+            "            if (error instanceof OutOfMemoryError) { System.err.flush(); Runtime.getRuntime().halt(125); }\n" +
+            "        });\n" +
+            "        try {\n" +
+            "            Class.forName(args[0]).getMethod(\"main\", String[].class).invoke(null, (Object) new String[0]);\n" +
+            "        } catch (InvocationTargetException e) {\n" +
+            "            throw e.getCause();\n" +
+            "        }\n" +
+            "    }\n" +
+            "    static long peakUsageKb() {\n" +
+            "        long bytes = 0;\n" +
+            "        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {\n" +
+            "            if (pool.getType() == MemoryType.HEAP) { bytes += pool.getPeakUsage().getUsed(); }\n" +
+            "        }\n" +
+            "        return bytes / 1024;\n" +
+            "    }\n" +
+            "}\n";
+
+    public static void main(String[] args) throws Exception {
+        PrintStream out = System.out;
+        byte[] data = System.in.readAllBytes();
+
+        Matcher matcher = Pattern.compile("public\\s+(?:final\\s+)?class\\s+(\\w+)").matcher(SOURCE);
+        String className = matcher.find() ? matcher.group(1) : "Main";
+
+        Path dir = Files.createTempDirectory("arena");
+        Path file = dir.resolve(className + ".java");
+        Path runner = dir.resolve(RUNNER + ".java");
+        Files.writeString(file, SOURCE);
+        Files.writeString(runner, RUNNER_SOURCE);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        if (compiler.run(null, diagnostics, diagnostics, "-d", dir.toString(), file.toString(), runner.toString()) != 0) {
+            out.println("##ARENA-COMPILE " + encode(diagnostics.toByteArray()));
+            out.flush();
+            return;
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (MEMORY_LIMIT_MB > 0) {
+            command.add("-Xmx" + MEMORY_LIMIT_MB + "m");
+        }
+        // Fewer JVM threads and a quicker start, each case pays the startup
+        command.add("-Xss64m");
+        command.add("-XX:+UseSerialGC");
+        command.add("-XX:TieredStopAtLevel=1");
+        command.add("-cp");
+        command.add(dir.toString());
+        command.add(RUNNER);
+        command.add(className);
+
+        int[] pos = {0};
+        int cases = readNumber(data, pos);
+        for (int i = 0; i < cases; i++) {
+            int size = readNumber(data, pos);
+            Path in = dir.resolve("__arena_in_" + i);
+            Path caseOut = dir.resolve("__arena_out_" + i);
+            Path caseErr = dir.resolve("__arena_err_" + i);
+            Path peak = dir.resolve("__arena_peak_" + i);
+            Files.write(in, Arrays.copyOfRange(data, pos[0], pos[0] + size));
+            pos[0] += size;
+
+            List<String> caseCommand = new ArrayList<>(command);
+            caseCommand.add(peak.toString());
+
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(caseCommand)
+                    .redirectInput(in.toFile())
+                    .redirectOutput(caseOut.toFile())
+                    .redirectError(caseErr.toFile())
+                    .start();
+            boolean finished = process.waitFor(TIME_LIMIT_MS, TimeUnit.MILLISECONDS);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (!finished) {
+                process.destroyForcibly();
+                process.waitFor();
+            }
+
+            // Missing when the runner was halted or killed before its shutdown hook ran
+            String peakText = Files.exists(peak) ? Files.readString(peak).trim() : "";
+            long memoryKb = peakText.isEmpty() ? 0 : Long.parseLong(peakText);
+
+            out.println("##ARENA " + i + " " + (finished ? process.exitValue() : 124) + " " + elapsedMs + " "
+                    + memoryKb + " " + encode(Files.readAllBytes(caseOut)) + " " + encode(Files.readAllBytes(caseErr)));
+            out.flush();
+
+            for (Path path : List.of(in, caseOut, caseErr, peak)) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static int readNumber(byte[] data, int[] pos) {
+        int value = 0;
+        while (data[pos[0]] != '\n') {
+            value = value * 10 + (data[pos[0]++] - '0');
+        }
+        pos[0]++;
+        return value;
+    }
+
+    static String encode(byte[] bytes) {
+        return bytes.length == 0 ? "-" : Base64.getEncoder().encodeToString(bytes);
+    }
+}
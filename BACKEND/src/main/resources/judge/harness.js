@@ -0,0 +1,80 @@
+// CodeArena batch harness (JavaScript).
+// JavaScript has no compile step, so the win here is one sandbox round-trip for all
+// test cases. Each case still runs in a fresh node process, its heap capped at the memory
+// limit. A preloaded hook reports the peak RSS on fd 3, running out of heap is exit 125.
+//
+// stdin : "<cases>\n" then "<bytes>\n<input bytes>" per case
+// stdout: "##ARENA <index> <exit> <timeMs> <memoryKb> <stdoutB64> <stderrB64>" per case
+const fs = require("fs");
+const os = require("os");
+const path = require("path");
+const { spawnSync } = require("child_process");
+
+const SOURCE = Buffer.from("{{USER_SOURCE_B64}}", "base64").toString("utf8");
+const TIME_LIMIT_MS = {{TIME_LIMIT_MS}};
+const MEMORY_LIMIT_MB = {{MEMORY_LIMIT_MB}};
+
+// V8 aborts with this on stderr when the heap hits --max-old-space-size
+const HEAP_EXHAUSTED = "JavaScript heap out of memory";
+
+const encode = (buffer) => (buffer && buffer.length ? buffer.toString("base64") : "-");
+
+const dir = fs.mkdtempSync(path.join(os.tmpdir(), "arena-"));
+const file = path.join(dir, "solution.js");
+fs.writeFileSync(file, SOURCE);
+
+const peakHook = path.join(dir, "peak.js");
+fs.writeFileSync(peakHook, `process.on("exit", () => {
+  try { require("fs").writeSync(3, String(process.resourceUsage().maxRSS)); } catch (e) {}
+});
+`);
+
+const nodeArgs = ["--require", peakHook];
+if (MEMORY_LIMIT_MB > 0) {
+  nodeArgs.push(`--max-old-space-size=${MEMORY_LIMIT_MB}`);
+}
+nodeArgs.push(file);
+
+const data = fs.readFileSync(0);
+let pos = 0;
+
+const readNumber = () => {
+  const end = data.indexOf(10, pos);
+  const value = parseInt(data.subarray(pos, end).toString("ascii"), 10);
+  pos = end + 1;
+  return value;
+};
+
+const cases = readNumber();
+for (let i = 0; i < cases; i++) {
+  const size = readNumber();
+  const input = data.subarray(pos, pos + size);
+  pos += size;
+
+  const start = process.hrtime.bigint();
+  const result = spawnSync(process.execPath, nodeArgs, {
+    input,
+    stdio: ["pipe", "pipe", "pipe", "pipe"],
+    timeout: TIME_LIMIT_MS,
+    maxBuffer: 64 * 1024 * 1024,
+  });
+  const elapsedMs = Number((process.hrtime.bigint() - start) / 1000000n);
+
+  let exitCode = result.status;
+  if (result.error && result.error.code === "ETIMEDOUT") {
+    exitCode = 124;
+  } else if (result.stderr && result.stderr.includes(HEAP_EXHAUSTED)) {
+    exitCode = 125;
+  } else if (result.signal) {
+    exitCode = 128 + (os.constants.signals[result.signal] || 0);
+  }
+
+  const peak = result.output && result.output[3];
+  const memoryKb = peak && peak.length ? parseInt(peak.toString("ascii"), 10) || 0 : 0;
+
+  process.stdout.write(
+    `##ARENA ${i} ${exitCode} ${elapsedMs} ${memoryKb} ${encode(result.stdout)} ${encode(result.stderr)}\n`
+  );
+}
+
+fs.rmSync(dir, { recursive: true, force: true });
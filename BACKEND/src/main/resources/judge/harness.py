@@ -0,0 +1,114 @@
+# CodeArena batch harness (Python).
+# The user program is compiled once and every test case runs in a forked child,
+# so module globals start fresh for each case.
+#
+# stdin : "<cases>\n" then "<bytes>\n<input bytes>" per case
+# stdout: "##ARENA <index> <exit> <timeMs> <memoryKb> <stdoutB64> <stderrB64>" per case
+import base64
+import linecache
+import os
+import resource
+import signal
+import sys
+import time
+import traceback
+
+SOURCE = base64.b64decode("{{USER_SOURCE_B64}}").decode("utf-8")
+TIME_LIMIT_MS = {{TIME_LIMIT_MS}}
+MEMORY_LIMIT_MB = {{MEMORY_LIMIT_MB}}
+
+
+def encode(path):
+    with open(path, "rb") as f:
+        content = f.read()
+    return base64.b64encode(content).decode("ascii") if content else "-"
+
+
+def read_number(data, pos):
+    end = data.index(b"\n", pos)
+    return int(data[pos:end]), end + 1
+
+
+def run_case(code, in_path, out_path, err_path):
+    in_fd = os.open(in_path, os.O_RDONLY)
+    out_fd = os.open(out_path, os.O_WRONLY | os.O_CREAT | os.O_TRUNC)
+    err_fd = os.open(err_path, os.O_WRONLY | os.O_CREAT | os.O_TRUNC)
+    os.dup2(in_fd, 0)
+    os.dup2(out_fd, 1)
+    os.dup2(err_fd, 2)
+    sys.stdin = open(0, "r", closefd=False)
+    sys.stdout = open(1, "w", closefd=False)
+    sys.stderr = open(2, "w", closefd=False)
+
+    signal.setitimer(signal.ITIMER_REAL, TIME_LIMIT_MS / 1000.0)
+    if MEMORY_LIMIT_MB > 0:
+        limit = MEMORY_LIMIT_MB * 1024 * 1024
+        resource.setrlimit(resource.RLIMIT_AS, (limit, limit))
+
+    status = 0
+    try:
+        exec(code, {"__name__": "__main__"})
+    except SystemExit as e:
+        if isinstance(e.code, int):
+            status = e.code
+        elif e.code is not None:
+            print(e.code, file=sys.stderr)
+            status = 1
+    except MemoryError:
+        # Same as the other harnesses: 125 is the memory limit
+        traceback.print_exc()
+        status = 125
+    except BaseException as e:
+        # Drop the harness frame so the trace starts at the user's code
+        traceback.print_exception(type(e), e, e.__traceback__.tb_next)
+        status = 1
+    finally:
+        sys.stdout.flush()
+        sys.stderr.flush()
+    os._exit(status)
+
+
+def main():
+    data = sys.stdin.buffer.read()
+
+    # Lets tracebacks quote the user's lines instead of this file's
+    linecache.cache["solution.py"] = (len(SOURCE), None, SOURCE.splitlines(True), "solution.py")
+
+    try:
+        code = compile(SOURCE, "solution.py", "exec")
+    except SyntaxError:
+        message = traceback.format_exc(limit=0).encode("utf-8")
+        print("##ARENA-COMPILE " + base64.b64encode(message).decode("ascii"))
+        return
+
+    cases, pos = read_number(data, 0)
+    for i in range(cases):
+        size, pos = read_number(data, pos)
+        in_path, out_path, err_path = "__arena_in_%d" % i, "__arena_out_%d" % i, "__arena_err_%d" % i
+        with open(in_path, "wb") as f:
+            f.write(data[pos:pos + size])
+        pos += size
+
+        sys.stdout.flush()
+        start = time.perf_counter()
+        pid = os.fork()
+        if pid == 0:
+            run_case(code, in_path, out_path, err_path)
+
+        _, status, usage = os.wait4(pid, 0)
+        elapsed_ms = int((time.perf_counter() - start) * 1000)
+
+        if os.WIFSIGNALED(status):
+            signum = os.WTERMSIG(status)
+            exit_code = 124 if signum == signal.SIGALRM else 128 + signum
+        else:
+            exit_code = os.WEXITSTATUS(status)
+
+        print("##ARENA %d %d %d %d %s %s" % (
+            i, exit_code, elapsed_ms, usage.ru_maxrss, encode(out_path), encode(err_path)))
+
+        for path in (in_path, out_path, err_path):
+            os.remove(path)
+
+
+main()
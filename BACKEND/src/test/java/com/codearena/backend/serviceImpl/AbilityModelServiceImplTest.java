@@ -0,0 +1,71 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.utils.constant.Difficulty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AbilityModelServiceImplTest {
+
+    private static final String DIFFICULTY_KEY = "practice:irt:difficulty";
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+
+    private AbilityModelServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(hashOperations).when(stringRedisTemplate).opsForHash();
+        service = new AbilityModelServiceImpl(stringRedisTemplate, new AppProperties());
+    }
+
+    @Test
+    void projectionReadsTheStoredDifficultyOnAMiss() {
+        when(hashOperations.get(DIFFICULTY_KEY, "q1")).thenReturn("2.0:5");
+
+        double projected = service.projectedAbility("u1", "CODING", "q1", Difficulty.EASY, true);
+
+        // New user at 0, first step 0.6, against the stored 2.0 rather than the EASY prior
+        assertEquals(0.6 * (1 - 1 / (1 + Math.exp(2.0))), projected, 1e-9);
+    }
+
+    @Test
+    void priorWithoutALabelIsNotCached() {
+        service.projectedAbility("u1", "CODING", "q1", null, true);
+        when(hashOperations.multiGet(eq(DIFFICULTY_KEY), any())).thenReturn(Arrays.asList((Object) null));
+
+        service.rankByInformation(0.0, List.of("q1"), Function.identity(), id -> Difficulty.HARD);
+
+        // Still a miss, so ranking loads it and the HARD prior takes its place
+        verify(hashOperations).multiGet(DIFFICULTY_KEY, List.of("q1"));
+    }
+
+    @Test
+    void recordAnswerSeedsTheLabelPrior() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("0.3:1", "0.7:1"));
+
+        service.recordAnswer("u1", "CODING", "q1", Difficulty.HARD, false);
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), anyList(),
+                eq("u1"), eq("q1"), eq("1.0"), any(), any(), any(), eq("0"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.exception.AiServiceException;
+import com.codearena.backend.utils.constant.ErrorMessages;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiGatewayImplTest {
+
+    private final AppProperties appProperties = new AppProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private ThreadPoolTaskExecutor executor;
+    private AiGatewayImpl gateway;
+
+    @BeforeEach
+    void setUp() {
+        appProperties.getAi().setTimeoutSeconds(1);
+        appProperties.getAi().setMaxRetries(3);
+        appProperties.getAi().getGateway().setBackoffBaseMs(10);
+        appProperties.getAi().getGateway().setBackoffMaxMs(20);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.initialize();
+        gateway = new AiGatewayImpl(executor, appProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void timedOutCallIsNotRetried() {
+        long start = System.nanoTime();
+
+        AiServiceException error = assertThrows(AiServiceException.class, () -> gateway.call("chat", () -> {
+            calls.incrementAndGet();
+            sleep(5_000);
+            return "late";
+        }));
+
+        assertEquals(ErrorMessages.AI_TIMEOUT, error.getMessage());
+        assertEquals(1, calls.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+        assertEquals(1.0, meterRegistry.get("ai.gateway.calls").tag("outcome", "timeout").counter().count());
+    }
+
+    @Test
+    void failedCallIsRetriedUpToMaxRetries() {
+        String result = gateway.call("hint", () -> {
+            if (calls.incrementAndGet() < 4) {
+                throw new IllegalStateException("503");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void retriesStopAtTheOverallDeadline() {
+        long start = System.nanoTime();
+
+        // Each attempt fails slowly, three retries would take 1.6s against a 1s deadline
+        assertThrows(RuntimeException.class, () -> gateway.call("review", () -> {
+            calls.incrementAndGet();
+            sleep(400);
+            throw new IllegalStateException("503");
+        }));
+
+        assertTrue(calls.get() < 4);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_500);
+    }
+
+    @Test
+    void nonRetryableFailureFailsOnce() {
+        assertThrows(IllegalArgumentException.class, () -> gateway.call("chat", () -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("bad prompt");
+        }));
+
+        assertEquals(1, calls.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.exception.JudgeQueueFullException;
+import com.codearena.backend.utils.constant.JudgePriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.codearena.backend.utils.constant.JudgePriority.PRACTICE;
+import static com.codearena.backend.utils.constant.JudgePriority.ROOM;
+import static com.codearena.backend.utils.constant.JudgePriority.RUN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JudgeQueueServiceImplTest {
+
+    private final AppProperties appProperties = new AppProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        // One worker, so the order jobs run in is the order the queue hands them out
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1000);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void workersFollowClassWeights() throws Exception {
+        // Default weights: room 8, practice 3, run 1
+        JudgeQueueServiceImpl service = new JudgeQueueServiceImpl(executor, appProperties, meterRegistry);
+        CompletableFuture<JudgePriority> blocker = blockWorker(service, RUN);
+
+        List<JudgePriority> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<JudgePriority>> jobs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            jobs.add(service.enqueue(RUN, () -> record(order, RUN)));
+        }
+        for (int i = 0; i < 3; i++) {
+            jobs.add(service.enqueue(PRACTICE, () -> record(order, PRACTICE)));
+        }
+        for (int i = 0; i < 7; i++) {
+            jobs.add(service.enqueue(ROOM, () -> record(order, ROOM)));
+        }
+        assertEquals(12, service.getQueueDepth());
+
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(jobs.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        // Finish tags: room 1/8 apart, practice 1/3 apart, run behind the blocker's tag of 1
+        assertEquals(List.of(ROOM, ROOM, PRACTICE, ROOM, ROOM, ROOM, PRACTICE, ROOM, ROOM,
+                PRACTICE, RUN, RUN), order);
+        assertEquals(0, service.getQueueDepth());
+    }
+
+    @Test
+    void fullClassIsRejectedWithoutBlockingTheOthers() throws Exception {
+        appProperties.getJudge().setQueueCapacity(2);
+        JudgeQueueServiceImpl service = new JudgeQueueServiceImpl(executor, appProperties, meterRegistry);
+        blockWorker(service, ROOM);
+
+        service.enqueue(PRACTICE, () -> PRACTICE);
+        service.enqueue(PRACTICE, () -> PRACTICE);
+
+        assertThrows(JudgeQueueFullException.class, () -> service.enqueue(PRACTICE, () -> PRACTICE));
+        assertEquals(2, service.getQueueDepth(PRACTICE));
+        assertEquals(1.0, meterRegistry.get("judge.queue.rejected").tag("class", "practice").counter().count());
+
+        CompletableFuture<JudgePriority> room = service.enqueue(ROOM, () -> ROOM);
+        release.countDown();
+        assertEquals(ROOM, room.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void jobFailureCompletesTheFutureExceptionally() {
+        JudgeQueueServiceImpl service = new JudgeQueueServiceImpl(executor, appProperties, meterRegistry);
+
+        CompletableFuture<Object> future = service.enqueue(RUN, () -> {
+            throw new IllegalStateException("sandbox down");
+        });
+
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+    }
+
+    // Occupies the only worker until release, returns once it is running
+    private CompletableFuture<JudgePriority> blockWorker(JudgeQueueServiceImpl service, JudgePriority priority)
+            throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<JudgePriority> blocker = service.enqueue(priority, () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return priority;
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private static JudgePriority record(List<JudgePriority> order, JudgePriority priority) {
+        order.add(priority);
+        return priority;
+    }
+}
@@ -0,0 +1,183 @@
+package com.codearena.backend.serviceImpl;
+
+import com.codearena.backend.config.AppProperties;
+import com.codearena.backend.entity.PracticeAttempt;
+import com.codearena.backend.entity.PracticeSession;
+import com.codearena.backend.entity.User;
+import com.codearena.backend.repository.PracticeSessionRepository;
+import com.codearena.backend.repository.UserRepository;
+import com.codearena.backend.service.PracticeAttemptService;
+import com.codearena.backend.utils.constant.Difficulty;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PracticeSessionStateServiceImplTest {
+
+    private static final String SESSION_ID = "session-1";
+    private static final String STATE_KEY = "practice:session:" + SESSION_ID;
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+    private final PracticeSessionRepository practiceSessionRepository = mock(PracticeSessionRepository.class);
+    private final PracticeAttemptService practiceAttemptService = mock(PracticeAttemptService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private PracticeSessionStateServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(hashOperations).when(stringRedisTemplate).opsForHash();
+        service = new PracticeSessionStateServiceImpl(stringRedisTemplate, practiceSessionRepository,
+                practiceAttemptService, userRepository, mock(PlatformTransactionManager.class),
+                new AppProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void missRebuildsCountersFromTheAttemptLog() {
+        when(hashOperations.entries(STATE_KEY)).thenReturn(Map.of());
+        // Last flush was before q3 was answered, the row still points at index 1
+        when(practiceSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(stored(1, "q4")));
+        when(practiceAttemptService.getHistory(SESSION_ID)).thenReturn(List.of(
+                attempt("q1", false, false, 30),
+                attempt("q1", true, false, 20),
+                attempt("q2", false, true, 0),
+                attempt("q3", true, false, 40)));
+
+        PracticeSession hot = service.load(SESSION_ID);
+
+        // A retry adds time and a correct answer but not another answered question, a skip adds neither
+        assertEquals(2, hot.getTotalQuestionsAnswered());
+        assertEquals(2, hot.getCorrectAnswers());
+        assertEquals(45.0, hot.getAverageTimePerQuestion());
+        assertEquals(100.0, hot.getAccuracyPercentage());
+        assertEquals(3, hot.getCurrentQuestionIndex());
+
+        Map<String, String> hash = writtenHash();
+        assertEquals("2", hash.get("answered"));
+        assertEquals("2", hash.get("correct"));
+        assertEquals("90", hash.get("timeTotal"));
+        assertEquals("3", hash.get("currentQuestionIndex"));
+        assertEquals("alice", hash.get("username"));
+    }
+
+    @Test
+    void currentQuestionAlreadyInTheLogIsNotSkippedPast() {
+        when(hashOperations.entries(STATE_KEY)).thenReturn(Map.of());
+        when(practiceSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(stored(1, "q2")));
+        when(practiceAttemptService.getHistory(SESSION_ID)).thenReturn(List.of(
+                attempt("q1", true, false, 10),
+                attempt("q2", false, false, 10)));
+
+        assertEquals(1, service.load(SESSION_ID).getCurrentQuestionIndex());
+    }
+
+    @Test
+    void endedSessionIsNotCachedAgain() {
+        PracticeSession ended = stored(4, "q5");
+        ended.setCompleted(true);
+        when(hashOperations.entries(STATE_KEY)).thenReturn(Map.of());
+        when(practiceSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(ended));
+
+        assertSame(ended, service.load(SESSION_ID));
+        verify(hashOperations, never()).putAll(anyString(), anyMap());
+    }
+
+    @Test
+    void hitIsServedFromTheHashAndRoundTrips() {
+        when(hashOperations.entries(STATE_KEY)).thenReturn(Map.of());
+        when(practiceSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(stored(0, "q1")));
+        when(practiceAttemptService.getHistory(SESSION_ID)).thenReturn(List.of());
+        service.load(SESSION_ID);
+
+        Map<Object, Object> hash = new HashMap<>(writtenHash());
+        when(hashOperations.entries(STATE_KEY)).thenReturn(hash);
+        PracticeSession hot = service.load(SESSION_ID);
+
+        assertEquals("user-1", hot.getUser().getId());
+        assertEquals("alice", hot.getUser().getUsername());
+        assertEquals(Difficulty.values()[0], hot.getCurrentDifficulty());
+        assertEquals("q1", hot.getCurrentQuestionId());
+        verify(practiceSessionRepository).findById(SESSION_ID);
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void hashWithoutUsernameLooksTheOwnerUp() {
+        when(hashOperations.entries(STATE_KEY)).thenReturn(Map.of());
+        when(practiceSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(stored(0, "q1")));
+        when(practiceAttemptService.getHistory(SESSION_ID)).thenReturn(List.of());
+        service.load(SESSION_ID);
+
+        Map<Object, Object> legacy = new HashMap<>(writtenHash());
+        legacy.remove("username");
+        when(hashOperations.entries(STATE_KEY)).thenReturn(legacy);
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(owner()));
+
+        assertEquals("alice", service.load(SESSION_ID).getUser().getUsername());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> writtenHash() {
+        ArgumentCaptor<Map<String, String>> hash = ArgumentCaptor.forClass(Map.class);
+        verify(hashOperations).putAll(eq(STATE_KEY), hash.capture());
+        return hash.getValue();
+    }
+
+    private static PracticeSession stored(int questionIndex, String questionId) {
+        PracticeSession session = new PracticeSession();
+        session.setId(SESSION_ID);
+        session.setUser(owner());
+        session.setSessionCode("ABC123");
+        session.setQuestionType("CODING");
+        session.setMaxQuestions(10);
+        session.setTimeLimitMinutes(30);
+        session.setStartingDifficulty(Difficulty.values()[0]);
+        session.setCurrentDifficulty(Difficulty.values()[0]);
+        session.setStartedAt(LocalDateTime.now().minusMinutes(5));
+        session.setExpiresAt(LocalDateTime.now().plusMinutes(25));
+        session.setCurrentQuestionIndex(questionIndex);
+        session.setCurrentQuestionId(questionId);
+        return session;
+    }
+
+    private static User owner() {
+        User user = new User();
+        user.setId("user-1");
+        user.setUsername("alice");
+        return user;
+    }
+
+    private static PracticeAttempt attempt(String questionId, boolean correct, boolean skipped, long seconds) {
+        return PracticeAttempt.builder()
+                .sessionId(SESSION_ID)
+                .questionId(questionId)
+                .correct(correct)
+                .skipped(skipped)
+                .timeTakenSeconds(seconds)
+                .build();
+    }
+}
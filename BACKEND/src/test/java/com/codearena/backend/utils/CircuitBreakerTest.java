@@ -0,0 +1,114 @@
+package com.codearena.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.codearena.backend.utils.CircuitBreaker.State.CLOSED;
+import static com.codearena.backend.utils.CircuitBreaker.State.HALF_OPEN;
+import static com.codearena.backend.utils.CircuitBreaker.State.OPEN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    private final List<String> transitions = new ArrayList<>();
+
+    // Window of 4, needs 4 calls, opens at 50% failures, 2 trial calls
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker(4, 4, 50, OPEN_MILLIS, 2, (from, to) -> transitions.add(from + "->" + to));
+    }
+
+    @Test
+    void staysClosedUntilMinimumCallsThenOpens() {
+        CircuitBreaker breaker = breaker();
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CLOSED, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isCallPermitted());
+    }
+
+    @Test
+    void windowForgetsOldestOutcome() {
+        CircuitBreaker breaker = breaker();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        // Window S S S S after the first failure slides out, then one failure is 25%
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CLOSED, breaker.getState());
+        assertTrue(transitions.isEmpty());
+    }
+
+    @Test
+    void halfOpenClosesAfterAllTrialsSucceed() throws InterruptedException {
+        CircuitBreaker breaker = tripped();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(HALF_OPEN, breaker.getState());
+        breaker.onSuccess();
+        assertEquals(CLOSED, breaker.getState());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+
+        // Closing starts a fresh window
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CLOSED, breaker.getState());
+    }
+
+    @Test
+    void anyTrialFailureOpensAgain() throws InterruptedException {
+        CircuitBreaker breaker = tripped();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void releaseHandsTheTrialPermitBack() throws InterruptedException {
+        CircuitBreaker breaker = tripped();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.release();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(HALF_OPEN, breaker.getState());
+    }
+
+    private CircuitBreaker tripped() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(OPEN, breaker.getState());
+        return breaker;
+    }
+}
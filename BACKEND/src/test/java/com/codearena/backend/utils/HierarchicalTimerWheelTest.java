@@ -0,0 +1,98 @@
+package com.codearena.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimerWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void firesOnTheTickOfItsDeadlineNeverBefore() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        wheel.schedule("a", 5_500);
+
+        // Rounded up to the 6s tick
+        assertTrue(wheel.advance(5_999).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(6_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesDownFromEveryLevel() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        long level1 = 100 * TICK;
+        long level2 = (64 * 64 + 7) * TICK;
+        long level3 = (64 * 64 * 64 + 64 * 3 + 1) * TICK;
+        wheel.schedule("level3", level3);
+        wheel.schedule("level2", level2);
+        wheel.schedule("level1", level1);
+
+        for (long deadline : List.of(level1, level2, level3)) {
+            assertTrue(wheel.advance(deadline - TICK).isEmpty(), "fired early before " + deadline);
+            assertEquals(1, wheel.advance(deadline).size(), "did not fire at " + deadline);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void returnsKeysInDeadlineOrderAcrossOneAdvance() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        wheel.schedule("c", 5_000 * TICK);
+        wheel.schedule("a", 3 * TICK);
+        wheel.schedule("b", 70 * TICK);
+
+        assertEquals(List.of("a", "b", "c"), wheel.advance(10_000 * TICK));
+    }
+
+    @Test
+    void overdueDeadlineFiresOnTheNextTick() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 10 * TICK);
+        wheel.schedule("late", 0);
+
+        assertTrue(wheel.advance(10 * TICK + 999).isEmpty());
+        assertEquals(List.of("late"), wheel.advance(11 * TICK));
+    }
+
+    @Test
+    void rescheduleMovesAndCancelDrops() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        wheel.schedule("a", 3 * TICK);
+        wheel.schedule("a", 80 * TICK);
+        wheel.schedule("b", 4 * TICK);
+
+        assertEquals(2, wheel.size());
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("b"));
+
+        assertTrue(wheel.advance(79 * TICK).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(80 * TICK));
+    }
+
+    @Test
+    void deadlinePastTheWheelsReachIsClampedNotLost() {
+        // 1ms ticks keep the 2^24 tick reach cheap to walk through
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1, 0);
+        long deadline = (1L << 24) + 500;
+        wheel.schedule("far", deadline);
+
+        assertTrue(wheel.advance(deadline - 1).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(deadline));
+    }
+
+    @Test
+    void idleWheelSkipsAheadWithoutFiringLaterTimers() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        assertTrue(wheel.advance(1_000_000 * TICK).isEmpty());
+
+        // Scheduled relative to the skipped-to time, not the construction time
+        wheel.schedule("a", 1_000_002 * TICK);
+        assertTrue(wheel.advance(1_000_001 * TICK).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(1_000_002 * TICK));
+    }
+}
@@ -0,0 +1,81 @@
+package com.codearena.backend.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalJsonFieldParserTest {
+
+    private static final String REPLY = "Here is the JSON:\n```json\n"
+            + "{\"title\": \"Two \\\"Sum\\\"\", \"meta\": {\"title\": \"inner\"}, \"tags\": [\"a\", 1],"
+            + " \"points\": 10, \"hint\": null, \"body\": \"héllo\"}\n```\nAnything else?";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void handsOutTopLevelScalarsAndSkipsTheRest() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(objectMapper);
+
+        List<Map.Entry<String, String>> fields = parser.feed(REPLY);
+
+        assertEquals(List.of("title", "points", "hint", "body"), fields.stream().map(Map.Entry::getKey).toList());
+        assertEquals("Two \"Sum\"", parser.getFields().get("title"));
+        assertEquals("10", parser.getFields().get("points"));
+        assertNull(parser.getFields().get("hint"));
+        assertEquals("héllo", parser.getFields().get("body"));
+        assertTrue(parser.isFinished());
+    }
+
+    @Test
+    void sameResultWhenFedOneCharacterAtATime() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(objectMapper);
+        List<String> completed = new ArrayList<>();
+
+        for (int i = 0; i < REPLY.length(); i++) {
+            parser.feed(REPLY.substring(i, i + 1)).forEach(field -> completed.add(field.getKey()));
+        }
+
+        assertEquals(List.of("title", "points", "hint", "body"), completed);
+        assertEquals("Two \"Sum\"", parser.getFields().get("title"));
+        assertEquals("héllo", parser.getFields().get("body"));
+    }
+
+    @Test
+    void fieldCompletesOnlyOnceItsValueEnds() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(objectMapper);
+
+        assertTrue(parser.feed("{\"title\": \"Two S").isEmpty());
+        assertEquals(List.of(Map.entry("title", "Two Sum")), parser.feed("um\", \"points\": 1"));
+        // A number is open ended until something follows it
+        assertEquals(List.of(Map.entry("points", "12")), parser.feed("2}"));
+        assertTrue(parser.isFinished());
+    }
+
+    @Test
+    void ignoresEverythingAfterTheObjectCloses() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(objectMapper);
+        parser.feed("{\"a\": \"1\"}");
+
+        assertTrue(parser.feed(" {\"b\": \"2\"}").isEmpty());
+        assertEquals(Map.of("a", "1"), parser.getFields());
+    }
+
+    @Test
+    void waitsForTheOpeningBrace() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(objectMapper);
+
+        assertTrue(parser.feed("Sure, ").isEmpty());
+        assertTrue(parser.feed(null).isEmpty());
+        assertFalse(parser.isFinished());
+        assertEquals(List.of(Map.entry("a", "x")), parser.feed("here: {\"a\":\"x\""));
+    }
+}
@@ -0,0 +1,331 @@
+package com.codearena.backend.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JudgeHarnessTest {
+
+    // ================= FRAMING =================
+
+    @Test
+    void buildFramesEachInputWithItsByteLength() {
+        JudgeHarness.Program program = JudgeHarness.build("python", "print(1)",
+                List.of("1 2\n", "", "héllo\n"), 2000, 256);
+
+        // é is two bytes, the frame counts bytes not chars
+        assertEquals("3\n4\n1 2\n0\n7\nhéllo\n", program.stdin());
+        assertEquals("Main.py", program.fileName());
+    }
+
+    @Test
+    void buildTreatsNullInputAsEmpty() {
+        List<String> inputs = new java.util.ArrayList<>();
+        inputs.add(null);
+
+        assertEquals("1\n0\n", JudgeHarness.build("javascript", "", inputs, 2000, 256).stdin());
+    }
+
+    @Test
+    void buildSubstitutesLimitsButNotInsideUserCode() {
+        String code = "// {{TIME_LIMIT_MS}}\nint main(void) { return 0; }\n";
+
+        String source = JudgeHarness.build("c", code, List.of(), 1500, 128).source();
+
+        assertTrue(source.contains("const long time_limit_ms = 1500;"));
+        assertTrue(source.contains(code));
+        assertFalse(source.contains("{{USER_SOURCE}}"));
+    }
+
+    @Test
+    void buildEmbedsScriptedCodeAsBase64() {
+        String code = "print(\"{{MEMORY_LIMIT_MB}}\")";
+
+        String source = JudgeHarness.build("python", code, List.of(), 2000, 64).source();
+
+        assertTrue(source.contains(b64(code)));
+        assertTrue(source.contains("MEMORY_LIMIT_MB = 64"));
+    }
+
+    @Test
+    void buildRejectsUnsupportedLanguage() {
+        assertFalse(JudgeHarness.supports("ruby"));
+        assertTrue(JudgeHarness.supports("CPP"));
+        assertThrows(IllegalArgumentException.class,
+                () -> JudgeHarness.build("ruby", "", List.of(), 2000, 256));
+    }
+
+    @Test
+    void parseReadsEveryCaseLine() {
+        String stdout = "noise from the sandbox\n"
+                + "##ARENA 0 0 12 3400 " + b64("42\n") + " -\n"
+                + "##ARENA 1 124 2001 3500 - " + b64("slow") + "\n"
+                + "##ARENA 2 0 5\n";
+
+        JudgeHarness.Report report = JudgeHarness.parse(stdout);
+
+        assertNull(report.compileError());
+        assertEquals(2, report.cases().size());
+
+        JudgeHarness.CaseResult first = report.cases().get(0);
+        assertEquals(0, first.index());
+        assertEquals(12, first.timeMs());
+        assertEquals(3400, first.memoryKb());
+        assertEquals("42\n", first.stdout());
+        assertEquals("", first.stderr());
+        assertFalse(first.timedOut());
+
+        JudgeHarness.CaseResult second = report.cases().get(1);
+        assertTrue(second.timedOut());
+        assertEquals("slow", second.stderr());
+    }
+
+    @Test
+    void parseStopsAtCompileError() {
+        String stdout = "##ARENA-COMPILE " + b64("Main.c:1: error") + "\n##ARENA 0 0 1 1 - -\n";
+
+        JudgeHarness.Report report = JudgeHarness.parse(stdout);
+
+        assertEquals("Main.c:1: error", report.compileError());
+        assertTrue(report.cases().isEmpty());
+    }
+
+    @Test
+    void parseOfNoOutputHasNoCases() {
+        assertTrue(JudgeHarness.parse(null).cases().isEmpty());
+        assertTrue(JudgeHarness.parse("").cases().isEmpty());
+    }
+
+    // ================= HARNESSES =================
+    // C and C++ compile errors come from gcc before the harness runs, the rest compile inside it
+
+    // Each program counts its runs in a global: isolated cases always print count 1.
+    // Input 0 crashes, input -1 spins until the time limit.
+    @ParameterizedTest
+    @ValueSource(strings = {"c", "cpp", "python", "java", "javascript"})
+    void runsEveryCaseInIsolation(String language, @TempDir Path dir) throws Exception {
+        JudgeHarness.Program program = JudgeHarness.build(language, countingProgram(language),
+                List.of("3\n", "0\n", "7\n", "-1\n"), 1000, 512);
+
+        JudgeHarness.Report report = JudgeHarness.parse(run(language, program, dir));
+
+        assertNull(report.compileError());
+        assertEquals(4, report.cases().size());
+
+        JudgeHarness.CaseResult first = report.cases().get(0);
+        assertEquals(0, first.exitCode());
+        assertEquals("3 1", first.stdout().trim());
+
+        JudgeHarness.CaseResult crashed = report.cases().get(1);
+        assertNotEquals(0, crashed.exitCode());
+        assertFalse(crashed.timedOut());
+
+        JudgeHarness.CaseResult third = report.cases().get(2);
+        assertEquals(0, third.exitCode());
+        assertEquals("7 1", third.stdout().trim());
+
+        assertTrue(report.cases().get(3).timedOut());
+    }
+
+    // Exit codes are the case's result, later cases still run
+    @Test
+    void javaExitEndsOnlyItsCase(@TempDir Path dir) throws Exception {
+        String code = """
+                import java.util.Scanner;
+                public class Main {
+                    public static void main(String[] args) {
+                        int n = new Scanner(System.in).nextInt();
+                        if (n == 1) java.lang.System.exit(3);
+                        if (n == 2) Runtime.getRuntime().exit(4);
+                        if (n == 3) Runtime.getRuntime().halt(5);
+                        System.out.println(n);
+                    }
+                }
+                """;
+        JudgeHarness.Program program = JudgeHarness.build("java", code,
+                List.of("1\n", "2\n", "3\n", "9\n"), 2000, 256);
+
+        JudgeHarness.Report report = JudgeHarness.parse(run("java", program, dir));
+
+        assertEquals(List.of(3, 4, 5, 0), report.cases().stream().map(JudgeHarness.CaseResult::exitCode).toList());
+        assertEquals("9", report.cases().get(3).stdout().trim());
+    }
+
+    // Input 0 allocates nothing, input 2 goes well past the 64 MB limit
+    @ParameterizedTest
+    @ValueSource(strings = {"python", "java", "javascript"})
+    void reportsMemoryLimitExceeded(String language, @TempDir Path dir) throws Exception {
+        JudgeHarness.Program program = JudgeHarness.build(language, allocatingProgram(language),
+                List.of("0\n", "2\n"), 5000, 64);
+
+        JudgeHarness.Report report = JudgeHarness.parse(run(language, program, dir));
+
+        assertEquals(2, report.cases().size());
+        JudgeHarness.CaseResult small = report.cases().get(0);
+        assertEquals(0, small.exitCode());
+        assertTrue(small.memoryKb() > 0 && small.memoryKb() < 64 * 1024, "peak " + small.memoryKb());
+
+        JudgeHarness.CaseResult large = report.cases().get(1);
+        assertTrue(large.memoryExceeded(), "exit " + large.exitCode() + ": " + large.stderr());
+        assertFalse(large.timedOut());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"python", "java"})
+    void reportsCompileErrorOnce(String language, @TempDir Path dir) throws Exception {
+        String broken = language.equals("python") ? "def main(:\n" : "public class Main { void main( }\n";
+        JudgeHarness.Program program = JudgeHarness.build(language, broken, List.of("1\n"), 1000, 512);
+
+        JudgeHarness.Report report = JudgeHarness.parse(run(language, program, dir));
+
+        assertTrue(report.compileError() != null && !report.compileError().isBlank());
+        assertTrue(report.cases().isEmpty());
+    }
+
+    private static String countingProgram(String language) {
+        return switch (language) {
+            case "c", "cpp" -> """
+                    #include <stdio.h>
+                    #include <stdlib.h>
+                    int count = 0;
+                    int main(void) {
+                        volatile int n;
+                        count++;
+                        if (scanf("%d", (int *) &n) != 1) return 2;
+                        if (n == 0) abort();
+                        while (n < 0) { }
+                        printf("%d %d\\n", n, count);
+                        return 0;
+                    }
+                    """;
+            case "python" -> """
+                    count = 0
+                    def main():
+                        global count
+                        count += 1
+                        n = int(input())
+                        if n == 0:
+                            raise ValueError("boom")
+                        while n < 0:
+                            pass
+                        print(n, count)
+                    main()
+                    """;
+            case "java" -> """
+                    import java.util.Scanner;
+                    public class Main {
+                        static int count = 0;
+                        public static void main(String[] args) {
+                            count++;
+                            int n = new Scanner(System.in).nextInt();
+                            if (n == 0) throw new IllegalStateException("boom");
+                            while (n < 0) { }
+                            System.out.println(n + " " + count);
+                        }
+                    }
+                    """;
+            default -> """
+                    globalThis.count = (globalThis.count || 0) + 1;
+                    const n = parseInt(require("fs").readFileSync(0, "utf8").trim(), 10);
+                    if (n === 0) throw new Error("boom");
+                    while (n < 0) { }
+                    console.log(n + " " + globalThis.count);
+                    """;
+        };
+    }
+
+    // Holds on to n * 100 blocks of 1 MB
+    private static String allocatingProgram(String language) {
+        return switch (language) {
+            case "python" -> """
+                    n = int(input())
+                    blocks = [bytearray(1 << 20) for _ in range(n * 100)]
+                    print(len(blocks))
+                    """;
+            case "java" -> """
+                    import java.util.ArrayList;
+                    import java.util.List;
+                    import java.util.Scanner;
+                    public class Main {
+                        public static void main(String[] args) {
+                            int n = new Scanner(System.in).nextInt();
+                            List<byte[]> blocks = new ArrayList<>();
+                            for (int i = 0; i < n * 100; i++) blocks.add(new byte[1 << 20]);
+                            System.out.println(blocks.size());
+                        }
+                    }
+                    """;
+            default -> """
+                    const n = parseInt(require("fs").readFileSync(0, "utf8").trim(), 10);
+                    const blocks = [];
+                    for (let i = 0; i < n * 100; i++) blocks.push(new Array(1 << 17).fill(i));
+                    console.log(blocks.length);
+                    """;
+        };
+    }
+
+    // ================= SANDBOX STAND-IN =================
+
+    // Same compile and run commands as LocalProcessExecutionEngine, without the jail
+    private static String run(String language, JudgeHarness.Program program, Path dir) throws Exception {
+        Files.writeString(dir.resolve(program.fileName()), program.source());
+
+        List<String> compile = switch (language) {
+            case "c" -> List.of("gcc", "-O2", "-o", "main", program.fileName(), "-lm");
+            case "cpp" -> List.of("g++", "-O2", "-std=c++17", "-o", "main", program.fileName());
+            case "java" -> List.of("javac", "-d", ".", program.fileName());
+            default -> null;
+        };
+        if (compile != null) {
+            String output = exec(compile, "", dir);
+            assumeTrue(output != null, "toolchain missing for " + language);
+        }
+
+        List<String> command = switch (language) {
+            case "c", "cpp" -> List.of("./main");
+            case "java" -> List.of("java", "-Xmx512m", "-Xss64m", "-cp", ".", "Main");
+            case "python" -> List.of("python3", program.fileName());
+            default -> List.of("node", program.fileName());
+        };
+        String output = exec(command, program.stdin(), dir);
+        assumeTrue(output != null, "runtime missing for " + language);
+        return output;
+    }
+
+    // Returns the merged output, or null when the command is not installed
+    private static String exec(List<String> command, String stdin, Path dir) throws Exception {
+        Process process;
+        try {
+            process = new ProcessBuilder(command).directory(dir.toFile()).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            return null;
+        }
+        process.getOutputStream().write(stdin.getBytes(StandardCharsets.UTF_8));
+        process.getOutputStream().close();
+
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS), "harness did not finish: " + command);
+        return output;
+    }
+
+    private static String b64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -174,7 +174,9 @@ export default function RoomPage() {
         code,
         codingQuestionId: questions[currentIndex].id,
       };
-      const result = await CodeExecutionApi.submitCode(payload, roomCode);
+      const result = await CodeExecutionApi.submitCode(payload, roomCode, (event) =>
+        setOutput(`⏳ Test case ${event.testCase}/${event.totalTestCases}: ${event.passed ? "passed" : event.status}`)
+      );
       if (result.stdout) setOutput(result.stdout);
 
       const statusResponse = await RoomApi.fetchRoomQuestionStatus(roomCode);
@@ -1,4 +1,10 @@
 import apiInterceptor from "../config/ApiInterceptor";
+import { subscribeToSubmission } from "./connectSocket";
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
+// Give up on a submission after this many polls (1-3s apart), the server stops judging long before
+const MAX_POLL_ATTEMPTS = 60;
 
 const CodeExecutionApi = {
   executeCode: async (codeExecutionDTO) => {
@@ -14,14 +20,59 @@ const CodeExecutionApi = {
       throw error;
     }
   },
-  submitCode: async (codeExecutionDTO, roomCode) => {
+  submitCode: async (codeExecutionDTO, roomCode, onProgress = () => {}) => {
     try {
       console.log("Payload to be send ", codeExecutionDTO);
 
       const response = await apiInterceptor.post(`/submit/${roomCode}`, codeExecutionDTO);
+      console.info("⏳ Submission queued:", response.data);
 
-      console.info("✅ Code executed:", response.data);
-      return response.data;
+      const job = response.data;
+      if (job.status !== "PENDING") {
+        console.info("✅ Code executed:", job.result);
+        return job.result;
+      }
+
+      // Verdicts stream over the socket; polling covers a missing socket or a result
+      // that landed before the subscription did
+      const result = await new Promise((resolve, reject) => {
+        let done = false;
+        let subscription = null;
+
+        const stop = () => {
+          if (done) return false;
+          done = true;
+          if (subscription) subscription.unsubscribe();
+          return true;
+        };
+
+        const finish = (value) => {
+          if (stop()) resolve(value);
+        };
+
+        const fail = (error) => {
+          if (stop()) reject(error);
+        };
+
+        subscription = subscribeToSubmission(job.jobId, (event) => {
+          if (event.event === "TEST_CASE_RESULT") onProgress(event);
+          if (event.event === "SUBMISSION_RESULT") finish(event.result);
+        });
+
+        const poll = async () => {
+          for (let attempt = 0; attempt < MAX_POLL_ATTEMPTS && !done; attempt++) {
+            await sleep(subscription ? 3000 : 1000);
+            if (done) return;
+            const jobResponse = await apiInterceptor.get(`/submit/jobs/${job.jobId}`);
+            if (jobResponse.data.status !== "PENDING") finish(jobResponse.data.result);
+          }
+          fail(new Error("Judging is taking longer than expected. Check the submission status later"));
+        };
+        poll().catch(fail);
+      });
+
+      console.info("✅ Code executed:", result);
+      return result;
     } catch (error) {
       console.error("❌ Error executing code:", error);
       throw error;
@@ -58,6 +58,13 @@ export const subscribeToRoomStatus = (roomId, onStatusReceived = () => {}) => {
   });
 };
 
+// Per-user judge progress: TEST_CASE_RESULT events, then one SUBMISSION_RESULT
+export const subscribeToSubmission = (submissionId, onEvent = () => {}) => {
+  if (!client || !client.connected) return null;
+  return client.subscribe(`/user/queue/submission/${submissionId}`, (message) => {
+    onEvent(JSON.parse(message.body));
+  });
+};
 
 export const webconnectSocket = (onConnected = () => {}) => {
   const token = Cookies.get("jwtToken");